@@ -0,0 +1,37 @@
+package com.beerfinder.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+public class AsyncConfig {
+
+    public static final String BACKGROUND_EXECUTOR = "backgroundTaskExecutor";
+    public static final String BACKGROUND_SCHEDULER = "backgroundTaskScheduler";
+
+    // Pula wątków dla prac w tle (np. uzupełnianie talii discover)
+    @Bean(name = BACKGROUND_EXECUTOR)
+    public ThreadPoolTaskExecutor backgroundTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("background-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    // Wspólny harmonogram zadań cyklicznych (outbox, write-behind, archiwizacja, wygaszanie matchy)
+    @Bean(name = BACKGROUND_SCHEDULER)
+    public ThreadPoolTaskScheduler backgroundTaskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(4);
+        scheduler.setThreadNamePrefix("scheduler-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(10);
+        return scheduler;
+    }
+}
@@ -1,5 +1,7 @@
 package com.beerfinder.controller;
 
+import com.beerfinder.dto.InboxEntry;
+import com.beerfinder.dto.InboxPageResponse;
 import com.beerfinder.dto.MatchResponse;
 import com.beerfinder.service.MatchService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -43,6 +45,53 @@ public class MatchController {
         return ResponseEntity.ok(matches);
     }
 
+    @Operation(
+            summary = "Get inbox",
+            description = "Get a page of active matches with the matched profile, a preview of the last message "
+                    + "and the number of unread messages, most recent activity first. When more matches are "
+                    + "available the " + UserController.NEXT_CURSOR_HEADER + " response header holds the cursor "
+                    + "of the next page."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Inbox retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/inbox")
+    public ResponseEntity<List<InboxEntry>> getInbox(
+            @Parameter(description = "Cursor of the page to fetch, taken from the " + UserController.NEXT_CURSOR_HEADER + " header")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Page size (default 20, max 100)")
+            @RequestParam(required = false) Integer limit
+    ) {
+        InboxPageResponse page = matchService.getInbox(cursor, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(UserController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getEntries());
+    }
+
+    @Operation(
+            summary = "Unmatch",
+            description = "Ends a match. The match disappears from both users' lists and no more messages can be sent. "
+                    + "Unmatching an already inactive match does nothing."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Match ended"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "404", description = "Match not found or no access")
+    })
+    @DeleteMapping("/{matchId}")
+    public ResponseEntity<Void> unmatch(
+            @Parameter(description = "ID of the match to end")
+            @PathVariable Long matchId) {
+        matchService.unmatch(matchId);
+        return ResponseEntity.noContent().build();
+    }
+
     @Operation(
             summary = "Get match by ID",
             description = "Retrieves details of a specific match"
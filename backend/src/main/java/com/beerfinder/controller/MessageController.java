@@ -1,5 +1,6 @@
 package com.beerfinder.controller;
 
+import com.beerfinder.dto.MessagePageResponse;
 import com.beerfinder.dto.MessageRequest;
 import com.beerfinder.dto.MessageResponse;
 import com.beerfinder.service.MessageService;
@@ -50,7 +51,9 @@ public class MessageController {
 
     @Operation(
             summary = "Get chat history",
-            description = "Retrieves all messages for a specific match, ordered by time. Also marks unread messages as read."
+            description = "Retrieves the newest page of messages of a match (or the page older than 'before'), "
+                    + "ordered by time. When older messages exist the " + UserController.NEXT_CURSOR_HEADER
+                    + " response header holds the id to pass as 'before'. Does not mark messages as read."
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -58,16 +61,46 @@ public class MessageController {
                     description = "Chat history retrieved successfully",
                     content = @Content(schema = @Schema(implementation = MessageResponse.class))
             ),
-            @ApiResponse(responseCode = "400", description = "Not part of this match"),
+            @ApiResponse(responseCode = "400", description = "Not part of this match or invalid limit"),
             @ApiResponse(responseCode = "401", description = "Unauthorized"),
             @ApiResponse(responseCode = "404", description = "Match not found")
     })
     @GetMapping("/{matchId}")
     public ResponseEntity<List<MessageResponse>> getChatHistory(
             @Parameter(description = "ID of the match to get messages from")
+            @PathVariable Long matchId,
+
+            @Parameter(description = "Return only messages older than this message id (taken from the "
+                    + UserController.NEXT_CURSOR_HEADER + " header)")
+            @RequestParam(required = false) Long before,
+
+            @Parameter(description = "Page size (default 50, max 200)")
+            @RequestParam(required = false) Integer limit
+    ) {
+        MessagePageResponse page = messageService.getChatHistory(matchId, before, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextBefore() != null) {
+            response.header(UserController.NEXT_CURSOR_HEADER, page.getNextBefore().toString());
+        }
+        return response.body(page.getMessages());
+    }
+
+    @Operation(
+            summary = "Mark messages as read",
+            description = "Marks every unread message from the other user in a match as read. Returns the number of messages marked."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Messages marked as read"),
+            @ApiResponse(responseCode = "400", description = "Not part of this match"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "404", description = "Match not found")
+    })
+    @PostMapping("/{matchId}/read")
+    public ResponseEntity<Integer> markAsRead(
+            @Parameter(description = "ID of the match whose messages were read")
             @PathVariable Long matchId) {
-        List<MessageResponse> messages = messageService.getChatHistory(matchId);
-        return ResponseEntity.ok(messages);
+        return ResponseEntity.ok(messageService.markAsRead(matchId));
     }
 
     @Operation(
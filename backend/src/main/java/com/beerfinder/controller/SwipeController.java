@@ -1,11 +1,16 @@
 package com.beerfinder.controller;
 
+import com.beerfinder.dto.BatchSwipeRequest;
+import com.beerfinder.dto.BatchSwipeResponse;
 import com.beerfinder.dto.SwipeRequest;
 import com.beerfinder.dto.SwipeResponse;
+import com.beerfinder.security.AuthenticatedUser;
+import com.beerfinder.security.RateLimitFilter;
 import com.beerfinder.service.SwipeService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -13,9 +18,11 @@ import org.springframework.web.bind.annotation.*;
 public class SwipeController {
 
     private final SwipeService swipeService;
+    private final RateLimitFilter rateLimitFilter;
 
-    public SwipeController(SwipeService swipeService) {
+    public SwipeController(SwipeService swipeService, RateLimitFilter rateLimitFilter) {
         this.swipeService = swipeService;
+        this.rateLimitFilter = rateLimitFilter;
     }
 
     /**
@@ -26,4 +33,25 @@ public class SwipeController {
         SwipeResponse response = swipeService.swipe(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
+
+    /**
+     * POST /api/swipes/batch - wykonaj listę swipe'ów w jednej transakcji (max 100)
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchSwipeResponse> swipeBatch(@Valid @RequestBody BatchSwipeRequest request,
+                                                         @AuthenticationPrincipal AuthenticatedUser user) {
+        // Limit liczy każdy swipe z listy, a nie jedno żądanie
+        rateLimitFilter.chargeBatchSwipes(user != null ? user.getId() : null, request.getSwipes().size());
+        BatchSwipeResponse response = swipeService.swipeBatch(request);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * POST /api/swipes/undo - cofnij ostatni swipe (tylko w oknie cofania)
+     */
+    @PostMapping("/undo")
+    public ResponseEntity<SwipeResponse> undo() {
+        SwipeResponse response = swipeService.undoLastSwipe();
+        return ResponseEntity.ok(response);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.beerfinder.controller;
 
+import com.beerfinder.dto.DiscoverPageResponse;
+import com.beerfinder.dto.DiscoverSort;
 import com.beerfinder.dto.ProfileResponse;
 import com.beerfinder.dto.UpdateProfileRequest;
 import com.beerfinder.service.CloudinaryService;
@@ -28,6 +30,8 @@ import java.util.Map;
 @Tag(name = "User Profile", description = "User profile management endpoints")
 public class UserController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ProfileService profileService;
     private final CloudinaryService cloudinaryService;
 
@@ -64,10 +68,15 @@ public class UserController {
 
     @Operation(
             summary = "Discover profiles with filters",
-            description = "Get list of profiles available for swiping with optional filters for age and distance"
+            description = "Get a page of profiles available for swiping with optional filters for age and distance. "
+                    + "When more profiles are available the " + NEXT_CURSOR_HEADER + " response header holds "
+                    + "the cursor of the next page. With sort=distance the nearest profiles come first "
+                    + "and each profile carries its distanceKm; sort=interests ranks profiles by the number "
+                    + "of shared interests (sharedInterests)."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Profiles retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, limit or sort"),
             @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
     @GetMapping("/discover")
@@ -79,19 +88,25 @@ public class UserController {
             @RequestParam(required = false) Integer maxAge,
 
             @Parameter(description = "Maximum distance in kilometers (e.g., 10)")
-            @RequestParam(required = false) Integer maxDistance
+            @RequestParam(required = false) Integer maxDistance,
+
+            @Parameter(description = "Sort order: default (profile id), distance (nearest first, requires location) or interests (most shared interests first)")
+            @RequestParam(required = false) String sort,
+
+            @Parameter(description = "Cursor of the page to fetch, taken from the " + NEXT_CURSOR_HEADER + " header")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Page size (default 20, max 100)")
+            @RequestParam(required = false) Integer limit
     ) {
-        List<ProfileResponse> profiles;
-
-        // Jeśli są jakiekolwiek filtry, użyj metody z filtrami
-        if (minAge != null || maxAge != null || maxDistance != null) {
-            profiles = profileService.discoverProfilesWithFilters(minAge, maxAge, maxDistance);
-        } else {
-            // Bez filtrów - użyj prostej metody
-            profiles = profileService.discoverProfiles();
-        }
+        DiscoverPageResponse page = profileService.discoverProfiles(
+                minAge, maxAge, maxDistance, DiscoverSort.fromParam(sort), cursor, limit);
 
-        return ResponseEntity.ok(profiles);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getProfiles());
     }
 
     @Operation(
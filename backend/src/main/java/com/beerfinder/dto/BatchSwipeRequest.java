@@ -0,0 +1,21 @@
+package com.beerfinder.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchSwipeRequest {
+
+    @NotEmpty(message = "At least one swipe is required")
+    @Size(max = 100, message = "At most 100 swipes per batch")
+    @Valid
+    private List<SwipeRequest> swipes; // w kolejności wykonania
+}
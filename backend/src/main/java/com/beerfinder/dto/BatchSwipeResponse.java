@@ -0,0 +1,16 @@
+package com.beerfinder.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSwipeResponse {
+    private List<SwipeResponse> results; // jeden wynik na swipe, w kolejności żądania
+    private Integer recorded;            // ile swipe'ów zapisano
+    private Integer matches;             // ile powstało matchy
+}
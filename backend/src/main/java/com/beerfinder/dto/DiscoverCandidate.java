@@ -0,0 +1,10 @@
+package com.beerfinder.dto;
+
+/**
+ * Discover candidate as returned by the selection queries - ids only, no entity hydration
+ *
+ * @param profileId Candidate profile id
+ * @param userId    Owner of the profile (used to skip swiped users)
+ */
+public record DiscoverCandidate(Long profileId, Long userId) {
+}
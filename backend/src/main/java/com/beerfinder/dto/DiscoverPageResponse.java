@@ -0,0 +1,16 @@
+package com.beerfinder.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiscoverPageResponse {
+
+    private List<ProfileResponse> profiles;
+    private String nextCursor; // null gdy nie ma kolejnej strony
+}
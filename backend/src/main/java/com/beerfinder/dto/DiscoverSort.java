@@ -0,0 +1,39 @@
+package com.beerfinder.dto;
+
+import com.beerfinder.exception.BadRequestException;
+
+import java.util.Locale;
+
+/**
+ * Ordering of the discover results
+ */
+public enum DiscoverSort {
+
+    // Kolejność id profilu - najtańsza, obsługiwana przez talię i keyset
+    DEFAULT,
+
+    // Najbliżsi najpierw - wymaga lokalizacji użytkownika
+    DISTANCE,
+
+    // Najwięcej wspólnych zainteresowań najpierw
+    INTERESTS;
+
+    /**
+     * Parse the value of the sort request parameter (case-insensitive)
+     *
+     * @param value Parameter value (may be null)
+     * @return Requested ordering, DEFAULT when no value was given
+     * @throws BadRequestException when the value is not supported
+     */
+    public static DiscoverSort fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT;
+        }
+
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unsupported sort: " + value);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.beerfinder.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InboxEntry {
+
+    private Long matchId;
+    private ProfileResponse matchedUser; // null gdy dopasowana osoba nie ma profilu
+    private String lastMessage; // początek ostatniej wiadomości, null gdy jeszcze nie pisali
+    private Long lastMessageSenderId;
+    private LocalDateTime lastMessageAt;
+    private Long unreadCount;
+    private LocalDateTime lastActivityAt;
+    private LocalDateTime createdAt;
+
+    public static InboxEntry fromRow(InboxRow row, ProfileResponse matchedUser) {
+        return new InboxEntry(
+                row.matchId(),
+                matchedUser,
+                row.lastMessagePreview(),
+                row.lastMessageSenderId(),
+                row.lastMessageAt(),
+                row.unreadCount(),
+                row.lastActivityAt(),
+                row.matchedAt()
+        );
+    }
+}
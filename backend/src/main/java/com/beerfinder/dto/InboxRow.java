@@ -0,0 +1,23 @@
+package com.beerfinder.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One inbox row read with plain JDBC: the match, the other user's profile id, the latest message
+ * and the unread count. Profile cards are loaded separately for the whole page.
+ *
+ * @param lastActivityAt Time of the latest message, or of the match when there are no messages yet
+ */
+public record InboxRow(
+        Long matchId,
+        Long matchedUserId,
+        Long matchedProfileId,
+        LocalDateTime matchedAt,
+        Long lastMessageId,
+        Long lastMessageSenderId,
+        String lastMessagePreview,
+        LocalDateTime lastMessageAt,
+        long unreadCount,
+        LocalDateTime lastActivityAt
+) {
+}
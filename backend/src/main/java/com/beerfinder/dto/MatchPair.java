@@ -0,0 +1,25 @@
+package com.beerfinder.dto;
+
+/**
+ * Canonical key of a match: the smaller user id always comes first, as in the matches table,
+ * so a pair is looked up with one probe of the (user1_id, user2_id) index.
+ */
+public record MatchPair(Long user1Id, Long user2Id) {
+
+    public MatchPair {
+        if (user1Id >= user2Id) {
+            throw new IllegalArgumentException("user1Id must be smaller than user2Id");
+        }
+    }
+
+    /**
+     * Pair of two users in any order
+     */
+    public static MatchPair of(Long userId, Long otherUserId) {
+        return userId < otherUserId ? new MatchPair(userId, otherUserId) : new MatchPair(otherUserId, userId);
+    }
+
+    public Long otherThan(Long userId) {
+        return user1Id.equals(userId) ? user2Id : user1Id;
+    }
+}
@@ -0,0 +1,25 @@
+package com.beerfinder.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Scalar fields of a match and the profile ids of both users, selected with a constructor expression.
+ * Profile ids are null for users without a profile.
+ */
+public record MatchRow(
+        Long matchId,
+        Long user1Id,
+        Long user2Id,
+        Long profile1Id,
+        Long profile2Id,
+        LocalDateTime createdAt
+) {
+
+    public Long matchedUserOf(Long userId) {
+        return user1Id.equals(userId) ? user2Id : user1Id;
+    }
+
+    public Long matchedProfileOf(Long userId) {
+        return user1Id.equals(userId) ? profile2Id : profile1Id;
+    }
+}
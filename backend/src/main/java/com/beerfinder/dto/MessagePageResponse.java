@@ -0,0 +1,16 @@
+package com.beerfinder.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessagePageResponse {
+
+    private List<MessageResponse> messages; // chronologicznie
+    private Long nextBefore; // id najstarszej wiadomości strony, null gdy nie ma starszych
+}
@@ -0,0 +1,18 @@
+package com.beerfinder.dto;
+
+/**
+ * Scalar fields of a discover card, selected with a constructor expression.
+ * Interests are loaded separately for the whole page (see {@link ProfileResponse#fromCard}).
+ */
+public record ProfileCard(
+        Long id,
+        Long userId,
+        String name,
+        Integer age,
+        String bio,
+        String occupation,
+        Double latitude,
+        Double longitude,
+        String profilePhoto
+) {
+}
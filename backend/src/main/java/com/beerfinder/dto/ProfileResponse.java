@@ -23,6 +23,29 @@ public class ProfileResponse {
     private Double longitude;
     private String profilePhoto;
 
+    // Odległość od zalogowanego użytkownika - tylko w wynikach discover, gdy obie strony mają lokalizację
+    private Double distanceKm;
+
+    // Liczba wspólnych zainteresowań - tylko w discover sortowanym po zainteresowaniach
+    private Integer sharedInterests;
+
+    public static ProfileResponse fromCard(ProfileCard card, List<String> interests) {
+        return new ProfileResponse(
+                card.id(),
+                card.userId(),
+                card.name(),
+                card.age(),
+                card.bio(),
+                card.occupation(),
+                interests,
+                card.latitude(),
+                card.longitude(),
+                card.profilePhoto(),
+                null,
+                null
+        );
+    }
+
     public static ProfileResponse fromEntity(Profile profile) {
         if (profile == null) {
             return null;
@@ -38,7 +61,9 @@ public class ProfileResponse {
                 profile.getInterests(),
                 profile.getLatitude(),
                 profile.getLongitude(),
-                profile.getProfilePhoto()
+                profile.getProfilePhoto(),
+                null,
+                null
         );
     }
 }
@@ -11,6 +11,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "matches", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"user1_id", "user2_id"})
+}, indexes = {
+        // Sprawdzenie pary czyta tylko indeks (id i is_active w kluczu)
+        @Index(name = "idx_matches_pair", columnList = "user1_id, user2_id, is_active, id")
 })
 @Data
 @NoArgsConstructor
@@ -35,4 +38,8 @@ public class Match {
     @CreationTimestamp
     @Column(nullable = false, updatable = false, name = "created_at")
     private LocalDateTime createdAt;
-}
\ No newline at end of file
+
+    // Dezaktywowany przez cofnięcie LIKE - tylko taki match wraca, gdy para znów się polubi
+    @Column(name = "undone", nullable = false, columnDefinition = "BOOLEAN DEFAULT FALSE")
+    private Boolean undone = false;
+}
@@ -9,7 +9,9 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        @Index(name = "idx_messages_match_id", columnList = "match_id, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
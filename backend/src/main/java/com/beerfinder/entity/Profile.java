@@ -11,7 +11,9 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "profiles")
+@Table(name = "profiles", indexes = {
+        @Index(name = "idx_profiles_lat_lon", columnList = "latitude, longitude")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,34 @@
+package com.beerfinder.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Archiwum starych PASS-ów jednego użytkownika - zbiór id przesuniętych użytkowników
+ * jako skompresowana bitmapa Roaring (zamiast wiersza na każdy swipe)
+ */
+@Entity
+@Table(name = "swipe_archives")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SwipeArchive {
+
+    // Id swipującego użytkownika - jeden wiersz na użytkownika
+    @Id
+    @Column(name = "swiper_id")
+    private Long swiperId;
+
+    @Column(name = "passed_user_ids", nullable = false, length = 16777216)
+    private byte[] passedUserIds;
+
+    @Column(name = "passed_count", nullable = false)
+    private Long passedCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
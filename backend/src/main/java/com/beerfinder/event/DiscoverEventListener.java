@@ -0,0 +1,41 @@
+package com.beerfinder.event;
+
+import com.beerfinder.repository.ProfileRepository;
+import com.beerfinder.service.DiscoverCandidateCache;
+import com.beerfinder.service.DiscoverDeckService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops swiped users from the discover deck and candidate cache.
+ * Until the event arrives {@link com.beerfinder.service.ProfileService#discoverProfiles} skips
+ * them while reading the deck and the cache, using the swiped-users bitmap.
+ * An undone swipe puts just that user's card back, without rebuilding the deck or the cached candidates.
+ */
+@Component
+public class DiscoverEventListener implements DomainEventListener {
+
+    private final DiscoverDeckService deckService;
+    private final DiscoverCandidateCache candidateCache;
+    private final ProfileRepository profileRepository;
+
+    public DiscoverEventListener(DiscoverDeckService deckService, DiscoverCandidateCache candidateCache,
+                                 ProfileRepository profileRepository) {
+        this.deckService = deckService;
+        this.candidateCache = candidateCache;
+        this.profileRepository = profileRepository;
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event instanceof SwipeRecorded swipe) {
+            deckService.consume(swipe.swiperId(), swipe.swipedUserId());
+            candidateCache.onSwipe(swipe.swiperId(), swipe.swipedUserId());
+        } else if (event instanceof SwipeUndone undone) {
+            profileRepository.findCardByUserId(undone.swipedUserId()).ifPresent(card -> {
+                deckService.restore(undone.swiperId(), card.userId(), card.id());
+                candidateCache.onUndo(undone.swiperId(), card.userId(), card.id(),
+                        card.age(), card.latitude(), card.longitude());
+            });
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.beerfinder.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Domain event stored in the outbox together with the change that caused it
+ * and delivered to {@link DomainEventListener}s by {@link OutboxDispatcher}.
+ */
+public sealed interface DomainEvent permits SwipeRecorded, SwipeUndone, MatchCreated, MatchEnded, MessageSent {
+
+    @JsonIgnore
+    DomainEventType type();
+}
@@ -0,0 +1,12 @@
+package com.beerfinder.event;
+
+/**
+ * In-process consumer of committed domain events.
+ *
+ * Delivery is at least once and asynchronous: an event may arrive again after a crash
+ * and some time after the request that caused it has returned, so handlers must be idempotent.
+ */
+public interface DomainEventListener {
+
+    void onEvent(DomainEvent event);
+}
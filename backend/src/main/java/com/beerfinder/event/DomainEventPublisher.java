@@ -0,0 +1,66 @@
+package com.beerfinder.event;
+
+import com.beerfinder.entity.OutboxEvent;
+import com.beerfinder.repository.OutboxEventRepository;
+import com.beerfinder.util.TransactionHooks;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes domain events to the outbox table.
+ *
+ * Events must be published inside the transaction that makes the change they describe, so the
+ * change and its event are committed (or rolled back) together. After the commit the dispatcher
+ * is woken up to deliver them without waiting for its next poll.
+ */
+@Component
+public class DomainEventPublisher {
+
+    private final OutboxEventRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final OutboxDispatcher dispatcher;
+
+    public DomainEventPublisher(OutboxEventRepository outboxRepository,
+                                ObjectMapper objectMapper,
+                                OutboxDispatcher dispatcher) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.dispatcher = dispatcher;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(DomainEvent event) {
+        publishAll(List.of(event));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(List<? extends DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> rows = new ArrayList<>(events.size());
+        for (DomainEvent event : events) {
+            rows.add(new OutboxEvent(null, event.type(), toJson(event), now));
+        }
+        outboxRepository.appendAll(rows);
+
+        TransactionHooks.afterCommit(dispatcher::wakeUp);
+    }
+
+    private String toJson(DomainEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event.type(), e);
+        }
+    }
+}
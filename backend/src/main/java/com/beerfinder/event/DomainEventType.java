@@ -0,0 +1,22 @@
+package com.beerfinder.event;
+
+/**
+ * Outbox discriminator - maps a stored row back to its event class
+ */
+public enum DomainEventType {
+    SWIPE_RECORDED(SwipeRecorded.class),
+    SWIPE_UNDONE(SwipeUndone.class),
+    MATCH_CREATED(MatchCreated.class),
+    MATCH_ENDED(MatchEnded.class),
+    MESSAGE_SENT(MessageSent.class);
+
+    private final Class<? extends DomainEvent> eventClass;
+
+    DomainEventType(Class<? extends DomainEvent> eventClass) {
+        this.eventClass = eventClass;
+    }
+
+    public Class<? extends DomainEvent> eventClass() {
+        return eventClass;
+    }
+}
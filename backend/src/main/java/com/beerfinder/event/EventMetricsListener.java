@@ -0,0 +1,33 @@
+package com.beerfinder.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Counts delivered domain events as {@value #METRIC}, tagged with the event type
+ */
+@Component
+public class EventMetricsListener implements DomainEventListener {
+
+    public static final String METRIC = "domain.events";
+
+    private final Map<DomainEventType, Counter> counters = new EnumMap<>(DomainEventType.class);
+
+    public EventMetricsListener(MeterRegistry meterRegistry) {
+        for (DomainEventType type : DomainEventType.values()) {
+            counters.put(type, Counter.builder(METRIC)
+                    .description("Domain events delivered from the outbox")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        counters.get(event.type()).increment();
+    }
+}
@@ -0,0 +1,16 @@
+package com.beerfinder.event;
+
+/**
+ * New match of a pair (user1Id is the smaller id, as in the matches table)
+ */
+public record MatchCreated(Long matchId, Long user1Id, Long user2Id) implements DomainEvent {
+
+    public static MatchCreated of(Long matchId, Long userId, Long otherUserId) {
+        return new MatchCreated(matchId, Math.min(userId, otherUserId), Math.max(userId, otherUserId));
+    }
+
+    @Override
+    public DomainEventType type() {
+        return DomainEventType.MATCH_CREATED;
+    }
+}
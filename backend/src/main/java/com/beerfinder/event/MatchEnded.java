@@ -0,0 +1,18 @@
+package com.beerfinder.event;
+
+/**
+ * Match deactivated by one of its users or expired without any message
+ * (user1Id is the smaller id, as in the matches table)
+ */
+public record MatchEnded(Long matchId, Long user1Id, Long user2Id, Reason reason) implements DomainEvent {
+
+    public enum Reason {
+        UNMATCHED,
+        EXPIRED
+    }
+
+    @Override
+    public DomainEventType type() {
+        return DomainEventType.MATCH_ENDED;
+    }
+}
@@ -0,0 +1,15 @@
+package com.beerfinder.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Chat message stored in a match
+ */
+public record MessageSent(Long messageId, Long matchId, Long senderId, String senderName,
+                          String content, LocalDateTime createdAt) implements DomainEvent {
+
+    @Override
+    public DomainEventType type() {
+        return DomainEventType.MESSAGE_SENT;
+    }
+}
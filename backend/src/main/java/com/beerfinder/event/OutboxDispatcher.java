@@ -0,0 +1,164 @@
+package com.beerfinder.event;
+
+import com.beerfinder.config.AsyncConfig;
+import com.beerfinder.entity.OutboxEvent;
+import com.beerfinder.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers outbox events to every {@link DomainEventListener}.
+ *
+ * The shared background scheduler drains the outbox in id order, {@code batch-size} events at a time:
+ * it reads a batch, hands each event to the listeners and only then deletes the batch. A crash
+ * in between redelivers the batch on the next start, so no committed event is lost. Drains run
+ * every {@code poll-interval} and right after each commit that published events.
+ *
+ * A failing listener is logged and skipped - it does not hold back the other listeners or the
+ * rest of the outbox.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxEventRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final List<DomainEventListener> listeners;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration pollInterval;
+    private final int batchSize;
+
+    private final Object drainLock = new Object();
+    private final AtomicBoolean wakeUpQueued = new AtomicBoolean();
+    private final TaskScheduler scheduler;
+    private ScheduledFuture<?> schedule;
+
+    public OutboxDispatcher(OutboxEventRepository outboxRepository,
+                            ObjectMapper objectMapper,
+                            // Leniwie - listenery zależą od serwisów, które same publikują zdarzenia
+                            @Lazy List<DomainEventListener> listeners,
+                            PlatformTransactionManager transactionManager,
+                            @Qualifier(AsyncConfig.BACKGROUND_SCHEDULER) TaskScheduler scheduler,
+                            @Value("${outbox.dispatcher.enabled:true}") boolean enabled,
+                            @Value("${outbox.dispatcher.poll-interval:1s}") Duration pollInterval,
+                            @Value("${outbox.dispatcher.batch-size:200}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.listeners = listeners;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.scheduler = scheduler;
+        this.enabled = enabled;
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        schedule = scheduler.scheduleWithFixedDelay(this::drainQuietly, Instant.now().plus(pollInterval), pollInterval);
+    }
+
+    /**
+     * Schedule a drain now. Wake-ups arriving while one is queued are merged.
+     */
+    public void wakeUp() {
+        if (schedule == null || !wakeUpQueued.compareAndSet(false, true)) {
+            return;
+        }
+        scheduler.schedule(() -> {
+            wakeUpQueued.set(false);
+            drainQuietly();
+        }, Instant.now());
+    }
+
+    /**
+     * Deliver and remove everything currently in the outbox
+     *
+     * @return Number of events delivered
+     */
+    public int drain() {
+        synchronized (drainLock) {
+            int delivered = 0;
+            while (true) {
+                List<OutboxEvent> batch = transactionTemplate.execute(status ->
+                        outboxRepository.findOldest(PageRequest.of(0, batchSize)));
+                if (batch == null || batch.isEmpty()) {
+                    return delivered;
+                }
+
+                for (OutboxEvent row : batch) {
+                    deliver(row);
+                }
+
+                // Usuwamy dopiero po dostarczeniu - awaria wcześniej oznacza ponowne dostarczenie
+                List<Long> ids = batch.stream().map(OutboxEvent::getId).toList();
+                transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteAllByIdInBatch(ids));
+                delivered += batch.size();
+
+                if (batch.size() < batchSize) {
+                    return delivered;
+                }
+            }
+        }
+    }
+
+    // Trwający drain kończy się przed ostatnim (drainLock)
+    @PreDestroy
+    public void stop() {
+        if (schedule != null) {
+            schedule.cancel(false);
+        }
+        drainQuietly();
+    }
+
+    private void deliver(OutboxEvent row) {
+        DomainEvent event;
+        try {
+            event = objectMapper.readValue(row.getPayload(), row.getEventType().eventClass());
+        } catch (JsonProcessingException e) {
+            log.error("Dropping unreadable outbox event {} ({})", row.getId(), row.getEventType(), e);
+            return;
+        }
+
+        for (DomainEventListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                log.warn("Listener {} failed on {} {}: {}",
+                        listener.getClass().getSimpleName(), row.getEventType(), row.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // Zdarzenia zostają w outboxie - spróbujemy przy następnym cyklu
+            log.warn("Outbox drain failed, will retry: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.beerfinder.event;
+
+import com.beerfinder.entity.SwipeAction;
+
+/**
+ * Swipe stored in the database (swipeId is null for PASS swipes written by the write-behind buffer)
+ */
+public record SwipeRecorded(Long swipeId, Long swiperId, Long swipedUserId, SwipeAction action) implements DomainEvent {
+
+    @Override
+    public DomainEventType type() {
+        return DomainEventType.SWIPE_RECORDED;
+    }
+}
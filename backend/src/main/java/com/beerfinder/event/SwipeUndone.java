@@ -0,0 +1,15 @@
+package com.beerfinder.event;
+
+import com.beerfinder.entity.SwipeAction;
+
+/**
+ * Swipe taken back by its author (matchId is set when the undo deactivated a match)
+ */
+public record SwipeUndone(Long swipeId, Long swiperId, Long swipedUserId, SwipeAction action,
+                          Long matchId) implements DomainEvent {
+
+    @Override
+    public DomainEventType type() {
+        return DomainEventType.SWIPE_UNDONE;
+    }
+}
@@ -0,0 +1,40 @@
+package com.beerfinder.event;
+
+import com.beerfinder.dto.ChatMessage;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pushes new messages and matches to WebSocket subscribers:
+ * messages to /topic/matches/{matchId}, new and ended matches to /topic/users/{userId}/matches of both users.
+ */
+@Component
+public class WebSocketEventListener implements DomainEventListener {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public WebSocketEventListener(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    @Override
+    public void onEvent(DomainEvent event) {
+        if (event instanceof MessageSent message) {
+            ChatMessage chatMessage = new ChatMessage(
+                    message.messageId(),
+                    message.matchId(),
+                    message.senderId(),
+                    message.senderName(),
+                    message.content(),
+                    message.createdAt()
+            );
+            messagingTemplate.convertAndSend("/topic/matches/" + message.matchId(), chatMessage);
+        } else if (event instanceof MatchCreated match) {
+            messagingTemplate.convertAndSend("/topic/users/" + match.user1Id() + "/matches", match);
+            messagingTemplate.convertAndSend("/topic/users/" + match.user2Id() + "/matches", match);
+        } else if (event instanceof MatchEnded ended) {
+            messagingTemplate.convertAndSend("/topic/users/" + ended.user1Id() + "/matches", ended);
+            messagingTemplate.convertAndSend("/topic/users/" + ended.user2Id() + "/matches", ended);
+        }
+    }
+}
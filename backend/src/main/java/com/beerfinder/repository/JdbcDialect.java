@@ -0,0 +1,33 @@
+package com.beerfinder.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Small helpers for SQL that differs between PostgreSQL (production) and H2 (tests)
+ */
+final class JdbcDialect {
+
+    private JdbcDialect() {
+    }
+
+    /**
+     * Whether the database understands INSERT ... ON CONFLICT
+     */
+    static boolean supportsOnConflict(JdbcTemplate jdbcTemplate) {
+        return isPostgres(jdbcTemplate);
+    }
+
+    /**
+     * Whether the database understands CREATE INDEX ... WHERE (partial indexes)
+     */
+    static boolean supportsPartialIndexes(JdbcTemplate jdbcTemplate) {
+        return isPostgres(jdbcTemplate);
+    }
+
+    private static boolean isPostgres(JdbcTemplate jdbcTemplate) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+}
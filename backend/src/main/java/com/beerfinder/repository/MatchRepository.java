@@ -1,19 +1,71 @@
 package com.beerfinder.repository;
 
+import com.beerfinder.dto.MatchRow;
 import com.beerfinder.entity.Match;
-import com.beerfinder.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface MatchRepository extends JpaRepository<Match, Long> {
+public interface MatchRepository extends JpaRepository<Match, Long>, MatchRepositoryCustom {
 
-    @Query("SELECT m FROM Match m WHERE (m.user1 = :user OR m.user2 = :user) AND m.isActive = true")
-    List<Match> findActiveMatchesByUser(@Param("user") User user);
+    // Matche razem z id profili obu stron - karty ładuje się potem jedną paczką
+    @Query("""
+           SELECT new com.beerfinder.dto.MatchRow(m.id, m.user1.id, m.user2.id, p1.id, p2.id, m.createdAt)
+           FROM Match m
+           LEFT JOIN Profile p1 ON p1.user.id = m.user1.id
+           LEFT JOIN Profile p2 ON p2.user.id = m.user2.id
+           WHERE (m.user1.id = :userId OR m.user2.id = :userId) AND m.isActive = true
+           ORDER BY m.id
+           """)
+    List<MatchRow> findActiveMatchRows(@Param("userId") Long userId);
 
-    Boolean existsByUser1AndUser2(User user1, User user2);
+    // Sami partnerzy aktywnych matchy - bez profili i kart
+    @Query("""
+           SELECT CASE WHEN m.user1.id = :userId THEN m.user2.id ELSE m.user1.id END
+           FROM Match m
+           WHERE (m.user1.id = :userId OR m.user2.id = :userId) AND m.isActive = true
+           """)
+    List<Long> findActiveMatchedUserIds(@Param("userId") Long userId);
+
+    @Query("""
+           SELECT new com.beerfinder.dto.MatchRow(m.id, m.user1.id, m.user2.id, p1.id, p2.id, m.createdAt)
+           FROM Match m
+           LEFT JOIN Profile p1 ON p1.user.id = m.user1.id
+           LEFT JOIN Profile p2 ON p2.user.id = m.user2.id
+           WHERE m.id = :matchId AND m.isActive = true
+           """)
+    Optional<MatchRow> findMatchRow(@Param("matchId") Long matchId);
+
+    // Jedno zapytanie po kanonicznej parze (user1 < user2) - indeks idx_matches_pair pokrywa odczyt
+    @Query("SELECT m.id FROM Match m WHERE m.user1.id = :user1Id AND m.user2.id = :user2Id")
+    Optional<Long> findIdByPair(@Param("user1Id") Long user1Id, @Param("user2Id") Long user2Id);
+
+    // Cofnięcie LIKE - match zostaje oznaczony, żeby ponowny LIKE mógł go przywrócić
+    @Modifying
+    @Query("UPDATE Match m SET m.isActive = false, m.undone = true WHERE m.user1.id = :user1Id AND m.user2.id = :user2Id AND m.isActive = true")
+    int deactivatePair(@Param("user1Id") Long user1Id, @Param("user2Id") Long user2Id);
+
+    @Modifying
+    @Query("UPDATE Match m SET m.isActive = false WHERE m.id IN :ids AND m.isActive = true")
+    int deactivateAll(@Param("ids") Collection<Long> ids);
+
+    // Aktywne matche bez żadnej wiadomości, utworzone przed :before - do wygaszenia (id, user1, user2)
+    @Query("""
+           SELECT m.id, m.user1.id, m.user2.id
+           FROM Match m
+           WHERE m.isActive = true
+             AND m.createdAt < :before
+             AND NOT EXISTS (SELECT 1 FROM Message msg WHERE msg.match = m)
+           ORDER BY m.id
+           """)
+    List<Object[]> findIdleMatches(@Param("before") LocalDateTime before, Limit limit);
 }
\ No newline at end of file
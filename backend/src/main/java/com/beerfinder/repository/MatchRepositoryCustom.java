@@ -0,0 +1,45 @@
+package com.beerfinder.repository;
+
+import com.beerfinder.dto.InboxRow;
+import com.beerfinder.dto.MatchPair;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Match operations implemented with plain JDBC (see {@link MatchRepositoryImpl})
+ */
+public interface MatchRepositoryCustom {
+
+    /**
+     * Create the match of an ordered pair unless it already exists. An existing match deactivated
+     * by an undo is activated again; one ended by unmatch or expiry stays inactive.
+     *
+     * @param user1Id Smaller user id
+     * @param user2Id Larger user id
+     * @return Id of the match if it is active afterwards; empty when the pair's match stays inactive
+     */
+    Optional<Long> upsertMatch(Long user1Id, Long user2Id);
+
+    /**
+     * Active matches of a user with their latest message and unread count, most recent activity
+     * first - a single statement regardless of the number of matches.
+     *
+     * @param userId         Inbox owner
+     * @param beforeActivity Keyset cursor: last activity of the previous page's last entry (null for the first page)
+     * @param beforeMatchId  Keyset cursor: match id of the previous page's last entry
+     * @param limit          Maximum number of rows
+     */
+    List<InboxRow> findInbox(Long userId, LocalDateTime beforeActivity, Long beforeMatchId, int limit);
+
+    /**
+     * Ids of the active matches among the given pairs, resolved with row-value IN queries
+     * (one per chunk of pairs) instead of one lookup per pair
+     *
+     * @return Match id by pair; pairs without an active match are absent
+     */
+    Map<MatchPair, Long> findActiveMatchIds(Collection<MatchPair> pairs);
+}
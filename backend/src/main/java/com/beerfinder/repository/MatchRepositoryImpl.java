@@ -0,0 +1,168 @@
+package com.beerfinder.repository;
+
+import com.beerfinder.dto.InboxRow;
+import com.beerfinder.dto.MatchPair;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class MatchRepositoryImpl implements MatchRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO matches (user1_id, user2_id, is_active, created_at) VALUES (?, ?, TRUE, ?)";
+
+    // PostgreSQL: jedno polecenie. Konflikt czeka na równoległy INSERT tej samej pary, przywraca tylko
+    // match cofnięty przez undo i zawsze zwraca wiersz (DO UPDATE bez warunku, żeby RETURNING go dał)
+    private static final String UPSERT_RETURNING_SQL = INSERT_SQL
+            + " ON CONFLICT (user1_id, user2_id) DO UPDATE"
+            + " SET is_active = matches.is_active OR matches.undone, undone = FALSE"
+            + " RETURNING id, is_active";
+
+    private static final String INSERT_IF_ABSENT_SQL =
+            "INSERT INTO matches (user1_id, user2_id, is_active, created_at) "
+                    + "SELECT ?, ?, TRUE, ? WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM matches WHERE user1_id = ? AND user2_id = ?)";
+
+    // Match dezaktywowany przez cofnięcie LIKE wraca, gdy para znów się polubi - zakończony przez unmatch lub wygaśnięcie nie
+    private static final String REACTIVATE_SQL =
+            "UPDATE matches SET is_active = TRUE, undone = FALSE WHERE user1_id = ? AND user2_id = ? AND undone = TRUE";
+
+    private static final String SELECT_ID_SQL =
+            "SELECT id, is_active FROM matches WHERE user1_id = ? AND user2_id = ?";
+
+    private static final String SELECT_ACTIVE_PAIRS_SQL =
+            "SELECT id, user1_id, user2_id FROM matches WHERE is_active = TRUE AND (user1_id, user2_id) IN ";
+
+    // Maksymalna liczba par w jednej klauzuli IN
+    private static final int PAIR_BATCH_SIZE = 500;
+
+    // Długość podglądu ostatniej wiadomości w skrzynce
+    private static final int PREVIEW_LENGTH = 100;
+
+    private static final String OTHER_USER_SQL = "CASE WHEN m.user1_id = ? THEN m.user2_id ELSE m.user1_id END";
+
+    // Ostatnia wiadomość to ta o największym id w matchu (indeks idx_messages_match_id)
+    private static final String INBOX_SQL =
+            "SELECT m.id, " + OTHER_USER_SQL + ", p.id, m.created_at, "
+                    + "lm.id, lm.sender_id, SUBSTRING(lm.content, 1, " + PREVIEW_LENGTH + "), lm.created_at, "
+                    + "(SELECT COUNT(*) FROM messages u "
+                    + "WHERE u.match_id = m.id AND u.sender_id <> ? AND u.is_read = FALSE) AS unread, "
+                    + "COALESCE(lm.created_at, m.created_at) AS last_activity "
+                    + "FROM matches m "
+                    + "LEFT JOIN profiles p ON p.user_id = " + OTHER_USER_SQL + " "
+                    + "LEFT JOIN messages lm ON lm.id = (SELECT MAX(x.id) FROM messages x WHERE x.match_id = m.id) "
+                    + "WHERE (m.user1_id = ? OR m.user2_id = ?) AND m.is_active = TRUE ";
+
+    private static final String INBOX_AFTER_CURSOR_SQL =
+            "AND (COALESCE(lm.created_at, m.created_at) < ? "
+                    + "OR (COALESCE(lm.created_at, m.created_at) = ? AND m.id < ?)) ";
+
+    private static final String INBOX_ORDER_SQL = "ORDER BY last_activity DESC, m.id DESC LIMIT ?";
+
+    // Id matcha tylko gdy po upsercie jest aktywny - zakończony przez unmatch lub wygaśnięcie nie jest matchem
+    private static final RowMapper<Optional<Long>> ACTIVE_ID_MAPPER = (rs, rowNum) ->
+            rs.getBoolean(2) ? Optional.of(rs.getLong(1)) : Optional.empty();
+
+    private static final RowMapper<InboxRow> INBOX_ROW_MAPPER = (rs, rowNum) -> new InboxRow(
+            rs.getLong(1),
+            rs.getLong(2),
+            nullableLong(rs, 3),
+            rs.getTimestamp(4).toLocalDateTime(),
+            nullableLong(rs, 5),
+            nullableLong(rs, 6),
+            rs.getString(7),
+            toLocalDateTime(rs.getTimestamp(8)),
+            rs.getLong(9),
+            rs.getTimestamp(10).toLocalDateTime()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean onConflictSupported;
+
+    public MatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<Long> upsertMatch(Long user1Id, Long user2Id) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (isOnConflictSupported()) {
+            return jdbcTemplate.queryForObject(UPSERT_RETURNING_SQL, ACTIVE_ID_MAPPER, user1Id, user2Id, now);
+        }
+
+        try {
+            jdbcTemplate.update(INSERT_IF_ABSENT_SQL, user1Id, user2Id, now, user1Id, user2Id);
+        } catch (DuplicateKeyException e) {
+            // Równoległy INSERT tej samej pary wygrał - odczytamy jego id
+        }
+        jdbcTemplate.update(REACTIVATE_SQL, user1Id, user2Id);
+
+        return jdbcTemplate.queryForObject(SELECT_ID_SQL, ACTIVE_ID_MAPPER, user1Id, user2Id);
+    }
+
+    @Override
+    public List<InboxRow> findInbox(Long userId, LocalDateTime beforeActivity, Long beforeMatchId, int limit) {
+        List<Object> args = new ArrayList<>(List.of(userId, userId, userId, userId, userId));
+        StringBuilder sql = new StringBuilder(INBOX_SQL);
+        if (beforeActivity != null) {
+            Timestamp before = Timestamp.valueOf(beforeActivity);
+            sql.append(INBOX_AFTER_CURSOR_SQL);
+            args.add(before);
+            args.add(before);
+            args.add(beforeMatchId);
+        }
+        sql.append(INBOX_ORDER_SQL);
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), INBOX_ROW_MAPPER, args.toArray());
+    }
+
+    @Override
+    public Map<MatchPair, Long> findActiveMatchIds(Collection<MatchPair> pairs) {
+        List<MatchPair> distinct = pairs.stream().distinct().toList();
+        Map<MatchPair, Long> matchIds = new HashMap<>();
+
+        for (int from = 0; from < distinct.size(); from += PAIR_BATCH_SIZE) {
+            List<MatchPair> chunk = distinct.subList(from, Math.min(distinct.size(), from + PAIR_BATCH_SIZE));
+            String sql = SELECT_ACTIVE_PAIRS_SQL + "(" + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?)")) + ")";
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                args[2 * i] = chunk.get(i).user1Id();
+                args[2 * i + 1] = chunk.get(i).user2Id();
+            }
+
+            jdbcTemplate.query(sql, rs -> {
+                matchIds.put(new MatchPair(rs.getLong(2), rs.getLong(3)), rs.getLong(1));
+            }, args);
+        }
+        return matchIds;
+    }
+
+    private static Long nullableLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private boolean isOnConflictSupported() {
+        if (onConflictSupported == null) {
+            onConflictSupported = JdbcDialect.supportsOnConflict(jdbcTemplate);
+        }
+        return onConflictSupported;
+    }
+}
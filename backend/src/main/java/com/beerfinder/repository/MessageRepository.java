@@ -2,7 +2,11 @@ package com.beerfinder.repository;
 
 import com.beerfinder.entity.Match;
 import com.beerfinder.entity.Message;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,8 +14,20 @@ import java.util.List;
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
-    // Znajdź wszystkie wiadomości dla danego matcha, posortowane chronologicznie
-    List<Message> findByMatchOrderByCreatedAtAsc(Match match);
+    // Strona historii (keyset po id, od najnowszych) - indeks idx_messages_match_id; nadawca i jego profil w tym samym zapytaniu
+    @Query("""
+           SELECT m FROM Message m
+           JOIN FETCH m.sender s
+           LEFT JOIN FETCH s.profile
+           WHERE m.match = :match AND m.id < :beforeId
+           ORDER BY m.id DESC
+           """)
+    List<Message> findPageBefore(@Param("match") Match match, @Param("beforeId") long beforeId, Limit limit);
+
+    // Oznacz jednym UPDATE wszystkie nieprzeczytane wiadomości od drugiej osoby w matchu
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Message m SET m.isRead = true WHERE m.match.id = :matchId AND m.sender.id <> :readerId AND m.isRead = false")
+    int markReadByRecipient(@Param("matchId") Long matchId, @Param("readerId") Long readerId);
 
     // Policz nieprzeczytane wiadomości dla użytkownika w danym matchu
     Long countByMatchAndSenderIdNotAndIsReadFalse(Match match, Long senderId);
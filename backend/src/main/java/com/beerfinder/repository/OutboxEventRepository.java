@@ -0,0 +1,17 @@
+package com.beerfinder.repository;
+
+import com.beerfinder.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long>, OutboxEventRepositoryCustom {
+
+    // Najstarsze niedostarczone zdarzenia - dostarczone są usuwane
+    @Query("SELECT e FROM OutboxEvent e ORDER BY e.id")
+    List<OutboxEvent> findOldest(Pageable pageable);
+}
@@ -0,0 +1,16 @@
+package com.beerfinder.repository;
+
+import com.beerfinder.entity.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Outbox writes implemented with plain JDBC (see {@link OutboxEventRepositoryImpl})
+ */
+public interface OutboxEventRepositoryCustom {
+
+    /**
+     * Append events in a single JDBC batch, in list order. Ids are not read back.
+     */
+    void appendAll(List<OutboxEvent> events);
+}
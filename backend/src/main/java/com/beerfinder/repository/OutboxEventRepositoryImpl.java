@@ -0,0 +1,32 @@
+package com.beerfinder.repository;
+
+import com.beerfinder.entity.OutboxEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public class OutboxEventRepositoryImpl implements OutboxEventRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_events (event_type, payload, created_at) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxEventRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void appendAll(List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+            ps.setString(1, event.getEventType().name());
+            ps.setString(2, event.getPayload());
+            ps.setTimestamp(3, Timestamp.valueOf(event.getCreatedAt()));
+        });
+    }
+}
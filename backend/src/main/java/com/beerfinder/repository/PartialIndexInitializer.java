@@ -0,0 +1,75 @@
+package com.beerfinder.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates partial indexes that JPA index definitions cannot express.
+ *
+ * Indexes on matches cover only active rows, so the active-match queries (match list, inbox,
+ * expiry) stay small while deactivated and expired matches pile up. Built CONCURRENTLY and only
+ * when missing, on PostgreSQL only - elsewhere (H2 in tests) the queries fall back to the
+ * regular indexes. An index left INVALID by an interrupted build is dropped and built again.
+ */
+@Component
+public class PartialIndexInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(PartialIndexInitializer.class);
+
+    private static final List<PartialIndex> INDEXES = List.of(
+            new PartialIndex("idx_matches_active_user1", "ON matches (user1_id, id) WHERE is_active"),
+            new PartialIndex("idx_matches_active_user2", "ON matches (user2_id, id) WHERE is_active"),
+            new PartialIndex("idx_matches_active_created", "ON matches (created_at, id) WHERE is_active")
+    );
+
+    // Brak wiersza - indeksu nie ma; false - przerwane CREATE INDEX CONCURRENTLY zostawiło nieważny indeks
+    private static final String VALIDITY_SQL = "SELECT indisvalid FROM pg_index WHERE indexrelid = to_regclass(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PartialIndexInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    record PartialIndex(String name, String definition) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        if (!JdbcDialect.supportsPartialIndexes(jdbcTemplate)) {
+            log.debug("Partial indexes not supported by the database, skipping");
+            return;
+        }
+
+        for (PartialIndex index : INDEXES) {
+            try {
+                createIndex(index);
+            } catch (DataAccessException e) {
+                // Aplikacja działa bez indeksu, tylko wolniej
+                log.warn("Could not create partial index {}: {}", index.name(), e.getMessage());
+            }
+        }
+    }
+
+    private void createIndex(PartialIndex index) {
+        List<Boolean> valid = jdbcTemplate.queryForList(VALIDITY_SQL, Boolean.class, index.name());
+        if (!valid.isEmpty()) {
+            if (Boolean.TRUE.equals(valid.get(0))) {
+                return;
+            }
+            // IF NOT EXISTS pominąłby nieważny indeks na zawsze - planista go nie używa, a zapisy go utrzymują
+            log.warn("Partial index {} is invalid, rebuilding", index.name());
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + index.name());
+        }
+
+        // CONCURRENTLY nie działa w transakcji - JdbcTemplate wykonuje poza nią (autocommit)
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + index.name() + " " + index.definition());
+    }
+}
@@ -1,11 +1,15 @@
 package com.beerfinder.repository;
 
+import com.beerfinder.dto.DiscoverCandidate;
+import com.beerfinder.dto.ProfileCard;
 import com.beerfinder.entity.Profile;
 import com.beerfinder.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,35 +17,240 @@ public interface ProfileRepository extends JpaRepository<Profile, Long> {
 
     Optional<Profile> findByUser(User user);
 
-    // Prosty discover: wszyscy inni użytkownicy, których dany user jeszcze nie swipował
+    // Zapytania stron discover nie wykluczają przesuniętych profili - robi to SwipedUsersCache w pamięci,
+    // zamiast skorelowanego NOT IN po tabeli swipes. Zwracają same id - karty ładuje findDiscoverCards.
+
+    // Strona discover (keyset po id) z filtrowaniem po wieku
     @Query("""
-           SELECT p
+           SELECT new com.beerfinder.dto.DiscoverCandidate(p.id, p.user.id)
            FROM Profile p
-           WHERE p.user <> :user
-             AND p.user.id NOT IN (
-                 SELECT s.swiped.id
+           WHERE p.id > :afterId
+             AND p.user <> :user
+             AND (:minAge IS NULL OR p.age >= :minAge)
+             AND (:maxAge IS NULL OR p.age <= :maxAge)
+           ORDER BY p.id
+           """)
+    List<DiscoverCandidate> findDiscoverCandidatesAfter(
+            @Param("user") User user,
+            @Param("minAge") Integer minAge,
+            @Param("maxAge") Integer maxAge,
+            @Param("afterId") long afterId,
+            Limit limit
+    );
+
+    // Wersje z wykluczeniem przesuniętych w bazie (NOT EXISTS) - gdy odsiewanie w pamięci odrzuca
+    // kolejne pełne porcje, bo przesunięcia pokrywają początek zakresu id
+
+    @Query("""
+           SELECT new com.beerfinder.dto.DiscoverCandidate(p.id, p.user.id)
+           FROM Profile p
+           WHERE p.id > :afterId
+             AND p.user <> :user
+             AND (:minAge IS NULL OR p.age >= :minAge)
+             AND (:maxAge IS NULL OR p.age <= :maxAge)
+             AND NOT EXISTS (
+                 SELECT 1
                  FROM Swipe s
                  WHERE s.swiper = :user
-           )
+                   AND s.swiped = p.user
+             )
+           ORDER BY p.id
            """)
-    List<Profile> findDiscoverProfiles(@Param("user") User user);
+    List<DiscoverCandidate> findUnswipedCandidatesAfter(
+            @Param("user") User user,
+            @Param("minAge") Integer minAge,
+            @Param("maxAge") Integer maxAge,
+            @Param("afterId") long afterId,
+            Limit limit
+    );
 
-    // Discover z filtrowaniem po wieku
     @Query("""
-           SELECT p
+           SELECT new com.beerfinder.dto.DiscoverCandidate(p.id, p.user.id)
            FROM Profile p
-           WHERE p.user <> :user
-             AND p.user.id NOT IN (
-                 SELECT s.swiped.id
+           WHERE p.id > :afterId
+             AND p.user <> :user
+             AND (:minAge IS NULL OR p.age >= :minAge)
+             AND (:maxAge IS NULL OR p.age <= :maxAge)
+             AND p.latitude BETWEEN :minLat AND :maxLat
+             AND p.longitude BETWEEN :minLon AND :maxLon
+             AND 2 * 6371 * asin(sqrt(
+                     power(sin(radians(p.latitude - :lat) / 2), 2)
+                     + cos(radians(:lat)) * cos(radians(p.latitude))
+                       * power(sin(radians(p.longitude - :lon) / 2), 2)
+                 )) <= :radiusKm
+             AND NOT EXISTS (
+                 SELECT 1
                  FROM Swipe s
                  WHERE s.swiper = :user
+                   AND s.swiped = p.user
+             )
+           ORDER BY p.id
+           """)
+    List<DiscoverCandidate> findUnswipedCandidatesWithinRadius(
+            @Param("user") User user,
+            @Param("minAge") Integer minAge,
+            @Param("maxAge") Integer maxAge,
+            @Param("lat") double lat,
+            @Param("lon") double lon,
+            @Param("radiusKm") double radiusKm,
+            @Param("minLat") double minLat,
+            @Param("maxLat") double maxLat,
+            @Param("minLon") double minLon,
+            @Param("maxLon") double maxLon,
+            @Param("afterId") long afterId,
+            Limit limit
+    );
+
+    // Strona discover zawężona do podanych profili (np. z indeksu lokalizacji)
+    @Query("""
+           SELECT new com.beerfinder.dto.DiscoverCandidate(p.id, p.user.id)
+           FROM Profile p
+           WHERE p.id IN :ids
+             AND p.id > :afterId
+             AND p.user <> :user
+             AND (:minAge IS NULL OR p.age >= :minAge)
+             AND (:maxAge IS NULL OR p.age <= :maxAge)
+           ORDER BY p.id
+           """)
+    List<DiscoverCandidate> findDiscoverCandidatesByIds(
+            @Param("user") User user,
+            @Param("ids") Collection<Long> ids,
+            @Param("minAge") Integer minAge,
+            @Param("maxAge") Integer maxAge,
+            @Param("afterId") long afterId,
+            Limit limit
+    );
+
+    // Discover z filtrowaniem po wieku i odległości liczonej w bazie.
+    // Prostokąt lat/lon (obsługiwany przez indeks) odsiewa większość wierszy przed dokładnym Haversine.
+    @Query("""
+           SELECT new com.beerfinder.dto.DiscoverCandidate(p.id, p.user.id)
+           FROM Profile p
+           WHERE p.id > :afterId
+             AND p.user <> :user
+             AND (:minAge IS NULL OR p.age >= :minAge)
+             AND (:maxAge IS NULL OR p.age <= :maxAge)
+             AND p.latitude BETWEEN :minLat AND :maxLat
+             AND p.longitude BETWEEN :minLon AND :maxLon
+             AND 2 * 6371 * asin(sqrt(
+                     power(sin(radians(p.latitude - :lat) / 2), 2)
+                     + cos(radians(:lat)) * cos(radians(p.latitude))
+                       * power(sin(radians(p.longitude - :lon) / 2), 2)
+                 )) <= :radiusKm
+           ORDER BY p.id
+           """)
+    List<DiscoverCandidate> findDiscoverCandidatesWithinRadius(
+            @Param("user") User user,
+            @Param("minAge") Integer minAge,
+            @Param("maxAge") Integer maxAge,
+            @Param("lat") double lat,
+            @Param("lon") double lon,
+            @Param("radiusKm") double radiusKm,
+            @Param("minLat") double minLat,
+            @Param("maxLat") double maxLat,
+            @Param("minLon") double minLon,
+            @Param("maxLon") double maxLon,
+            @Param("afterId") long afterId,
+            Limit limit
+    );
+
+    // Karty discover bez encji (user i interests są leniwe - mapowanie encji dawało N+1)
+    @Query("""
+           SELECT new com.beerfinder.dto.ProfileCard(
+               p.id, p.user.id, p.name, p.age, p.bio, p.occupation, p.latitude, p.longitude, p.profilePhoto
+           )
+           FROM Profile p
+           WHERE p.id IN :ids
+           """)
+    List<ProfileCard> findDiscoverCards(@Param("ids") Collection<Long> ids);
+
+    // Karta profilu użytkownika - do przywrócenia cofniętego swipe'a w talii i cache kandydatów
+    @Query("""
+           SELECT new com.beerfinder.dto.ProfileCard(
+               p.id, p.user.id, p.name, p.age, p.bio, p.occupation, p.latitude, p.longitude, p.profilePhoto
            )
+           FROM Profile p
+           WHERE p.user.id = :userId
+           """)
+    Optional<ProfileCard> findCardByUserId(@Param("userId") Long userId);
+
+    // Zainteresowania całej strony jednym zapytaniem
+    @Query("""
+           SELECT p.id, i
+           FROM Profile p
+           JOIN p.interests i
+           WHERE p.id IN :ids
+           """)
+    List<Object[]> findInterestsByProfileIds(@Param("ids") Collection<Long> ids);
+
+    // Współrzędne kandydatów z prostokąta - do sortowania po odległości bez indeksu lokalizacji
+    @Query("""
+           SELECT p.id, p.user.id, p.latitude, p.longitude
+           FROM Profile p
+           WHERE p.user <> :user
              AND (:minAge IS NULL OR p.age >= :minAge)
              AND (:maxAge IS NULL OR p.age <= :maxAge)
+             AND p.latitude BETWEEN :minLat AND :maxLat
+             AND p.longitude BETWEEN :minLon AND :maxLon
            """)
-    List<Profile> findDiscoverProfilesWithFilters(
+    List<Object[]> findDiscoverCandidateLocations(
             @Param("user") User user,
             @Param("minAge") Integer minAge,
-            @Param("maxAge") Integer maxAge
+            @Param("maxAge") Integer maxAge,
+            @Param("minLat") double minLat,
+            @Param("maxLat") double maxLat,
+            @Param("minLon") double minLon,
+            @Param("maxLon") double maxLon
     );
-}
\ No newline at end of file
+
+    // Kandydaci do talii discover: same id profilu i użytkownika, keyset po id profilu
+    @Query("""
+           SELECT p.id, p.user.id
+           FROM Profile p
+           WHERE p.id > :afterId
+             AND p.user.id <> :userId
+           ORDER BY p.id
+           """)
+    List<Object[]> findDiscoverCandidateIdsAfter(
+            @Param("userId") Long userId,
+            @Param("afterId") long afterId,
+            Limit limit
+    );
+
+    // Jak wyżej, z wykluczeniem przesuniętych w bazie - gdy odsiewanie w pamięci nie nadąża
+    @Query("""
+           SELECT p.id, p.user.id
+           FROM Profile p
+           WHERE p.id > :afterId
+             AND p.user.id <> :userId
+             AND NOT EXISTS (
+                 SELECT 1
+                 FROM Swipe s
+                 WHERE s.swiper.id = :userId
+                   AND s.swiped.id = p.user.id
+             )
+           ORDER BY p.id
+           """)
+    List<Object[]> findUnswipedCandidateIdsAfter(
+            @Param("userId") Long userId,
+            @Param("afterId") long afterId,
+            Limit limit
+    );
+
+    // Zainteresowania i wiek wszystkich profili (profil bez zainteresowań daje jeden wiersz z null) - do słownika
+    @Query("""
+           SELECT p.id, p.user.id, i, p.age
+           FROM Profile p
+           LEFT JOIN p.interests i
+           """)
+    List<Object[]> findAllInterests();
+
+    // Same współrzędne i wiek (bez encji) do rozgrzania indeksu lokalizacji
+    @Query("""
+           SELECT p.id, p.user.id, p.latitude, p.longitude, p.age
+           FROM Profile p
+           WHERE p.latitude IS NOT NULL
+             AND p.longitude IS NOT NULL
+           """)
+    List<Object[]> findAllLocations();
+}
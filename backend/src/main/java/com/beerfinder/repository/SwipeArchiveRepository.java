@@ -0,0 +1,21 @@
+package com.beerfinder.repository;
+
+import com.beerfinder.entity.SwipeArchive;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SwipeArchiveRepository extends JpaRepository<SwipeArchive, Long> {
+
+    // Blokada wierszy archiwum na czas scalania - równoległe archiwizacje nie nadpiszą sobie bitmap
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM SwipeArchive a WHERE a.swiperId IN :swiperIds")
+    List<SwipeArchive> findForUpdate(@Param("swiperIds") Collection<Long> swiperIds);
+}
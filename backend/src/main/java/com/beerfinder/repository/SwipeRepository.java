@@ -1,17 +1,64 @@
 package com.beerfinder.repository;
 
 import com.beerfinder.entity.Swipe;
-import com.beerfinder.entity.SwipeAction;
 import com.beerfinder.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
-public interface SwipeRepository extends JpaRepository<Swipe, Long> {
+public interface SwipeRepository extends JpaRepository<Swipe, Long>, SwipeRepositoryCustom {
 
     Boolean existsBySwiperAndSwiped(User swiper, User swiped);
 
-    Optional<Swipe> findBySwiperAndSwipedAndAction(User swiper, User swiped, SwipeAction action);
-}
\ No newline at end of file
+    // Same id przesuniętych użytkowników - do budowy zbioru w pamięci
+    @Query("SELECT s.swiped.id FROM Swipe s WHERE s.swiper.id = :swiperId")
+    List<Long> findSwipedUserIdsBySwiperId(@Param("swiperId") Long swiperId);
+
+    // Które z podanych osób użytkownik już przesunął - jedno zapytanie dla całego batcha
+    @Query("SELECT s.swiped.id FROM Swipe s WHERE s.swiper.id = :swiperId AND s.swiped.id IN :swipedIds")
+    List<Long> findSwipedUserIdsIn(@Param("swiperId") Long swiperId, @Param("swipedIds") Collection<Long> swipedIds);
+
+    // Kto z podanych osób polubił użytkownika - wykrywanie matchy dla całego batcha
+    @Query("""
+           SELECT s.swiper.id
+           FROM Swipe s
+           WHERE s.swiped.id = :userId
+             AND s.action = com.beerfinder.entity.SwipeAction.LIKE
+             AND s.swiper.id IN :swiperIds
+           """)
+    List<Long> findLikersAmong(@Param("userId") Long userId, @Param("swiperIds") Collection<Long> swiperIds);
+
+    // Polubienia bez odpowiedzi (brak swipe'a w drugą stronę) - do rozgrzania LikeGraph
+    @Query("""
+           SELECT s.swiper.id, s.swiped.id
+           FROM Swipe s
+           WHERE s.action = com.beerfinder.entity.SwipeAction.LIKE
+             AND NOT EXISTS (
+                 SELECT 1 FROM Swipe r WHERE r.swiper = s.swiped AND r.swiped = s.swiper
+             )
+           """)
+    List<Object[]> findPendingLikes();
+
+    // Kandydaci do archiwizacji: najstarsze PASS-y sprzed podanej daty (id, swiper, swiped)
+    @Query("""
+           SELECT s.id, s.swiper.id, s.swiped.id
+           FROM Swipe s
+           WHERE s.action = com.beerfinder.entity.SwipeAction.PASS
+             AND s.createdAt < :before
+           ORDER BY s.id
+           """)
+    List<Object[]> findArchivablePasses(@Param("before") LocalDateTime before, Limit limit);
+
+    // Cofnięcie swipe'a - para jest unikalna, więc usuwa co najwyżej jeden wiersz
+    @Modifying
+    @Query("DELETE FROM Swipe s WHERE s.swiper.id = :swiperId AND s.swiped.id = :swipedUserId")
+    int deletePair(@Param("swiperId") Long swiperId, @Param("swipedUserId") Long swipedUserId);
+}
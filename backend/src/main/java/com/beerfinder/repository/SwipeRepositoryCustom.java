@@ -0,0 +1,39 @@
+package com.beerfinder.repository;
+
+import com.beerfinder.entity.Swipe;
+import com.beerfinder.entity.SwipeAction;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Swipe operations implemented with plain JDBC (see {@link SwipeRepositoryImpl})
+ */
+public interface SwipeRepositoryCustom {
+
+    /**
+     * Insert swipes in a single JDBC batch. Ids and creation timestamps are set on the given objects.
+     *
+     * Hibernate cannot batch inserts of IDENTITY entities, so the batch is sent with JdbcTemplate.
+     * Only the ids of swiper and swiped are read - user references do not need to be initialized.
+     */
+    void batchInsert(List<Swipe> swipes);
+
+    /**
+     * Insert swipes like {@link #batchInsert}, skipping pairs that already exist instead of failing
+     * the whole batch. Skipped swipes keep a null id.
+     *
+     * @return Swipes that were inserted, in input order
+     */
+    List<Swipe> batchInsertIfAbsent(List<Swipe> swipes);
+
+    /**
+     * Insert a single swipe unless the pair already exists, relying on the (swiper_id, swiped_id)
+     * unique constraint instead of a separate existence check.
+     *
+     * A missing swiped user surfaces as a foreign key violation (DataIntegrityViolationException).
+     *
+     * @return Id of the inserted swipe, or empty when the swiper already swiped this user
+     */
+    Optional<Long> insertIfAbsent(Long swiperId, Long swipedUserId, SwipeAction action);
+}
@@ -0,0 +1,181 @@
+package com.beerfinder.repository;
+
+import com.beerfinder.entity.Swipe;
+import com.beerfinder.entity.SwipeAction;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class SwipeRepositoryImpl implements SwipeRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO swipes (swiper_id, swiped_id, action, created_at) VALUES (?, ?, ?, ?)";
+
+    // PostgreSQL - konflikt na unikalnej parze po prostu nie wstawia wiersza
+    private static final String INSERT_IGNORE_CONFLICT_SQL = INSERT_SQL + " ON CONFLICT DO NOTHING";
+
+    // Inne bazy (H2 w testach) - warunek w samym INSERT, wyścig łapie unikalny indeks
+    private static final String INSERT_IF_ABSENT_SQL =
+            "INSERT INTO swipes (swiper_id, swiped_id, action, created_at) "
+                    + "SELECT ?, ?, ?, ? WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM swipes WHERE swiper_id = ? AND swiped_id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean onConflictSupported;
+
+    public SwipeRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<Long> insertIfAbsent(Long swiperId, Long swipedUserId, SwipeAction action) {
+        boolean onConflict = isOnConflictSupported();
+        String sql = onConflict ? INSERT_IGNORE_CONFLICT_SQL : INSERT_IF_ABSENT_SQL;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int inserted;
+        try {
+            inserted = jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql, new String[]{"id"});
+                ps.setLong(1, swiperId);
+                ps.setLong(2, swipedUserId);
+                ps.setString(3, action.name());
+                ps.setTimestamp(4, now);
+                if (!onConflict) {
+                    ps.setLong(5, swiperId);
+                    ps.setLong(6, swipedUserId);
+                }
+                return ps;
+            }, keyHolder);
+        } catch (DuplicateKeyException e) {
+            return Optional.empty();
+        }
+
+        if (inserted == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(((Number) keyHolder.getKeyList().get(0).values().iterator().next()).longValue());
+    }
+
+    @Override
+    public void batchInsert(List<Swipe> swipes) {
+        if (swipes.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Swipe swipe = swipes.get(i);
+                        ps.setLong(1, swipe.getSwiper().getId());
+                        ps.setLong(2, swipe.getSwiped().getId());
+                        ps.setString(3, swipe.getAction().name());
+                        ps.setTimestamp(4, Timestamp.valueOf(now));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return swipes.size();
+                    }
+                },
+                keyHolder
+        );
+
+        // Klucze wracają w kolejności wierszy batcha
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < swipes.size(); i++) {
+            Swipe swipe = swipes.get(i);
+            swipe.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            swipe.setCreatedAt(now);
+        }
+    }
+
+    @Override
+    public List<Swipe> batchInsertIfAbsent(List<Swipe> swipes) {
+        if (swipes.isEmpty()) {
+            return List.of();
+        }
+
+        List<Swipe> inserted = new ArrayList<>(swipes.size());
+        if (!isOnConflictSupported()) {
+            // Bez ON CONFLICT nieudany wiersz przerwałby batch - wstawiamy pojedynczo
+            for (Swipe swipe : swipes) {
+                insertIfAbsent(swipe.getSwiper().getId(), swipe.getSwiped().getId(), swipe.getAction())
+                        .ifPresent(id -> {
+                            swipe.setId(id);
+                            swipe.setCreatedAt(LocalDateTime.now());
+                            inserted.add(swipe);
+                        });
+            }
+            return inserted;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_IGNORE_CONFLICT_SQL,
+                        new String[]{"id", "swiper_id", "swiped_id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Swipe swipe = swipes.get(i);
+                        ps.setLong(1, swipe.getSwiper().getId());
+                        ps.setLong(2, swipe.getSwiped().getId());
+                        ps.setString(3, swipe.getAction().name());
+                        ps.setTimestamp(4, Timestamp.valueOf(now));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return swipes.size();
+                    }
+                },
+                keyHolder
+        );
+
+        // Pominięty wiersz nie zwraca klucza, a liczniki nie muszą tego pokazać (SUCCESS_NO_INFO,
+        // reWriteBatchedInserts) - klucze przypisujemy po parze, nie po pozycji
+        Map<Pair, Long> idsByPair = new HashMap<>();
+        for (Map<String, Object> key : keyHolder.getKeyList()) {
+            Pair pair = new Pair(((Number) key.get("swiper_id")).longValue(), ((Number) key.get("swiped_id")).longValue());
+            idsByPair.put(pair, ((Number) key.get("id")).longValue());
+        }
+        for (Swipe swipe : swipes) {
+            // remove - powtórzona para w batchu dostaje klucz tylko raz
+            Long id = idsByPair.remove(new Pair(swipe.getSwiper().getId(), swipe.getSwiped().getId()));
+            if (id != null) {
+                swipe.setId(id);
+                swipe.setCreatedAt(now);
+                inserted.add(swipe);
+            }
+        }
+        return inserted;
+    }
+
+    private record Pair(long swiperId, long swipedId) {
+    }
+
+    private boolean isOnConflictSupported() {
+        if (onConflictSupported == null) {
+            onConflictSupported = JdbcDialect.supportsOnConflict(jdbcTemplate);
+        }
+        return onConflictSupported;
+    }
+}
@@ -0,0 +1,25 @@
+package com.beerfinder.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Security principal that also carries the user id, so services can act on the
+ * authenticated user without loading the entity again
+ */
+public class AuthenticatedUser extends User {
+
+    private final Long id;
+
+    public AuthenticatedUser(Long id, String email, String passwordHash,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(email, passwordHash, authorities);
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
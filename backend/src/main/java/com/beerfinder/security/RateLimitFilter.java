@@ -0,0 +1,170 @@
+package com.beerfinder.security;
+
+import com.beerfinder.dto.ErrorResponse;
+import com.beerfinder.util.TokenBucketRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user rate limit for /api/swipes and /api/messages.
+ *
+ * Runs before {@link JwtAuthenticationFilter} and keys the buckets by the userId claim of the
+ * token, so a rejected request never loads the user or touches the connection pool. Requests
+ * without a valid token are passed on and rejected by Spring Security as before.
+ *
+ * A batch of swipes passes the filter as one request; the controller charges the remaining
+ * swipes through {@link #chargeBatchSwipes}, so a batch costs one token per swipe.
+ *
+ * Rejections answer 429 with Retry-After and are counted in {@value #REJECTED_METRIC}
+ * (tag {@code endpoint}).
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter implements MeterBinder {
+
+    public static final String REJECTED_METRIC = "rate.limit.rejected";
+
+    private static final String SWIPES_PATH = "/api/swipes";
+    private static final String MESSAGES_PATH = "/api/messages";
+
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Policy swipes;
+    private final Policy messages;
+
+    public RateLimitFilter(JwtUtil jwtUtil,
+                           ObjectMapper objectMapper,
+                           @Value("${rate-limit.enabled:true}") boolean enabled,
+                           @Value("${rate-limit.swipes.per-second:10}") double swipesPerSecond,
+                           @Value("${rate-limit.swipes.burst:30}") int swipesBurst,
+                           @Value("${rate-limit.messages.per-second:5}") double messagesPerSecond,
+                           @Value("${rate-limit.messages.burst:20}") int messagesBurst,
+                           @Value("${rate-limit.max-users:100000}") long maxUsers,
+                           @Value("${rate-limit.idle-timeout:10m}") Duration idleTimeout) {
+        this.jwtUtil = jwtUtil;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.swipes = new Policy("swipes",
+                new TokenBucketRateLimiter(swipesPerSecond, swipesBurst, maxUsers, idleTimeout), new LongAdder());
+        this.messages = new Policy("messages",
+                new TokenBucketRateLimiter(messagesPerSecond, messagesBurst, maxUsers, idleTimeout), new LongAdder());
+    }
+
+    /**
+     * Limiter of one endpoint group with its rejection count
+     */
+    private record Policy(String name, TokenBucketRateLimiter limiter, LongAdder rejected) {
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Policy policy : new Policy[]{swipes, messages}) {
+            FunctionCounter.builder(REJECTED_METRIC, policy.rejected(), LongAdder::sum)
+                    .description("Requests rejected by the per-user rate limit")
+                    .tag("endpoint", policy.name())
+                    .register(registry);
+            Gauge.builder("rate.limit.tracked.users", policy.limiter(), TokenBucketRateLimiter::trackedKeys)
+                    .description("Users with a live rate limit bucket")
+                    .tag("endpoint", policy.name())
+                    .register(registry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || policyFor(request.getRequestURI()) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Policy policy = policyFor(request.getRequestURI());
+        Long userId = extractUserId(request);
+
+        if (policy != null && userId != null) {
+            long waitNanos = policy.limiter().tryAcquire(userId);
+            if (waitNanos > 0) {
+                policy.rejected().increment();
+                reject(request, response, waitNanos);
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Charge the swipes of an admitted batch beyond the token its request took in the filter.
+     * The batch is not rejected here - the bucket goes into debt and the user's next swipes wait
+     * until it is repaid, which keeps the average at the configured rate.
+     *
+     * @param userId     Swiping user (ignored when null, as in the filter)
+     * @param swipeCount Number of swipes in the batch
+     */
+    public void chargeBatchSwipes(Long userId, int swipeCount) {
+        if (enabled && userId != null && swipeCount > 1) {
+            swipes.limiter().consume(userId, swipeCount - 1);
+        }
+    }
+
+    private Policy policyFor(String uri) {
+        if (uri.startsWith(SWIPES_PATH)) {
+            return swipes;
+        }
+        if (uri.startsWith(MESSAGES_PATH)) {
+            return messages;
+        }
+        return null;
+    }
+
+    // userId z podpisanego tokenu - bez zapytania do bazy
+    private Long extractUserId(HttpServletRequest request) {
+        String bearerToken = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (!StringUtils.hasText(bearerToken) || !bearerToken.startsWith("Bearer ")) {
+            return null;
+        }
+
+        try {
+            return jwtUtil.extractUserId(bearerToken.substring(7));
+        } catch (Exception e) {
+            // Nieprawidłowy token - odrzuci go Spring Security
+            return null;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too Many Requests",
+                "Rate limit exceeded, retry in " + retryAfterSeconds + "s",
+                request.getRequestURI()
+        );
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
@@ -9,6 +9,7 @@ import com.beerfinder.exception.BadRequestException;
 import com.beerfinder.exception.ResourceNotFoundException;
 import com.beerfinder.repository.UserRepository;
 import com.beerfinder.security.JwtUtil;
+import com.beerfinder.util.TransactionHooks;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -23,15 +24,18 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final InterestDictionary interestDictionary;
 
     public AuthService(UserRepository userRepository,
                        PasswordEncoder passwordEncoder,
                        JwtUtil jwtUtil,
-                       AuthenticationManager authenticationManager) {
+                       AuthenticationManager authenticationManager,
+                       InterestDictionary interestDictionary) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
         this.authenticationManager = authenticationManager;
+        this.interestDictionary = interestDictionary;
     }
 
     @Transactional
@@ -51,6 +55,14 @@ public class AuthService {
         // Zapisz
         User savedUser = userRepository.save(user);
 
+        // Nowy profil od razu w słowniku zainteresowań - sortowanie po zainteresowaniach widzi go
+        // bez czekania na pierwszą edycję profilu
+        Profile savedProfile = savedUser.getProfile();
+        if (savedProfile != null) {
+            TransactionHooks.afterCommit(() -> interestDictionary.update(
+                    savedProfile.getId(), savedUser.getId(), savedProfile.getAge(), savedProfile.getInterests()));
+        }
+
         // Wygeneruj token
         String token = jwtUtil.generateToken(savedUser.getEmail(), savedUser.getId());
 
@@ -0,0 +1,448 @@
+package com.beerfinder.service;
+
+import com.beerfinder.dto.DiscoverCandidate;
+import com.beerfinder.util.GeoUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache of filtered discover candidates.
+ *
+ * Holds the first {@code capacity} candidate ids (ordered by profile id, as in the keyset queries)
+ * for each user and filter tuple, so reopening the dashboard with the same filters does not rerun
+ * the filtered discover query. Entries are kept current incrementally:
+ * <ul>
+ *     <li>a swipe removes the swiped user from the swiper's entries and an undone swipe puts
+ *     them back into the entries whose filters they match,</li>
+ *     <li>a change of a profile's age or coordinates removes it from the entries whose filters
+ *     it no longer matches and adds it to the entries whose filters it now matches; the updated
+ *     user's own entries are reloaded when they moved. Reverse indexes by profile and by coarse
+ *     {@value #REGION_SIZE_DEG}° region limit this to the entries the profile may enter or leave.</li>
+ * </ul>
+ * Size is bounded by the total number of cached ids. Hit rate, evictions and size are
+ * published to Micrometer as the {@value #CACHE_NAME} cache (see /actuator/metrics/cache.gets).
+ */
+@Component
+public class DiscoverCandidateCache {
+
+    public static final String CACHE_NAME = "discoverCandidates";
+
+    // Zgrubna siatka regionów (w stopniach) - zmiana profilu sprawdza tylko wpisy z jego komórki
+    static final double REGION_SIZE_DEG = 1.0;
+    // Wpis z większym zasięgiem trafia do regionu ANYWHERE zamiast do każdej komórki
+    private static final int MAX_REGIONS_PER_ENTRY = 64;
+    private static final int ANYWHERE = -1;
+    private static final int LAT_REGIONS = (int) Math.ceil(180 / REGION_SIZE_DEG);
+    private static final int LON_REGIONS = (int) Math.ceil(360 / REGION_SIZE_DEG);
+
+    private final int capacity;
+    private final Cache<Key, Candidates> cache;
+    // Klucze danego użytkownika - żeby swipe nie przeglądał całego cache
+    private final Map<Long, Set<Key>> keysByUser = new ConcurrentHashMap<>();
+    // Odwrotne indeksy dla zmiany profilu: wpisy zawierające profil i wpisy, do których profil z danej
+    // komórki może dołączyć. Aktualizowane przez compute na kluczu indeksu, z odczytem żywego wpisu -
+    // usunięcie starej wartości nie zdejmie z indeksu wpisu przeładowanego w międzyczasie
+    private final Map<Long, Set<Key>> keysByProfile = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Key>> keysByRegion = new ConcurrentHashMap<>();
+
+    public DiscoverCandidateCache(MeterRegistry meterRegistry,
+                                  @Value("${discover.candidate-cache.capacity:200}") int capacity,
+                                  @Value("${discover.candidate-cache.max-ids:1000000}") long maxIds,
+                                  @Value("${discover.candidate-cache.ttl:10m}") Duration ttl) {
+        this.capacity = capacity;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxIds)
+                .weigher((Key key, Candidates candidates) -> candidates.profileIds().length + 1)
+                .expireAfterWrite(ttl)
+                // Listener synchronicznie - asynchroniczny mógł po przeładowaniu klucza usunąć już żywy wpis z keysByUser
+                .executor(Runnable::run)
+                .removalListener((Key key, Candidates candidates, RemovalCause cause) -> {
+                    // REPLACED to tylko podmiana wartości - klucz dalej istnieje
+                    if (key != null && cause != RemovalCause.REPLACED) {
+                        keysByUser.computeIfPresent(key.userId(), (id, keys) -> {
+                            keys.remove(key);
+                            return keys.isEmpty() ? null : keys;
+                        });
+                        if (candidates != null) {
+                            unindex(key, candidates);
+                        }
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Discover filters that define a cache entry. maxDistance is only set when it is actually applied
+     * (the viewer has a location).
+     */
+    public record Filters(Integer minAge, Integer maxAge, Integer maxDistance) {
+    }
+
+    /**
+     * Profile fields the discover filters look at
+     */
+    public record FilterFields(Integer age, Double latitude, Double longitude) {
+    }
+
+    private record Key(Long userId, Filters filters) {
+    }
+
+    /**
+     * Cached candidates of one user and filter tuple
+     *
+     * @param profileIds Candidate profile ids, ascending
+     * @param userIds    User ids of the candidates (same order)
+     * @param complete   Whether the list holds every candidate (fewer than capacity matched)
+     * @param originLat  Viewer latitude when the entry was built (for region invalidation)
+     * @param originLon  Viewer longitude when the entry was built
+     */
+    private record Candidates(long[] profileIds, long[] userIds, boolean complete, Double originLat, Double originLon) {
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Read a page of candidate ids, loading the entry on a miss
+     *
+     * @param userId    Viewer
+     * @param filters   Applied filters
+     * @param originLat Viewer latitude (may be null)
+     * @param originLon Viewer longitude (may be null)
+     * @param afterId   Profile id after which to start (keyset cursor)
+     * @param count     Number of ids requested
+     * @param swiped    Users swiped since their swipe event was applied to the entry - skipped
+     * @param loader    Loads the first {@link #capacity()} candidates ordered by profile id
+     * @return Profile ids of the page, or empty when the page lies beyond the cached range
+     */
+    public Optional<List<Long>> page(Long userId, Filters filters, Double originLat, Double originLon,
+                                     long afterId, int count, LongPredicate swiped,
+                                     Supplier<List<DiscoverCandidate>> loader) {
+        Key key = new Key(userId, filters);
+        boolean[] loaded = new boolean[1];
+        Candidates candidates = cache.get(key, k -> {
+            keysByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(k);
+            loaded[0] = true;
+            return toCandidates(loader.get(), originLat, originLon);
+        });
+        // Indeksujemy dopiero widoczny wpis - sprawdzenie żywej wartości w index/unindex jest wtedy wiarygodne
+        if (loaded[0]) {
+            index(key, candidates);
+        }
+
+        long[] ids = candidates.profileIds();
+        long[] userIds = candidates.userIds();
+        int from = Arrays.binarySearch(ids, afterId);
+        from = from >= 0 ? from + 1 : -from - 1;
+
+        // Przesuniętych pomijamy także tutaj - onSwipe przychodzi dopiero ze zdarzeniem z outboxa
+        List<Long> page = new ArrayList<>(count);
+        for (int i = from; i < ids.length && page.size() < count; i++) {
+            if (!swiped.test(userIds[i])) {
+                page.add(ids[i]);
+            }
+        }
+
+        if (page.size() < count && !candidates.complete()) {
+            return Optional.empty();
+        }
+        return Optional.of(page);
+    }
+
+    /**
+     * Remove a swiped user from every entry of the swiper
+     */
+    public void onSwipe(Long swiperId, Long swipedUserId) {
+        Set<Key> keys = keysByUser.get(swiperId);
+        if (keys == null) {
+            return;
+        }
+
+        for (Key key : keys) {
+            Candidates before = cache.asMap().get(key);
+            cache.asMap().computeIfPresent(key, (k, candidates) -> without(candidates, swipedUserId));
+            Long profileId = before != null ? profileOf(before, swipedUserId) : null;
+            if (profileId != null) {
+                unindexProfile(profileId, key);
+            }
+        }
+    }
+
+    /**
+     * Put a user whose swipe was undone back into the swiper's entries they match
+     */
+    public void onUndo(Long swiperId, Long swipedUserId, Long profileId, Integer age, Double latitude, Double longitude) {
+        Set<Key> keys = keysByUser.get(swiperId);
+        if (keys == null) {
+            return;
+        }
+
+        for (Key key : keys) {
+            cache.asMap().computeIfPresent(key, (k, candidates) ->
+                    matches(k.filters(), candidates, new FilterFields(age, latitude, longitude))
+                            ? with(candidates, profileId, swipedUserId)
+                            : candidates);
+            indexProfile(profileId, key);
+        }
+    }
+
+    /**
+     * Apply a profile change to the entries it may enter or leave. Nothing happens when the fields
+     * the filters look at (age, coordinates) did not change. Otherwise the profile is removed in place
+     * from entries containing it whose filters it no longer matches and added to entries of its region
+     * whose filters it now matches; only the updated user's own entries are invalidated, and only when
+     * their origin moved. Only entries reached through the reverse indexes are visited.
+     *
+     * @param previous Filtered fields before the change
+     * @param current  Filtered fields after the change
+     */
+    public void onProfileChanged(Long userId, Long profileId, FilterFields previous, FilterFields current) {
+        if (current.equals(previous)) {
+            return;
+        }
+
+        // Wpisy samego użytkownika liczone są od jego położenia - po przeprowadzce trzeba je przeładować
+        if (!Objects.equals(previous.latitude(), current.latitude())
+                || !Objects.equals(previous.longitude(), current.longitude())) {
+            evictUser(userId);
+        }
+
+        // Wpisy zawierające profil - zostaje w nich tylko, jeśli nadal spełnia filtry
+        for (Key key : keysByProfile.getOrDefault(profileId, Set.of())) {
+            cache.asMap().computeIfPresent(key, (k, candidates) ->
+                    matches(k.filters(), candidates, current) ? candidates : without(candidates, userId));
+            unindexProfile(profileId, key);
+        }
+
+        // Wpisy, do których profil mógł dołączyć - tylko z regionu profilu i bez filtra odległości
+        List<Integer> regions = current.latitude() != null && current.longitude() != null
+                ? List.of(ANYWHERE, regionOf(current.latitude(), current.longitude()))
+                : List.of(ANYWHERE);
+        for (Integer region : regions) {
+            for (Key key : keysByRegion.getOrDefault(region, Set.of())) {
+                if (key.userId().equals(userId)) {
+                    continue;
+                }
+                cache.asMap().computeIfPresent(key, (k, candidates) ->
+                        matches(k.filters(), candidates, current) ? with(candidates, profileId, userId) : candidates);
+                indexProfile(profileId, key);
+            }
+        }
+    }
+
+    public void evictUser(Long userId) {
+        Set<Key> keys = keysByUser.get(userId);
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+    }
+
+    private void index(Key key, Candidates candidates) {
+        for (long profileId : candidates.profileIds()) {
+            indexProfile(profileId, key);
+        }
+        for (int region : regionsOf(key, candidates)) {
+            keysByRegion.compute(region, (id, keys) -> {
+                Candidates live = cache.asMap().get(key);
+                if (live == null || !regionsOf(key, live).contains(region)) {
+                    return keys;
+                }
+                Set<Key> result = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                result.add(key);
+                return result;
+            });
+        }
+    }
+
+    private void unindex(Key key, Candidates candidates) {
+        for (long profileId : candidates.profileIds()) {
+            unindexProfile(profileId, key);
+        }
+        for (int region : regionsOf(key, candidates)) {
+            keysByRegion.computeIfPresent(region, (id, keys) -> {
+                Candidates live = cache.asMap().get(key);
+                if (live == null || !regionsOf(key, live).contains(region)) {
+                    keys.remove(key);
+                }
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    // Dodaje wpis do indeksu profilu tylko, gdy żywa wartość wpisu zawiera profil
+    private void indexProfile(long profileId, Key key) {
+        keysByProfile.compute(profileId, (id, keys) -> {
+            if (!contains(cache.asMap().get(key), profileId)) {
+                return keys;
+            }
+            Set<Key> result = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            result.add(key);
+            return result;
+        });
+    }
+
+    // Zdejmuje wpis z indeksu profilu, chyba że żywa wartość wpisu (np. przeładowana) nadal go zawiera
+    private void unindexProfile(long profileId, Key key) {
+        keysByProfile.computeIfPresent(profileId, (id, keys) -> {
+            if (!contains(cache.asMap().get(key), profileId)) {
+                keys.remove(key);
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static boolean contains(Candidates candidates, long profileId) {
+        return candidates != null && Arrays.binarySearch(candidates.profileIds(), profileId) >= 0;
+    }
+
+    private static Long profileOf(Candidates candidates, Long userId) {
+        long[] userIds = candidates.userIds();
+        for (int i = 0; i < userIds.length; i++) {
+            if (userIds[i] == userId) {
+                return candidates.profileIds()[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Regions a profile must be in to match the entry's distance filter; ANYWHERE for entries
+     * without one (age filters only) or with a radius spanning too many regions
+     */
+    private static Set<Integer> regionsOf(Key key, Candidates candidates) {
+        Integer maxDistance = key.filters().maxDistance();
+        if (maxDistance == null || candidates.originLat() == null || candidates.originLon() == null) {
+            return Set.of(ANYWHERE);
+        }
+
+        GeoUtils.BoundingBox box = GeoUtils.boundingBox(candidates.originLat(), candidates.originLon(), maxDistance);
+        int minLatIdx = latRegion(box.minLat());
+        int maxLatIdx = latRegion(box.maxLat());
+        int minLonIdx = lonRegion(box.minLon());
+        int maxLonIdx = lonRegion(box.maxLon());
+        if ((long) (maxLatIdx - minLatIdx + 1) * (maxLonIdx - minLonIdx + 1) > MAX_REGIONS_PER_ENTRY) {
+            return Set.of(ANYWHERE);
+        }
+
+        Set<Integer> regions = new HashSet<>();
+        for (int latIdx = minLatIdx; latIdx <= maxLatIdx; latIdx++) {
+            for (int lonIdx = minLonIdx; lonIdx <= maxLonIdx; lonIdx++) {
+                regions.add(latIdx * LON_REGIONS + lonIdx);
+            }
+        }
+        return regions;
+    }
+
+    private static int regionOf(double latitude, double longitude) {
+        return latRegion(latitude) * LON_REGIONS + lonRegion(longitude);
+    }
+
+    private static int latRegion(double latitude) {
+        return Math.max(0, Math.min(LAT_REGIONS - 1, (int) Math.floor((latitude + 90) / REGION_SIZE_DEG)));
+    }
+
+    private static int lonRegion(double longitude) {
+        return Math.max(0, Math.min(LON_REGIONS - 1, (int) Math.floor((longitude + 180) / REGION_SIZE_DEG)));
+    }
+
+    private Candidates toCandidates(List<DiscoverCandidate> loaded, Double originLat, Double originLon) {
+        int size = Math.min(loaded.size(), capacity);
+        long[] profileIds = new long[size];
+        long[] userIds = new long[size];
+        for (int i = 0; i < size; i++) {
+            profileIds[i] = loaded.get(i).profileId();
+            userIds[i] = loaded.get(i).userId();
+        }
+        return new Candidates(profileIds, userIds, loaded.size() < capacity, originLat, originLon);
+    }
+
+    private static Candidates without(Candidates candidates, Long userId) {
+        long[] userIds = candidates.userIds();
+        for (int i = 0; i < userIds.length; i++) {
+            if (userIds[i] == userId) {
+                return new Candidates(
+                        remove(candidates.profileIds(), i),
+                        remove(userIds, i),
+                        candidates.complete(),
+                        candidates.originLat(),
+                        candidates.originLon()
+                );
+            }
+        }
+        return candidates;
+    }
+
+    private static Candidates with(Candidates candidates, Long profileId, Long userId) {
+        long[] profileIds = candidates.profileIds();
+        int index = Arrays.binarySearch(profileIds, profileId);
+        // Za końcem niepełnej listy profil i tak przyjdzie z bazy
+        if (index >= 0 || (-index - 1 == profileIds.length && !candidates.complete())) {
+            return candidates;
+        }
+
+        index = -index - 1;
+        return new Candidates(
+                insert(profileIds, index, profileId),
+                insert(candidates.userIds(), index, userId),
+                candidates.complete(),
+                candidates.originLat(),
+                candidates.originLon()
+        );
+    }
+
+    private static long[] insert(long[] values, int index, long value) {
+        long[] result = new long[values.length + 1];
+        System.arraycopy(values, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(values, index, result, index + 1, values.length - index);
+        return result;
+    }
+
+    private static long[] remove(long[] values, int index) {
+        long[] result = new long[values.length - 1];
+        System.arraycopy(values, 0, result, 0, index);
+        System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+        return result;
+    }
+
+    // Czy profil o podanych danych spełnia filtry wpisu (mógł do niego dołączyć)
+    private static boolean matches(Filters filters, Candidates candidates, FilterFields profile) {
+        Integer age = profile.age();
+        if (filters.minAge() != null && (age == null || age < filters.minAge())) {
+            return false;
+        }
+        if (filters.maxAge() != null && (age == null || age > filters.maxAge())) {
+            return false;
+        }
+        if (filters.maxDistance() == null) {
+            return true;
+        }
+        if (profile.latitude() == null || profile.longitude() == null
+                || candidates.originLat() == null || candidates.originLon() == null) {
+            return false;
+        }
+        return GeoUtils.isWithinDistance(candidates.originLat(), candidates.originLon(),
+                profile.latitude(), profile.longitude(), filters.maxDistance());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,235 @@
+package com.beerfinder.service;
+
+import com.beerfinder.config.AsyncConfig;
+import com.beerfinder.repository.ProfileRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongPredicate;
+
+/**
+ * Precomputed per-user queue of discover candidates.
+ *
+ * Each active user gets a deck of candidate profile ids, ranked by profile id so it lines up
+ * with the keyset order of the discover queries. Swipes consume cards from the deck and once
+ * it drops below the low-water mark it is refilled in the background. Unfiltered discover
+ * is then served from the deck instead of running the swipe anti-join on the request path.
+ *
+ * Decks are bounded in number and dropped after a period of inactivity.
+ */
+@Service
+public class DiscoverDeckService {
+
+    private static final Logger log = LoggerFactory.getLogger(DiscoverDeckService.class);
+
+    private static final int REFILL_CHUNK_SIZE = 1000;
+    // Tyle porcji odsiewamy w pamięci, potem przesuniętych wyklucza już baza
+    private static final int MAX_REFILL_CHUNKS = 3;
+
+    private final ProfileRepository profileRepository;
+    private final SwipedUsersCache swipedUsers;
+    private final Executor refillExecutor;
+    private final int capacity;
+    private final int lowWaterMark;
+    private final Cache<Long, Deck> decks;
+
+    public DiscoverDeckService(ProfileRepository profileRepository,
+                               SwipedUsersCache swipedUsers,
+                               @Qualifier(AsyncConfig.BACKGROUND_EXECUTOR) Executor refillExecutor,
+                               @Value("${discover.deck.capacity:200}") int capacity,
+                               @Value("${discover.deck.low-water-mark:50}") int lowWaterMark,
+                               @Value("${discover.deck.max-users:10000}") long maxUsers,
+                               @Value("${discover.deck.idle-timeout:30m}") Duration idleTimeout) {
+        this.profileRepository = profileRepository;
+        this.swipedUsers = swipedUsers;
+        this.refillExecutor = refillExecutor;
+        this.capacity = capacity;
+        this.lowWaterMark = lowWaterMark;
+        this.decks = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    private static final class Deck {
+        // profileId -> userId, posortowane po id profilu
+        private final NavigableMap<Long, Long> cards = new ConcurrentSkipListMap<>();
+        private final Map<Long, Long> profileIdByUserId = new ConcurrentHashMap<>();
+        // Użytkownicy przesunięci w trakcie życia talii - uzupełnianie ich nie przywróci
+        private final Set<Long> consumedUserIds = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean refilling = new AtomicBoolean(false);
+        private volatile boolean loaded = false;
+        private volatile boolean exhausted = false;
+        private volatile long lastQueuedId = 0L;
+    }
+
+    /**
+     * Read the next candidates from the user's deck
+     *
+     * @param userId  Owner of the deck
+     * @param afterId Profile id after which to start (keyset cursor)
+     * @param count   Number of candidates requested
+     * @param swiped  Users swiped since their swipe event was applied to the deck - skipped
+     * @return Profile ids in deck order, or empty when the deck cannot serve the request
+     * (cold deck or not enough cards) and the caller has to query the database
+     */
+    public Optional<List<Long>> peek(Long userId, long afterId, int count, LongPredicate swiped) {
+        Deck deck = decks.get(userId, id -> new Deck());
+
+        if (deck.cards.size() < lowWaterMark) {
+            scheduleRefill(userId, deck);
+        }
+
+        if (!deck.loaded) {
+            return Optional.empty();
+        }
+
+        List<Long> result = new ArrayList<>(count);
+        for (Map.Entry<Long, Long> card : deck.cards.tailMap(afterId, false).entrySet()) {
+            if (result.size() == count) {
+                break;
+            }
+            // Zdarzenie swipe'a dociera z outboxa z opóźnieniem - do tego czasu karta wciąż jest w talii
+            if (!swiped.test(card.getValue())) {
+                result.add(card.getKey());
+            }
+        }
+
+        // Krótsza lista jest wiarygodna tylko gdy w bazie nie ma już kolejnych kandydatów
+        if (result.size() < count && !deck.exhausted) {
+            return Optional.empty();
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Remove a swiped user from the swiper's deck and top it up when it runs low
+     */
+    public void consume(Long swiperId, Long swipedUserId) {
+        Deck deck = decks.getIfPresent(swiperId);
+        if (deck == null) {
+            return;
+        }
+
+        deck.consumedUserIds.add(swipedUserId);
+        Long profileId = deck.profileIdByUserId.remove(swipedUserId);
+        if (profileId != null) {
+            deck.cards.remove(profileId);
+        }
+
+        if (deck.cards.size() < lowWaterMark) {
+            scheduleRefill(swiperId, deck);
+        }
+    }
+
+    /**
+     * Put back the card of a user whose swipe was undone. A profile beyond the scanned range
+     * needs no card - the next refill reaches it anyway.
+     */
+    public void restore(Long swiperId, Long swipedUserId, Long profileId) {
+        Deck deck = decks.getIfPresent(swiperId);
+        if (deck == null) {
+            return;
+        }
+
+        deck.consumedUserIds.remove(swipedUserId);
+        if (profileId <= deck.lastQueuedId) {
+            deck.cards.put(profileId, swipedUserId);
+            deck.profileIdByUserId.put(swipedUserId, profileId);
+        }
+    }
+
+    public void evict(Long userId) {
+        decks.invalidate(userId);
+    }
+
+    private void scheduleRefill(Long userId, Deck deck) {
+        if (!deck.refilling.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            refillExecutor.execute(() -> {
+                try {
+                    refill(userId, deck);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to refill discover deck for user {}", userId, e);
+                } finally {
+                    deck.refilling.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Pełna kolejka wykonawcy - spróbujemy przy następnym odczycie
+            deck.refilling.set(false);
+            log.warn("Discover deck refill for user {} rejected", userId, e);
+        }
+    }
+
+    private void refill(Long userId, Deck deck) {
+        int missing = capacity - deck.cards.size();
+        if (missing <= 0) {
+            return;
+        }
+
+        // Zapytanie nie wyklucza przesuniętych - odsiewamy je w pamięci i dobieramy kolejne porcje.
+        // Gdy przesunięcia pokrywają kilka pełnych porcji z rzędu, wykluczenie przejmuje baza.
+        LongPredicate swiped = swipedUsers.swipedBy(userId);
+        int chunkSize = Math.max(missing, REFILL_CHUNK_SIZE);
+        int added = 0;
+        int chunks = 0;
+        boolean exhausted = false;
+
+        while (added < missing && !exhausted) {
+            List<Object[]> candidates = chunks < MAX_REFILL_CHUNKS
+                    ? profileRepository.findDiscoverCandidateIdsAfter(userId, deck.lastQueuedId, Limit.of(chunkSize))
+                    : profileRepository.findUnswipedCandidateIdsAfter(userId, deck.lastQueuedId, Limit.of(chunkSize));
+            chunks++;
+
+            int read = 0;
+            for (Object[] row : candidates) {
+                if (added == missing) {
+                    break;
+                }
+                read++;
+                Long profileId = (Long) row[0];
+                Long candidateUserId = (Long) row[1];
+                deck.lastQueuedId = profileId;
+
+                if (!swiped.test(candidateUserId) && !deck.consumedUserIds.contains(candidateUserId)) {
+                    deck.cards.put(profileId, candidateUserId);
+                    deck.profileIdByUserId.put(candidateUserId, profileId);
+                    added++;
+
+                    // Swipe mógł przyjść w trakcie dodawania karty
+                    if (deck.consumedUserIds.contains(candidateUserId)) {
+                        deck.cards.remove(profileId);
+                        deck.profileIdByUserId.remove(candidateUserId);
+                    }
+                }
+            }
+
+            // Koniec wyników tylko gdy przeczytaliśmy całą niepełną porcję
+            exhausted = read == candidates.size() && candidates.size() < chunkSize;
+        }
+
+        deck.exhausted = exhausted;
+        deck.loaded = true;
+    }
+}
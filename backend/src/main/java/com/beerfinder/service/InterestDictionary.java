@@ -0,0 +1,178 @@
+package com.beerfinder.service;
+
+import com.beerfinder.repository.ProfileRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dictionary encoding of profile interests.
+ *
+ * Every distinct interest (trimmed, case-insensitive) gets a small integer id and each profile's
+ * interests are kept as a bitset over those ids. The number of shared interests between two
+ * profiles is then the popcount of the AND of their bitsets - a handful of CPU instructions
+ * instead of a string set intersection.
+ *
+ * Like {@link ProfileLocationIndex} the dictionary is warmed on startup, kept current by
+ * {@link ProfileService#updateMyProfile} and lives in a single JVM.
+ */
+@Component
+public class InterestDictionary {
+
+    private static final Logger log = LoggerFactory.getLogger(InterestDictionary.class);
+
+    private static final long[] EMPTY = new long[0];
+
+    private final ProfileRepository profileRepository;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final Map<Long, Entry> profiles = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+
+    public InterestDictionary(ProfileRepository profileRepository) {
+        this.profileRepository = profileRepository;
+    }
+
+    /**
+     * Candidate profile with the number of interests it shares with the viewer
+     */
+    public record Match(Long profileId, Long userId, int sharedInterests) {
+    }
+
+    // Bitset jest niemutowalny - aktualizacja profilu podmienia cały wpis
+    private record Entry(Long userId, Integer age, long[] bits) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Map<Long, Long> userIds = new HashMap<>();
+        Map<Long, Integer> ages = new HashMap<>();
+        Map<Long, List<String>> interests = new HashMap<>();
+        for (Object[] row : profileRepository.findAllInterests()) {
+            Long profileId = (Long) row[0];
+            userIds.put(profileId, (Long) row[1]);
+            ages.put(profileId, (Integer) row[3]);
+            List<String> profileInterests = interests.computeIfAbsent(profileId, id -> new ArrayList<>());
+            if (row[2] != null) {
+                profileInterests.add((String) row[2]);
+            }
+        }
+
+        userIds.forEach((profileId, userId) -> update(profileId, userId, ages.get(profileId), interests.get(profileId)));
+        ready = true;
+        log.info("Interest dictionary warmed with {} profiles and {} distinct interests", profiles.size(), ids.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int distinctInterests() {
+        return ids.size();
+    }
+
+    /**
+     * Insert or replace a profile's interests, assigning ids to interests seen for the first time
+     */
+    public void update(Long profileId, Long userId, Integer age, Collection<String> interests) {
+        if (profileId == null) {
+            return;
+        }
+        profiles.put(profileId, new Entry(userId, age, encode(interests, true)));
+    }
+
+    public void remove(Long profileId) {
+        profiles.remove(profileId);
+    }
+
+    /**
+     * Encode interests as a bitset. Interests not in the dictionary are skipped -
+     * no indexed profile can share them.
+     */
+    public long[] encode(Collection<String> interests) {
+        return encode(interests, false);
+    }
+
+    /**
+     * Score every indexed profile against the viewer's bitset
+     *
+     * @param viewerBits Bitset of the viewer's interests (see {@link #encode})
+     * @return One match per indexed profile, in no particular order
+     */
+    public List<Match> score(long[] viewerBits) {
+        return score(viewerBits, null, null);
+    }
+
+    /**
+     * Score indexed profiles whose age lies in [minAge, maxAge] against the viewer's bitset
+     *
+     * @param minAge Minimum age (optional)
+     * @param maxAge Maximum age (optional)
+     */
+    public List<Match> score(long[] viewerBits, Integer minAge, Integer maxAge) {
+        List<Match> result = new ArrayList<>(profiles.size());
+        profiles.forEach((profileId, entry) -> {
+            if (ProfileLocationIndex.isInAgeRange(entry.age(), minAge, maxAge)) {
+                result.add(new Match(profileId, entry.userId(), sharedCount(viewerBits, entry.bits())));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Number of interests present in both bitsets
+     */
+    public static int sharedCount(long[] a, long[] b) {
+        int words = Math.min(a.length, b.length);
+        int count = 0;
+        for (int i = 0; i < words; i++) {
+            count += Long.bitCount(a[i] & b[i]);
+        }
+        return count;
+    }
+
+    private long[] encode(Collection<String> interests, boolean register) {
+        if (interests == null || interests.isEmpty()) {
+            return EMPTY;
+        }
+
+        long[] bits = EMPTY;
+        for (String interest : interests) {
+            String key = normalize(interest);
+            if (key.isEmpty()) {
+                continue;
+            }
+
+            Integer id = register
+                    ? ids.computeIfAbsent(key, k -> nextId.getAndIncrement())
+                    : ids.get(key);
+            if (id == null) {
+                continue;
+            }
+
+            int word = id >>> 6;
+            if (word >= bits.length) {
+                bits = Arrays.copyOf(bits, word + 1);
+            }
+            bits[word] |= 1L << id;
+        }
+        return bits;
+    }
+
+    private static String normalize(String interest) {
+        return interest == null ? "" : interest.trim().toLowerCase(Locale.ROOT);
+    }
+}
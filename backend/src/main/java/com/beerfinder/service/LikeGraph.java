@@ -0,0 +1,144 @@
+package com.beerfinder.service;
+
+import com.beerfinder.entity.SwipeAction;
+import com.beerfinder.entity.SwipeArchive;
+import com.beerfinder.repository.SwipeArchiveRepository;
+import com.beerfinder.repository.SwipeRepository;
+import com.beerfinder.util.RoaringBitmaps;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory graph of pending likes.
+ *
+ * For every user it keeps the set of users who liked them and have not been answered yet
+ * (the user has neither liked nor passed them back). A LIKE then detects a mutual match with
+ * a single hash lookup instead of querying the swipes table.
+ *
+ * The graph is warmed from the database on startup - likes answered by an archived PASS
+ * ({@link SwipeArchiver}) are skipped - and updated by {@link SwipeService} once
+ * a swipe is committed. Like the other discover indexes it lives in a single JVM; until it is
+ * warmed (or when disabled) the service falls back to the reverse-like query.
+ */
+@Component
+public class LikeGraph {
+
+    private static final Logger log = LoggerFactory.getLogger(LikeGraph.class);
+
+    private static final int ARCHIVE_BATCH_SIZE = 1000;
+
+    private final SwipeRepository swipeRepository;
+    private final SwipeArchiveRepository archiveRepository;
+
+    @Value("${swipe.like-graph.enabled:true}")
+    private boolean enabled = true;
+
+    // Użytkownik -> kto go polubił i czeka na odpowiedź
+    private final Map<Long, Set<Long>> incoming = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+
+    public LikeGraph(SwipeRepository swipeRepository, SwipeArchiveRepository archiveRepository) {
+        this.swipeRepository = swipeRepository;
+        this.archiveRepository = archiveRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+
+        List<Object[]> rows = swipeRepository.findPendingLikes();
+        Map<Long, Roaring64NavigableMap> archived = loadArchives(rows);
+
+        int count = 0;
+        for (Object[] row : rows) {
+            Long likerId = (Long) row[0];
+            Long userId = (Long) row[1];
+            // Odpowiedź PASS przeniesiona do archiwum - polubienie nie czeka już na odpowiedź
+            Roaring64NavigableMap passed = archived.get(userId);
+            if (passed != null && passed.contains(likerId)) {
+                continue;
+            }
+            addLike(likerId, userId);
+            count++;
+        }
+        ready = true;
+        log.info("Like graph warmed with {} pending likes", count);
+    }
+
+    // Archiwa PASS-ów polubionych użytkowników, wczytywane partiami
+    private Map<Long, Roaring64NavigableMap> loadArchives(List<Object[]> rows) {
+        List<Long> userIds = rows.stream().map(row -> (Long) row[1]).distinct().toList();
+        Map<Long, Roaring64NavigableMap> archived = new HashMap<>();
+        for (int from = 0; from < userIds.size(); from += ARCHIVE_BATCH_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(userIds.size(), from + ARCHIVE_BATCH_SIZE));
+            for (SwipeArchive archive : archiveRepository.findAllById(chunk)) {
+                archived.put(archive.getSwiperId(), RoaringBitmaps.fromBytes(archive.getPassedUserIds()));
+            }
+        }
+        return archived;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Whether likerId has a pending like on userId
+     */
+    public boolean hasLiked(Long likerId, Long userId) {
+        Set<Long> likers = incoming.get(userId);
+        return likers != null && likers.contains(likerId);
+    }
+
+    /**
+     * Apply a committed swipe. Any swipe answers the swiped user's pending like;
+     * a LIKE that did not create a match becomes a pending like itself.
+     */
+    public void onSwipe(Long swiperId, Long swipedUserId, SwipeAction action, boolean matched) {
+        incoming.computeIfPresent(swiperId, (id, likers) -> {
+            likers.remove(swipedUserId);
+            return likers.isEmpty() ? null : likers;
+        });
+
+        if (action == SwipeAction.LIKE && !matched) {
+            addLike(swiperId, swipedUserId);
+        }
+    }
+
+    /**
+     * Apply a committed undo of swiperId's swipe on swipedUserId. The swiper's like (if any) is
+     * withdrawn; a like of the swiped user that the swipe had answered becomes pending again.
+     */
+    public void onUndo(Long swiperId, Long swipedUserId, boolean likedBySwiped) {
+        incoming.computeIfPresent(swipedUserId, (id, likers) -> {
+            likers.remove(swiperId);
+            return likers.isEmpty() ? null : likers;
+        });
+
+        if (likedBySwiped) {
+            addLike(swipedUserId, swiperId);
+        }
+    }
+
+    public int pendingLikes(Long userId) {
+        Set<Long> likers = incoming.get(userId);
+        return likers == null ? 0 : likers.size();
+    }
+
+    private void addLike(Long likerId, Long userId) {
+        incoming.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(likerId);
+    }
+}
@@ -0,0 +1,100 @@
+package com.beerfinder.service;
+
+import com.beerfinder.config.AsyncConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Expires matches nobody wrote in.
+ *
+ * Every {@code interval} active matches older than {@code idle-after} without a single message
+ * are deactivated through {@link MatchService#expireIdleMatches}, at most {@code batch-size} per
+ * transaction, so row locks stay short. Each expired match publishes MatchEnded.
+ */
+@Component
+public class MatchExpirer {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchExpirer.class);
+
+    private final MatchService matchService;
+    private final boolean enabled;
+    private final Duration interval;
+    private final Duration idleAfter;
+    private final int batchSize;
+
+    private final TaskScheduler scheduler;
+    private ScheduledFuture<?> schedule;
+
+    public MatchExpirer(MatchService matchService,
+                        @Qualifier(AsyncConfig.BACKGROUND_SCHEDULER) TaskScheduler scheduler,
+                        @Value("${match.expiry.enabled:true}") boolean enabled,
+                        @Value("${match.expiry.interval:1h}") Duration interval,
+                        @Value("${match.expiry.idle-after:14d}") Duration idleAfter,
+                        @Value("${match.expiry.batch-size:500}") int batchSize) {
+        this.matchService = matchService;
+        this.scheduler = scheduler;
+        this.enabled = enabled;
+        this.interval = interval;
+        this.idleAfter = idleAfter;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        schedule = scheduler.scheduleWithFixedDelay(this::expireQuietly, Instant.now().plus(interval), interval);
+    }
+
+    // Przerwanie kończy bieżące przejście między paczkami
+    @PreDestroy
+    public void stop() {
+        if (schedule != null) {
+            schedule.cancel(true);
+        }
+    }
+
+    /**
+     * Expire every idle match, batch by batch
+     *
+     * @return Number of expired matches
+     */
+    public int expire() {
+        LocalDateTime before = LocalDateTime.now().minus(idleAfter);
+
+        int expired = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            int batch = matchService.expireIdleMatches(before, batchSize);
+            expired += batch;
+            if (batch < batchSize) {
+                break;
+            }
+        }
+        if (expired > 0) {
+            log.info("Expired {} matches without messages created before {}", expired, before);
+        }
+        return expired;
+    }
+
+    private void expireQuietly() {
+        try {
+            expire();
+        } catch (RuntimeException e) {
+            // Matche zostają aktywne - kolejna próba przy następnym cyklu
+            log.warn("Match expiry failed, will retry: {}", e.getMessage());
+        }
+    }
+}
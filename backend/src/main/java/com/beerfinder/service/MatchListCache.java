@@ -0,0 +1,132 @@
+package com.beerfinder.service;
+
+import com.beerfinder.dto.MatchResponse;
+import com.beerfinder.dto.ProfileResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache of each user's active matches.
+ *
+ * Holds an immutable list of match card snapshots per user, loaded on the first read of the
+ * matches list. Entries are updated in place instead of being reloaded:
+ * <ul>
+ *     <li>a new match is appended to the entries of both users,</li>
+ *     <li>a deactivated match is removed from the entries of both users,</li>
+ *     <li>a profile update replaces the card in the entries of the user's matches.</li>
+ * </ul>
+ * Only entries that are already cached are touched - the others are loaded on their next read.
+ * Published to Micrometer as the {@value #CACHE_NAME} cache.
+ */
+@Component
+public class MatchListCache {
+
+    public static final String CACHE_NAME = "matchLists";
+
+    private final Cache<Long, List<Snapshot>> cache;
+
+    public MatchListCache(MeterRegistry meterRegistry,
+                          @Value("${match.list-cache.max-users:100000}") long maxUsers,
+                          @Value("${match.list-cache.ttl:30m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Match card as seen by one of its users
+     *
+     * @param matchedUserId The other user (kept apart from the card, whose profile may be missing)
+     */
+    public record Snapshot(Long matchedUserId, MatchResponse card) {
+    }
+
+    /**
+     * Active matches of a user, loading the entry on a miss
+     */
+    public List<MatchResponse> get(Long userId, Function<Long, List<Snapshot>> loader) {
+        return cache.get(userId, id -> List.copyOf(loader.apply(id))).stream()
+                .map(Snapshot::card)
+                .toList();
+    }
+
+    public boolean isCached(Long userId) {
+        return cache.getIfPresent(userId) != null;
+    }
+
+    /**
+     * Append a match to a cached entry, unless it is already there
+     */
+    public void onMatchCreated(Long userId, Snapshot snapshot) {
+        cache.asMap().computeIfPresent(userId, (id, snapshots) -> {
+            Long matchId = snapshot.card().getMatchId();
+            if (snapshots.stream().anyMatch(s -> s.card().getMatchId().equals(matchId))) {
+                return snapshots;
+            }
+            List<Snapshot> updated = new ArrayList<>(snapshots);
+            updated.add(snapshot);
+            return List.copyOf(updated);
+        });
+    }
+
+    /**
+     * Remove the match of a pair from the cached entries of both users
+     */
+    public void onMatchDeactivated(Long userId, Long otherUserId) {
+        removeMatchedUser(userId, otherUserId);
+        removeMatchedUser(otherUserId, userId);
+    }
+
+    /**
+     * Replace the card of a changed profile in the entries of its matches
+     *
+     * @param matchedUserIds Loads the user's match partners when the user's own entry is not cached
+     */
+    public void onProfileChanged(Long userId, ProfileResponse profile, Supplier<List<Long>> matchedUserIds) {
+        if (cache.estimatedSize() == 0) {
+            return;
+        }
+
+        // Match jest symetryczny - wpisy do zmiany należą do partnerów użytkownika
+        List<Snapshot> own = cache.getIfPresent(userId);
+        List<Long> partners = own != null
+                ? own.stream().map(Snapshot::matchedUserId).toList()
+                : matchedUserIds.get();
+        partners.forEach(id -> replaceProfile(id, userId, profile));
+    }
+
+    public void evict(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    private void removeMatchedUser(Long userId, Long matchedUserId) {
+        cache.asMap().computeIfPresent(userId, (id, snapshots) -> snapshots.stream()
+                .filter(s -> !s.matchedUserId().equals(matchedUserId))
+                .toList());
+    }
+
+    private void replaceProfile(Long userId, Long changedUserId, ProfileResponse profile) {
+        cache.asMap().computeIfPresent(userId, (id, snapshots) -> snapshots.stream()
+                .map(s -> s.matchedUserId().equals(changedUserId) ? withProfile(s, profile) : s)
+                .toList());
+    }
+
+    private static Snapshot withProfile(Snapshot snapshot, ProfileResponse profile) {
+        MatchResponse card = snapshot.card();
+        return new Snapshot(snapshot.matchedUserId(),
+                new MatchResponse(card.getMatchId(), profile, card.getIsActive(), card.getCreatedAt()));
+    }
+}
@@ -1,18 +1,41 @@
 package com.beerfinder.service;
 
+import com.beerfinder.dto.InboxEntry;
+import com.beerfinder.dto.InboxPageResponse;
+import com.beerfinder.dto.InboxRow;
+import com.beerfinder.dto.MatchPair;
 import com.beerfinder.dto.MatchResponse;
+import com.beerfinder.dto.MatchRow;
+import com.beerfinder.dto.ProfileResponse;
 import com.beerfinder.entity.Match;
 import com.beerfinder.entity.User;
+import com.beerfinder.event.DomainEventPublisher;
+import com.beerfinder.event.MatchEnded;
+import com.beerfinder.exception.BadRequestException;
 import com.beerfinder.exception.ResourceNotFoundException;
 import com.beerfinder.repository.MatchRepository;
 import com.beerfinder.repository.UserRepository;
+import com.beerfinder.security.AuthenticatedUser;
+import com.beerfinder.util.InboxCursor;
+import com.beerfinder.util.TransactionHooks;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -20,46 +43,186 @@ public class MatchService {
 
     private final MatchRepository matchRepository;
     private final UserRepository userRepository;
+    private final ProfileService profileService;
+    private final MatchListCache matchListCache;
+    private final DomainEventPublisher eventPublisher;
 
-    public MatchService(MatchRepository matchRepository, UserRepository userRepository) {
+    private static final int DEFAULT_INBOX_PAGE_SIZE = 20;
+    private static final int MAX_INBOX_PAGE_SIZE = 100;
+
+    public MatchService(MatchRepository matchRepository,
+                        UserRepository userRepository,
+                        ProfileService profileService,
+                        MatchListCache matchListCache,
+                        DomainEventPublisher eventPublisher) {
         this.matchRepository = matchRepository;
         this.userRepository = userRepository;
+        this.profileService = profileService;
+        this.matchListCache = matchListCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Idempotentne utworzenie matcha pary (kolejność argumentów nie ma znaczenia).
+     * Upsert zamiast sprawdzenia i INSERT-a - równoległe wywołania dostają ten sam match,
+     * a transakcja swipe'a nie jest wycofywana przez unikalną parę.
+     *
+     * @return Id nowego albo istniejącego aktywnego matcha; pusty, gdy match pary zakończono
+     *         (unmatch lub wygaśnięcie) - ponowny LIKE go nie przywraca
+     */
+    public Optional<Long> ensureMatch(Long userId, Long otherUserId) {
+        MatchPair pair = MatchPair.of(userId, otherUserId);
+        Optional<Long> matchId = matchRepository.upsertMatch(pair.user1Id(), pair.user2Id());
+        matchId.ifPresent(id -> updateCachedListsAfterCommit(id, userId, otherUserId));
+        return matchId;
+    }
+
+    /**
+     * Wiele par naraz: istniejące aktywne matche jednym zapytaniem, upsert tylko dla pozostałych
+     *
+     * @return Id aktywnego matcha według drugiego użytkownika, w kolejności otherUserIds
+     *         (bez par, których match zakończono)
+     */
+    public Map<Long, Long> ensureMatches(Long userId, Collection<Long> otherUserIds) {
+        Map<Long, Long> existing = findActiveMatchIds(userId, otherUserIds);
+
+        Map<Long, Long> matchIds = new LinkedHashMap<>();
+        for (Long otherUserId : otherUserIds) {
+            Long matchId = existing.get(otherUserId);
+            if (matchId != null) {
+                matchIds.put(otherUserId, matchId);
+            } else {
+                ensureMatch(userId, otherUserId).ifPresent(id -> matchIds.put(otherUserId, id));
+            }
+        }
+        return matchIds;
+    }
+
+    /**
+     * Aktywne matche użytkownika z podanymi osobami, jednym zapytaniem
+     *
+     * @return Id matcha według drugiego użytkownika (bez osób, z którymi nie ma aktywnego matcha)
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Long> findActiveMatchIds(Long userId, Collection<Long> otherUserIds) {
+        if (otherUserIds.isEmpty()) {
+            return Map.of();
+        }
+
+        List<MatchPair> pairs = otherUserIds.stream()
+                .map(otherUserId -> MatchPair.of(userId, otherUserId))
+                .toList();
+        Map<Long, Long> matchIds = new HashMap<>();
+        matchRepository.findActiveMatchIds(pairs)
+                .forEach((pair, matchId) -> matchIds.put(pair.otherThan(userId), matchId));
+        return matchIds;
+    }
+
+    /**
+     * Dezaktywuje match pary (np. po cofnięciu LIKE, który go utworzył) i publikuje MatchEnded -
+     * druga strona dostała powiadomienie o matchu, więc dostaje też o jego końcu
+     *
+     * @return Id dezaktywowanego matcha albo pusty, gdy para nie miała aktywnego matcha
+     */
+    public Optional<Long> deactivateMatch(Long userId, Long otherUserId) {
+        MatchPair pair = MatchPair.of(userId, otherUserId);
+        if (matchRepository.deactivatePair(pair.user1Id(), pair.user2Id()) == 0) {
+            return Optional.empty();
+        }
+
+        // Id z bazy - match mógł utworzyć późniejszy LIKE drugiej strony, a nie cofany swipe
+        Long matchId = matchRepository.findIdByPair(pair.user1Id(), pair.user2Id())
+                .orElseThrow(() -> new ResourceNotFoundException("Match not found for users " + userId + " and " + otherUserId));
+        eventPublisher.publish(new MatchEnded(matchId, pair.user1Id(), pair.user2Id(), MatchEnded.Reason.UNMATCHED));
+        TransactionHooks.afterCommit(() -> matchListCache.onMatchDeactivated(userId, otherUserId));
+        return Optional.of(matchId);
     }
 
     /**
-     * Tworzy match między dwoma użytkownikami
+     * Zalogowany użytkownik kończy match. Ponowne wywołanie dla nieaktywnego matcha nic nie zmienia.
      */
-    public Match createMatch(User user1, User user2) {
-        // Sprawdź czy match już nie istnieje
-        if (matchRepository.existsByUser1AndUser2(user1, user2) ||
-                matchRepository.existsByUser1AndUser2(user2, user1)) {
-            throw new RuntimeException("Match already exists between these users");
+    public void unmatch(Long matchId) {
+        User currentUser = getCurrentUser();
+        Match match = getMatchOf(matchId, currentUser);
+
+        if (matchRepository.deactivateAll(List.of(match.getId())) == 0) {
+            return;
         }
 
-        // Stwórz nowy match (user1 zawsze ma mniejsze ID)
-        Match match = new Match();
-        if (user1.getId() < user2.getId()) {
-            match.setUser1(user1);
-            match.setUser2(user2);
-        } else {
-            match.setUser1(user2);
-            match.setUser2(user1);
+        Long user1Id = match.getUser1().getId();
+        Long user2Id = match.getUser2().getId();
+        eventPublisher.publish(new MatchEnded(match.getId(), user1Id, user2Id, MatchEnded.Reason.UNMATCHED));
+        TransactionHooks.afterCommit(() -> matchListCache.onMatchDeactivated(user1Id, user2Id));
+    }
+
+    /**
+     * Wygasza jedną paczkę aktywnych matchy, w których nikt nie napisał wiadomości przed upływem czasu
+     *
+     * @param before Matche utworzone przed tą chwilą
+     * @param limit  Maksymalna liczba matchy w paczce
+     * @return Liczba wygaszonych matchy
+     */
+    public int expireIdleMatches(LocalDateTime before, int limit) {
+        List<Object[]> rows = matchRepository.findIdleMatches(before, Limit.of(limit));
+        if (rows.isEmpty()) {
+            return 0;
         }
-        match.setIsActive(true);
 
-        return matchRepository.save(match);
+        matchRepository.deactivateAll(rows.stream().map(row -> (Long) row[0]).toList());
+        eventPublisher.publishAll(rows.stream()
+                .map(row -> new MatchEnded((Long) row[0], (Long) row[1], (Long) row[2], MatchEnded.Reason.EXPIRED))
+                .toList());
+        TransactionHooks.afterCommit(() -> rows.forEach(row -> matchListCache.onMatchDeactivated((Long) row[1], (Long) row[2])));
+        return rows.size();
     }
 
     /**
-     * Pobiera wszystkie aktywne matche zalogowanego użytkownika
+     * Pobiera wszystkie aktywne matche zalogowanego użytkownika (z cache, baza tylko przy pierwszym odczycie)
      */
     public List<MatchResponse> getMyMatches() {
+        return matchListCache.get(getCurrentUserId(), this::loadMatchList);
+    }
+
+    /**
+     * Skrzynka zalogowanego użytkownika: matche z podglądem ostatniej wiadomości i liczbą
+     * nieprzeczytanych, od ostatniej aktywności. Stała liczba zapytań niezależnie od liczby
+     * matchów - jedno po wiersze skrzynki i dwa po karty profili całej strony.
+     *
+     * @param cursor Kursor strony (X-Next-Cursor poprzedniej odpowiedzi), null dla pierwszej
+     * @param limit  Rozmiar strony (domyślnie 20, maks. 100)
+     */
+    @Transactional(readOnly = true)
+    public InboxPageResponse getInbox(String cursor, Integer limit) {
         User currentUser = getCurrentUser();
-        List<Match> matches = matchRepository.findActiveMatchesByUser(currentUser);
+        InboxCursor after = InboxCursor.decode(cursor);
+        int pageSize = resolveInboxPageSize(limit);
+
+        // Jeden wiersz więcej - wiemy czy jest kolejna strona
+        List<InboxRow> rows = matchRepository.findInbox(currentUser.getId(),
+                after != null ? after.lastActivityAt() : null,
+                after != null ? after.matchId() : null,
+                pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<InboxRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        List<Long> profileIds = page.stream()
+                .map(InboxRow::matchedProfileId)
+                .filter(Objects::nonNull)
+                .toList();
+        Map<Long, ProfileResponse> profiles = profileService.loadCards(profileIds).stream()
+                .collect(Collectors.toMap(ProfileResponse::getId, Function.identity()));
+
+        List<InboxEntry> entries = new ArrayList<>(page.size());
+        for (InboxRow row : page) {
+            entries.add(InboxEntry.fromRow(row, row.matchedProfileId() != null ? profiles.get(row.matchedProfileId()) : null));
+        }
 
-        return matches.stream()
-                .map(match -> MatchResponse.fromEntity(match, currentUser.getId()))
-                .collect(Collectors.toList());
+        String nextCursor = null;
+        if (hasMore) {
+            InboxRow last = page.get(page.size() - 1);
+            nextCursor = new InboxCursor(last.lastActivityAt(), last.matchId()).encode();
+        }
+        return new InboxPageResponse(entries, nextCursor);
     }
 
     /**
@@ -67,6 +230,11 @@ public class MatchService {
      */
     public MatchResponse getMatchById(Long matchId) {
         User currentUser = getCurrentUser();
+        Match match = getMatchOf(matchId, currentUser);
+        return MatchResponse.fromEntity(match, currentUser.getId());
+    }
+
+    private Match getMatchOf(Long matchId, User currentUser) {
         Match match = matchRepository.findById(matchId)
                 .orElseThrow(() -> new ResourceNotFoundException("Match", "id", matchId));
 
@@ -75,8 +243,75 @@ public class MatchService {
                 !match.getUser2().getId().equals(currentUser.getId())) {
             throw new ResourceNotFoundException("Match not found or you don't have access");
         }
+        return match;
+    }
 
-        return MatchResponse.fromEntity(match, currentUser.getId());
+    // Wiersze matchy jednym zapytaniem, karty profili jedną paczką - bez leniwego ładowania per match
+    private List<MatchListCache.Snapshot> loadMatchList(Long userId) {
+        List<MatchRow> rows = matchRepository.findActiveMatchRows(userId);
+        Map<Long, ProfileResponse> cards = loadCards(rows.stream().map(row -> row.matchedProfileOf(userId)));
+
+        return rows.stream()
+                .map(row -> toSnapshot(row, userId, cards))
+                .toList();
+    }
+
+    /**
+     * Dopisuje match do list obu użytkowników w cache po commicie. Karty liczymy jeszcze
+     * w transakcji, tylko gdy któraś z list jest w cache; lista wczytana w międzyczasie
+     * (bez tego matcha) jest usuwana i wczyta się na nowo.
+     */
+    private void updateCachedListsAfterCommit(Long matchId, Long userId, Long otherUserId) {
+        if (!matchListCache.isCached(userId) && !matchListCache.isCached(otherUserId)) {
+            TransactionHooks.afterCommit(() -> {
+                matchListCache.evict(userId);
+                matchListCache.evict(otherUserId);
+            });
+            return;
+        }
+
+        MatchRow row = matchRepository.findMatchRow(matchId)
+                .orElseThrow(() -> new ResourceNotFoundException("Match", "id", matchId));
+        Map<Long, ProfileResponse> cards = loadCards(Stream.of(row.profile1Id(), row.profile2Id()));
+        MatchListCache.Snapshot forUser1 = toSnapshot(row, row.user1Id(), cards);
+        MatchListCache.Snapshot forUser2 = toSnapshot(row, row.user2Id(), cards);
+
+        TransactionHooks.afterCommit(() -> {
+            matchListCache.onMatchCreated(row.user1Id(), forUser1);
+            matchListCache.onMatchCreated(row.user2Id(), forUser2);
+        });
+    }
+
+    private Map<Long, ProfileResponse> loadCards(Stream<Long> profileIds) {
+        List<Long> ids = profileIds.filter(Objects::nonNull).distinct().toList();
+        return profileService.loadCards(ids).stream()
+                .collect(Collectors.toMap(ProfileResponse::getId, Function.identity()));
+    }
+
+    private static MatchListCache.Snapshot toSnapshot(MatchRow row, Long userId, Map<Long, ProfileResponse> cards) {
+        Long profileId = row.matchedProfileOf(userId);
+        ProfileResponse matchedUser = profileId != null ? cards.get(profileId) : null;
+        return new MatchListCache.Snapshot(row.matchedUserOf(userId),
+                new MatchResponse(row.matchId(), matchedUser, true, row.createdAt()));
+    }
+
+    private int resolveInboxPageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_INBOX_PAGE_SIZE;
+        }
+        if (limit < 1) {
+            throw new BadRequestException("Limit must be at least 1");
+        }
+        return Math.min(limit, MAX_INBOX_PAGE_SIZE);
+    }
+
+    // Id z tokenu (principal) - lista matchy z cache bez zapytania o encję użytkownika
+    private Long getCurrentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getId();
+        }
+        return getCurrentUser().getId();
     }
 
     private User getCurrentUser() {
@@ -1,22 +1,27 @@
 package com.beerfinder.service;
 
+import com.beerfinder.dto.MessagePageResponse;
 import com.beerfinder.dto.MessageRequest;
 import com.beerfinder.dto.MessageResponse;
 import com.beerfinder.entity.Match;
 import com.beerfinder.entity.Message;
 import com.beerfinder.entity.User;
+import com.beerfinder.event.DomainEventPublisher;
+import com.beerfinder.event.MessageSent;
 import com.beerfinder.exception.BadRequestException;
 import com.beerfinder.exception.ResourceNotFoundException;
 import com.beerfinder.repository.MatchRepository;
 import com.beerfinder.repository.MessageRepository;
 import com.beerfinder.repository.UserRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -25,17 +30,23 @@ public class MessageService {
     private final MessageRepository messageRepository;
     private final MatchRepository matchRepository;
     private final UserRepository userRepository;
+    private final DomainEventPublisher eventPublisher;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
 
     public MessageService(MessageRepository messageRepository,
                           MatchRepository matchRepository,
-                          UserRepository userRepository) {
+                          UserRepository userRepository,
+                          DomainEventPublisher eventPublisher) {
         this.messageRepository = messageRepository;
         this.matchRepository = matchRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Wysyła wiadomość w ramach matcha
+     * Wysyła wiadomość w ramach matcha. Subskrybenci WebSocket dostają ją ze zdarzenia MessageSent.
      */
     public MessageResponse sendMessage(MessageRequest request) {
         User currentUser = getCurrentUser();
@@ -63,13 +74,23 @@ public class MessageService {
         message.setIsRead(false);
 
         Message savedMessage = messageRepository.save(message);
-        return MessageResponse.fromEntity(savedMessage);
+        MessageResponse response = MessageResponse.fromEntity(savedMessage);
+
+        eventPublisher.publish(new MessageSent(response.getId(), response.getMatchId(), response.getSenderId(),
+                response.getSenderName(), response.getContent(), response.getCreatedAt()));
+        return response;
     }
 
     /**
-     * Pobiera historię chatu dla danego matcha
+     * Pobiera stronę historii chatu: najnowsze wiadomości starsze niż before, zwrócone chronologicznie.
+     * Koszt nie zależy od długości rozmowy - zapytanie keyset po (match_id, id). Tylko odczyt -
+     * wiadomości oznacza się jako przeczytane przez {@link #markAsRead}.
+     *
+     * @param before Id wiadomości, od której szukać starszych (null - od najnowszej)
+     * @param limit  Rozmiar strony (domyślnie 50, maks. 200)
      */
-    public List<MessageResponse> getChatHistory(Long matchId) {
+    @Transactional(readOnly = true)
+    public MessagePageResponse getChatHistory(Long matchId, Long before, Integer limit) {
         User currentUser = getCurrentUser();
 
         // Znajdź match
@@ -82,18 +103,41 @@ public class MessageService {
             throw new BadRequestException("You are not part of this match");
         }
 
-        // Pobierz wszystkie wiadomości
-        List<Message> messages = messageRepository.findByMatchOrderByCreatedAtAsc(match);
+        int pageSize = resolvePageSize(limit);
 
-        // Oznacz wiadomości jako przeczytane (tylko te nie wysłane przez current user)
-        messages.stream()
-                .filter(msg -> !msg.getSender().getId().equals(currentUser.getId()))
-                .filter(msg -> !msg.getIsRead())
-                .forEach(msg -> msg.setIsRead(true));
+        // Jeden wiersz więcej - wiemy czy są starsze wiadomości
+        List<Message> newestFirst = messageRepository.findPageBefore(
+                match, before != null ? before : Long.MAX_VALUE, Limit.of(pageSize + 1));
+        boolean hasMore = newestFirst.size() > pageSize;
+        List<Message> page = new ArrayList<>(hasMore ? newestFirst.subList(0, pageSize) : newestFirst);
+        Collections.reverse(page);
 
-        return messages.stream()
+        List<MessageResponse> messages = page.stream()
                 .map(MessageResponse::fromEntity)
-                .collect(Collectors.toList());
+                .toList();
+        Long nextBefore = hasMore ? page.get(0).getId() : null;
+        return new MessagePageResponse(messages, nextBefore);
+    }
+
+    /**
+     * Oznacza jako przeczytane wszystkie wiadomości od drugiej osoby w matchu - jeden UPDATE
+     * zamiast ładowania encji i zapisu każdej z osobna
+     *
+     * @return Liczba oznaczonych wiadomości
+     */
+    public int markAsRead(Long matchId) {
+        User currentUser = getCurrentUser();
+
+        Match match = matchRepository.findById(matchId)
+                .orElseThrow(() -> new ResourceNotFoundException("Match", "id", matchId));
+
+        // Sprawdź czy current user jest częścią tego matcha
+        if (!match.getUser1().getId().equals(currentUser.getId()) &&
+                !match.getUser2().getId().equals(currentUser.getId())) {
+            throw new BadRequestException("You are not part of this match");
+        }
+
+        return messageRepository.markReadByRecipient(matchId, currentUser.getId());
     }
 
     /**
@@ -108,6 +152,16 @@ public class MessageService {
         return messageRepository.countByMatchAndSenderIdNotAndIsReadFalse(match, currentUser.getId());
     }
 
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1) {
+            throw new BadRequestException("Limit must be at least 1");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
     private User getCurrentUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || !auth.isAuthenticated()) {
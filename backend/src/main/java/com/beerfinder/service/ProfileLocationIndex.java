@@ -0,0 +1,231 @@
+package com.beerfinder.service;
+
+import com.beerfinder.repository.ProfileRepository;
+import com.beerfinder.util.GeoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory grid index over profile coordinates.
+ *
+ * The globe is split into fixed {@value #CELL_SIZE_DEG}° cells. A radius query only visits
+ * the cells overlapping the radius' bounding box, so its cost depends on local density
+ * instead of the total number of profiles. The index is warmed from the database on
+ * startup and kept current by {@link ProfileService#updateMyProfile}. Each entry also keeps the
+ * profile's age, so age filters are applied before any distance is computed.
+ *
+ * The index lives in a single JVM - every instance keeps its own copy. When it is disabled
+ * (or not warmed yet) discover falls back to the bounding-box query in the database.
+ */
+@Component
+public class ProfileLocationIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProfileLocationIndex.class);
+
+    static final double CELL_SIZE_DEG = 0.1; // ~11 km wzdłuż południka
+    private static final int LAT_CELLS = (int) Math.ceil(180 / CELL_SIZE_DEG);
+    private static final int LON_CELLS = (int) Math.ceil(360 / CELL_SIZE_DEG);
+
+    private final ProfileRepository profileRepository;
+
+    @Value("${discover.geo-index.enabled:true}")
+    private boolean enabled = true;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Long>> cells = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+
+    public ProfileLocationIndex(ProfileRepository profileRepository) {
+        this.profileRepository = profileRepository;
+    }
+
+    /**
+     * Profile found within the queried radius together with its exact distance
+     */
+    public record Nearby(Long profileId, Long userId, double distanceKm) {
+    }
+
+    // Współrzędne trzymamy w radianach - gotowe do obliczeń wsadowych w GeoUtils
+    private record Entry(Long profileId, Long userId, Integer age, double latRad, double lonRad, int cell) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+
+        List<Object[]> locations = profileRepository.findAllLocations();
+        for (Object[] row : locations) {
+            update((Long) row[0], (Long) row[1], (Integer) row[4], (Double) row[2], (Double) row[3]);
+        }
+        ready = true;
+        log.info("Profile location index warmed with {} profiles", entries.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Insert, move or remove (when coordinates are missing) a profile
+     */
+    public synchronized void update(Long profileId, Long userId, Integer age, Double latitude, Double longitude) {
+        if (!enabled || profileId == null) {
+            return;
+        }
+
+        if (latitude == null || longitude == null) {
+            remove(profileId);
+            return;
+        }
+
+        int cell = cellOf(latitude, longitude);
+        Entry previous = entries.put(profileId, new Entry(profileId, userId, age,
+                Math.toRadians(latitude), Math.toRadians(longitude), cell));
+
+        if (previous != null && previous.cell() != cell) {
+            removeFromCell(previous.cell(), profileId);
+        }
+        cells.computeIfAbsent(cell, key -> ConcurrentHashMap.newKeySet()).add(profileId);
+    }
+
+    public synchronized void remove(Long profileId) {
+        Entry previous = entries.remove(profileId);
+        if (previous != null) {
+            removeFromCell(previous.cell(), profileId);
+        }
+    }
+
+    /**
+     * Find all indexed profiles within radiusKm of the given point
+     *
+     * @param latitude  Latitude of the origin
+     * @param longitude Longitude of the origin
+     * @param radiusKm  Radius in kilometers
+     * @return Profiles within the radius, in no particular order
+     */
+    public List<Nearby> findWithinRadius(double latitude, double longitude, double radiusKm) {
+        return findWithinRadius(latitude, longitude, radiusKm, null, null);
+    }
+
+    /**
+     * Find indexed profiles within radiusKm of the given point whose age lies in [minAge, maxAge].
+     * A profile without age never matches an age bound, as in the discover queries.
+     *
+     * @param minAge Minimum age (optional)
+     * @param maxAge Maximum age (optional)
+     */
+    public List<Nearby> findWithinRadius(double latitude, double longitude, double radiusKm,
+                                         Integer minAge, Integer maxAge) {
+        List<Entry> candidates = new ArrayList<>();
+        for (Set<Long> cell : cellsOverlapping(latitude, longitude, radiusKm)) {
+            for (Long profileId : cell) {
+                Entry entry = entries.get(profileId);
+                if (entry != null && isInAgeRange(entry.age(), minAge, maxAge)) {
+                    candidates.add(entry);
+                }
+            }
+        }
+
+        int count = candidates.size();
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = candidates.get(i).latRad();
+            lons[i] = candidates.get(i).lonRad();
+        }
+
+        GeoUtils.Origin origin = GeoUtils.Origin.of(latitude, longitude);
+        int[] hits = new int[count];
+        int found = GeoUtils.withinRadius(origin, lats, lons, count, radiusKm, hits);
+
+        // Dokładną odległość liczymy tylko dla profili w zasięgu
+        for (int i = 0; i < found; i++) {
+            lats[i] = lats[hits[i]];
+            lons[i] = lons[hits[i]];
+        }
+        double[] distances = new double[found];
+        GeoUtils.distances(origin, lats, lons, found, distances);
+
+        List<Nearby> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            Entry entry = candidates.get(hits[i]);
+            result.add(new Nearby(entry.profileId(), entry.userId(), distances[i]));
+        }
+        return result;
+    }
+
+    private List<Set<Long>> cellsOverlapping(double latitude, double longitude, double radiusKm) {
+        GeoUtils.BoundingBox box = GeoUtils.boundingBox(latitude, longitude, radiusKm);
+
+        int minLatIdx = latIndex(box.minLat());
+        int maxLatIdx = latIndex(box.maxLat());
+        // Pełny zakres długości (biegun lub antypołudnik) - wszystkie kolumny komórek
+        boolean allLongitudes = box.maxLon() - box.minLon() >= 360;
+        int firstLonIdx = allLongitudes ? 0 : lonIndex(box.minLon());
+        int lonCellCount = allLongitudes
+                ? LON_CELLS
+                : (lonIndex(box.maxLon()) - firstLonIdx + LON_CELLS) % LON_CELLS + 1;
+
+        // Przy dużym promieniu taniej przejrzeć tylko niepuste komórki
+        long cellCount = (long) (maxLatIdx - minLatIdx + 1) * lonCellCount;
+        if (cellCount >= cells.size()) {
+            return new ArrayList<>(cells.values());
+        }
+
+        List<Set<Long>> result = new ArrayList<>();
+        for (int latIdx = minLatIdx; latIdx <= maxLatIdx; latIdx++) {
+            for (int i = 0; i < lonCellCount; i++) {
+                int lonIdx = (firstLonIdx + i) % LON_CELLS;
+                Set<Long> cell = cells.get(latIdx * LON_CELLS + lonIdx);
+                if (cell != null) {
+                    result.add(cell);
+                }
+            }
+        }
+        return result;
+    }
+
+    static boolean isInAgeRange(Integer age, Integer minAge, Integer maxAge) {
+        if (minAge != null && (age == null || age < minAge)) {
+            return false;
+        }
+        return maxAge == null || (age != null && age <= maxAge);
+    }
+
+    private void removeFromCell(int cell, Long profileId) {
+        cells.computeIfPresent(cell, (key, members) -> {
+            members.remove(profileId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private static int cellOf(double latitude, double longitude) {
+        return latIndex(latitude) * LON_CELLS + lonIndex(longitude);
+    }
+
+    private static int latIndex(double latitude) {
+        return Math.min(LAT_CELLS - 1, (int) Math.floor((latitude + 90) / CELL_SIZE_DEG));
+    }
+
+    private static int lonIndex(double longitude) {
+        // Normalizacja do [-180, 180) obsługuje zawijanie na antypołudniku
+        double normalized = ((longitude + 180) % 360 + 360) % 360;
+        return Math.min(LON_CELLS - 1, (int) Math.floor(normalized / CELL_SIZE_DEG));
+    }
+}
@@ -1,21 +1,41 @@
 package com.beerfinder.service;
 
+import com.beerfinder.dto.DiscoverCandidate;
+import com.beerfinder.dto.DiscoverPageResponse;
+import com.beerfinder.dto.DiscoverSort;
+import com.beerfinder.dto.ProfileCard;
 import com.beerfinder.dto.ProfileResponse;
 import com.beerfinder.dto.UpdateProfileRequest;
 import com.beerfinder.entity.Profile;
 import com.beerfinder.entity.User;
+import com.beerfinder.exception.BadRequestException;
 import com.beerfinder.exception.ResourceNotFoundException;
 import com.beerfinder.exception.UnauthorizedException;
+import com.beerfinder.repository.MatchRepository;
 import com.beerfinder.repository.ProfileRepository;
 import com.beerfinder.repository.UserRepository;
+import com.beerfinder.util.DiscoverCursor;
 import com.beerfinder.util.GeoUtils;
+import com.beerfinder.util.TransactionHooks;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,13 +45,49 @@ public class ProfileService {
     private final ProfileRepository profileRepository;
     private final UserRepository userRepository;
     private final CloudinaryService cloudinaryService;
+    private final ProfileLocationIndex locationIndex;
+    private final DiscoverDeckService deckService;
+    private final SwipedUsersCache swipedUsers;
+    private final InterestDictionary interestDictionary;
+    private final DiscoverCandidateCache candidateCache;
+    private final MatchListCache matchListCache;
+    private final MatchRepository matchRepository;
+
+    // Maksymalna liczba id w jednej klauzuli IN
+    private static final int ID_BATCH_SIZE = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    // Tyle porcji odsiewamy w pamięci, potem przesuniętych wyklucza już baza
+    private static final int MAX_UNSWIPED_CHUNKS = 3;
+    // Połowa obwodu Ziemi - sortowanie po odległości bez limitu obejmuje cały glob
+    private static final double MAX_SEARCH_RADIUS_KM = 20_016;
+    private static final Comparator<ProfileLocationIndex.Nearby> NEAREST_FIRST =
+            Comparator.comparingDouble(ProfileLocationIndex.Nearby::distanceKm)
+                    .thenComparingLong(ProfileLocationIndex.Nearby::profileId);
+    private static final Comparator<InterestDictionary.Match> MOST_SHARED_FIRST =
+            Comparator.comparingInt(InterestDictionary.Match::sharedInterests).reversed()
+                    .thenComparingLong(InterestDictionary.Match::profileId);
 
     public ProfileService(ProfileRepository profileRepository,
                           UserRepository userRepository,
-                          CloudinaryService cloudinaryService) {
+                          CloudinaryService cloudinaryService,
+                          ProfileLocationIndex locationIndex,
+                          DiscoverDeckService deckService,
+                          SwipedUsersCache swipedUsers,
+                          InterestDictionary interestDictionary,
+                          DiscoverCandidateCache candidateCache,
+                          MatchListCache matchListCache,
+                          MatchRepository matchRepository) {
         this.profileRepository = profileRepository;
         this.userRepository = userRepository;
         this.cloudinaryService = cloudinaryService;
+        this.locationIndex = locationIndex;
+        this.deckService = deckService;
+        this.swipedUsers = swipedUsers;
+        this.interestDictionary = interestDictionary;
+        this.candidateCache = candidateCache;
+        this.matchListCache = matchListCache;
+        this.matchRepository = matchRepository;
     }
 
     public ProfileResponse getMyProfile() {
@@ -48,6 +104,8 @@ public class ProfileService {
 
         Profile profile = profileRepository.findByUser(currentUser)
                 .orElseThrow(() -> new ResourceNotFoundException("Profile not found for current user"));
+        DiscoverCandidateCache.FilterFields previous = new DiscoverCandidateCache.FilterFields(
+                profile.getAge(), profile.getLatitude(), profile.getLongitude());
 
         profile.setName(request.getName());
         profile.setAge(request.getAge());
@@ -59,63 +117,397 @@ public class ProfileService {
         profile.setProfilePhoto(request.getProfilePhoto());
 
         Profile saved = profileRepository.save(profile);
-        return ProfileResponse.fromEntity(saved);
+        // Indeksy w pamięci dopiero po commicie - wycofana zmiana nie może w nich zostać
+        Long userId = currentUser.getId();
+        TransactionHooks.afterCommit(() -> {
+            locationIndex.update(saved.getId(), userId, saved.getAge(), saved.getLatitude(), saved.getLongitude());
+            interestDictionary.update(saved.getId(), userId, saved.getAge(), saved.getInterests());
+            candidateCache.onProfileChanged(userId, saved.getId(), previous, new DiscoverCandidateCache.FilterFields(
+                    saved.getAge(), saved.getLatitude(), saved.getLongitude()));
+        });
+        ProfileResponse response = ProfileResponse.fromEntity(saved);
+        TransactionHooks.afterCommit(() -> onProfileChanged(userId, response));
+        return response;
     }
 
-    public List<ProfileResponse> discoverProfiles() {
+    /**
+     * Discover profiles page by page (keyset pagination on profile id)
+     *
+     * @param minAge      Minimum age filter (optional)
+     * @param maxAge      Maximum age filter (optional)
+     * @param maxDistance Maximum distance in km (optional)
+     * @param sort        Ordering of the results
+     * @param cursor      Cursor returned with the previous page (optional)
+     * @param limit       Page size (optional, default 20, max 100)
+     * @return Page of profiles and the cursor of the next page
+     */
+    public DiscoverPageResponse discoverProfiles(Integer minAge, Integer maxAge, Integer maxDistance,
+                                                 DiscoverSort sort, String cursor, Integer limit) {
         User currentUser = getCurrentUser();
+        Profile currentUserProfile = currentUser.getProfile();
 
-        List<Profile> profiles = profileRepository.findDiscoverProfiles(currentUser);
+        int pageSize = resolvePageSize(limit);
+        DiscoverCursor after = DiscoverCursor.decode(cursor);
+        long afterId = after != null ? after.lastId() : 0L;
+
+        if (sort == DiscoverSort.DISTANCE) {
+            return discoverByDistance(currentUser, minAge, maxAge, maxDistance, after, pageSize);
+        }
+        // Dopóki słownik się nie rozgrzeje, zwracamy zwykłą kolejność
+        if (sort == DiscoverSort.INTERESTS && interestDictionary.isReady()) {
+            return discoverByInterests(currentUser, minAge, maxAge, maxDistance, after, pageSize);
+        }
+
+        // Pobieramy jeden profil więcej, żeby wiedzieć czy istnieje następna strona
+        int fetchSize = pageSize + 1;
+        boolean hasLocation = currentUserProfile.getLatitude() != null && currentUserProfile.getLongitude() != null;
+        // Bez lokalizacji użytkownika filtr odległości nie jest stosowany
+        Integer distanceFilter = hasLocation ? maxDistance : null;
+
+        // Talia i cache dowiadują się o swipe'ach ze zdarzeń z outboxa - do tego czasu odsiewa je bitmapa
+        LongPredicate swiped = swipedUsers.swipedBy(currentUser.getId());
+
+        List<Long> ids;
+        if (minAge == null && maxAge == null && distanceFilter == null) {
+            // Bez filtrów czytamy z przygotowanej talii zamiast odpytywać bazę o nieprzesunięte profile
+            Optional<List<Long>> deckIds = deckService.peek(currentUser.getId(), afterId, fetchSize, swiped);
+            ids = deckIds.isPresent()
+                    ? deckIds.get()
+                    : profileIds(findFilteredProfiles(currentUser, minAge, maxAge, null, afterId, fetchSize));
+        } else {
+            // Początek listy kandydatów dla danego zestawu filtrów trzymamy w cache
+            Optional<List<Long>> cachedIds = candidateCache.page(
+                    currentUser.getId(),
+                    new DiscoverCandidateCache.Filters(minAge, maxAge, distanceFilter),
+                    currentUserProfile.getLatitude(),
+                    currentUserProfile.getLongitude(),
+                    afterId,
+                    fetchSize,
+                    swiped,
+                    () -> findFilteredProfiles(currentUser, minAge, maxAge, distanceFilter, 0L, candidateCache.capacity())
+            );
+            ids = cachedIds.isPresent()
+                    ? cachedIds.get()
+                    : profileIds(findFilteredProfiles(currentUser, minAge, maxAge, distanceFilter, afterId, fetchSize));
+        }
+
+        GeoUtils.Origin origin = hasLocation
+                ? GeoUtils.Origin.of(currentUserProfile.getLatitude(), currentUserProfile.getLongitude())
+                : null;
+        return toPage(ids, pageSize,
+                response -> response.setDistanceKm(distanceTo(origin, response)),
+                response -> response.getId());
+    }
 
-        return profiles.stream()
-                .map(ProfileResponse::fromEntity)
+    /**
+     * Discover posortowany po odległości - najbliżsi najpierw.
+     * Kursor to para (odległość, id) ostatniego zwróconego profilu.
+     */
+    private DiscoverPageResponse discoverByDistance(User currentUser, Integer minAge, Integer maxAge,
+                                                    Integer maxDistance, DiscoverCursor after, int pageSize) {
+        Profile currentUserProfile = currentUser.getProfile();
+        if (currentUserProfile.getLatitude() == null || currentUserProfile.getLongitude() == null) {
+            throw new BadRequestException("Location is required to sort by distance");
+        }
+
+        double radiusKm = maxDistance != null ? maxDistance : MAX_SEARCH_RADIUS_KM;
+        LongPredicate swiped = swipedUsers.swipedBy(currentUser.getId());
+        List<ProfileLocationIndex.Nearby> candidates = findNearbyCandidates(currentUser, minAge, maxAge, radiusKm).stream()
+                .filter(nearby -> !nearby.userId().equals(currentUser.getId()) && !swiped.test(nearby.userId()))
                 .toList();
+
+        ProfileLocationIndex.Nearby from = after != null
+                ? new ProfileLocationIndex.Nearby(after.lastId(), null, after.sortKey())
+                : null;
+        Map<Long, ProfileLocationIndex.Nearby> ranks = new HashMap<>();
+        List<Long> ids = selectRanked(pageSize + 1, candidates, NEAREST_FIRST, from,
+                ProfileLocationIndex.Nearby::profileId, ranks);
+
+        return toPage(ids, pageSize,
+                response -> response.setDistanceKm(ranks.get(response.getId()).distanceKm()),
+                ProfileResponse::getDistanceKm);
     }
 
     /**
-     * Discover profiles with filters (age, distance)
+     * Discover posortowany po liczbie wspólnych zainteresowań (popcount AND bitsetów ze słownika).
+     * Filtr odległości zawęża kandydatów do profili w zasięgu. Kursor to para (liczba wspólnych, id).
+     */
+    private DiscoverPageResponse discoverByInterests(User currentUser, Integer minAge, Integer maxAge,
+                                                     Integer maxDistance, DiscoverCursor after, int pageSize) {
+        Profile currentUserProfile = currentUser.getProfile();
+        boolean hasLocation = currentUserProfile.getLatitude() != null && currentUserProfile.getLongitude() != null;
+
+        Map<Long, Double> distances = null;
+        if (maxDistance != null && hasLocation) {
+            distances = new HashMap<>();
+            for (ProfileLocationIndex.Nearby nearby : findNearbyCandidates(currentUser, minAge, maxAge, maxDistance)) {
+                distances.put(nearby.profileId(), nearby.distanceKm());
+            }
+        }
+        Map<Long, Double> inRange = distances;
+
+        LongPredicate swiped = swipedUsers.swipedBy(currentUser.getId());
+        long[] viewerBits = interestDictionary.encode(currentUserProfile.getInterests());
+        List<InterestDictionary.Match> candidates = interestDictionary.score(viewerBits, minAge, maxAge).stream()
+                .filter(match -> !match.userId().equals(currentUser.getId()) && !swiped.test(match.userId()))
+                .filter(match -> inRange == null || inRange.containsKey(match.profileId()))
+                .toList();
+
+        InterestDictionary.Match from = after != null
+                ? new InterestDictionary.Match(after.lastId(), null, (int) after.sortKey())
+                : null;
+        Map<Long, InterestDictionary.Match> ranks = new HashMap<>();
+        List<Long> ids = selectRanked(pageSize + 1, candidates, MOST_SHARED_FIRST, from,
+                InterestDictionary.Match::profileId, ranks);
+
+        GeoUtils.Origin origin = hasLocation
+                ? GeoUtils.Origin.of(currentUserProfile.getLatitude(), currentUserProfile.getLongitude())
+                : null;
+        return toPage(ids, pageSize, response -> {
+            response.setDistanceKm(distanceTo(origin, response));
+            response.setSharedInterests(ranks.get(response.getId()).sharedInterests());
+        }, response -> response.getSharedInterests());
+    }
+
+    /**
+     * Wybiera id profili w kolejności rankingu, zaczynając za kursorem. Kandydaci są już przefiltrowani
+     * (wiek, odległość, przesunięci), więc wystarcza jedno przejście kopca ograniczonego do K
+     * (O(n log K)) - pełna lista nigdy nie jest sortowana.
      *
-     * @param minAge      Minimum age filter (optional)
-     * @param maxAge      Maximum age filter (optional)
-     * @param maxDistance Maximum distance in km (optional)
-     * @return List of filtered profiles
+     * @param ranks Uzupełniane pozycją rankingu każdego zwróconego profilu
      */
-    public List<ProfileResponse> discoverProfilesWithFilters(Integer minAge, Integer maxAge, Integer maxDistance) {
-        User currentUser = getCurrentUser();
+    private static <T> List<Long> selectRanked(int limit, List<T> candidates, Comparator<T> order, T from,
+                                               Function<T, Long> profileIdOf, Map<Long, T> ranks) {
+        List<Long> selected = new ArrayList<>(limit);
+        for (T rank : topAfter(candidates, order, from, limit)) {
+            Long profileId = profileIdOf.apply(rank);
+            selected.add(profileId);
+            ranks.put(profileId, rank);
+        }
+        return selected;
+    }
+
+    /**
+     * K pierwszych kandydatów (wg order) za kursorem, posortowanych.
+     * Kopiec z odwróconym porządkiem trzyma K najlepszych - każdy kolejny kandydat kosztuje O(log K).
+     */
+    private static <T> List<T> topAfter(List<T> candidates, Comparator<T> order, T from, int k) {
+        PriorityQueue<T> heap = new PriorityQueue<>(k + 1, order.reversed());
+
+        for (T candidate : candidates) {
+            if (from != null && order.compare(candidate, from) <= 0) {
+                continue;
+            }
+            if (heap.size() < k) {
+                heap.add(candidate);
+            } else if (order.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+
+        List<T> top = new ArrayList<>(heap);
+        top.sort(order);
+        return top;
+    }
+
+    private List<ProfileLocationIndex.Nearby> findNearbyCandidates(User currentUser, Integer minAge, Integer maxAge,
+                                                                   double radiusKm) {
+        Profile currentUserProfile = currentUser.getProfile();
+        double lat = currentUserProfile.getLatitude();
+        double lon = currentUserProfile.getLongitude();
+
+        if (locationIndex.isReady()) {
+            return locationIndex.findWithinRadius(lat, lon, radiusKm, minAge, maxAge);
+        }
+
+        // Bez indeksu pobieramy z bazy same współrzędne kandydatów z prostokąta i liczymy odległości wsadowo
+        GeoUtils.BoundingBox box = GeoUtils.boundingBox(lat, lon, radiusKm);
+        List<Object[]> rows = profileRepository.findDiscoverCandidateLocations(
+                currentUser, minAge, maxAge, box.minLat(), box.maxLat(), box.minLon(), box.maxLon());
+
+        int count = rows.size();
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = Math.toRadians((Double) rows.get(i)[2]);
+            lons[i] = Math.toRadians((Double) rows.get(i)[3]);
+        }
+
+        GeoUtils.Origin origin = GeoUtils.Origin.of(lat, lon);
+        int[] hits = new int[count];
+        int found = GeoUtils.withinRadius(origin, lats, lons, count, radiusKm, hits);
+
+        List<ProfileLocationIndex.Nearby> result = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            Object[] row = rows.get(hits[i]);
+            double distance = GeoUtils.distance(origin, lats[hits[i]], lons[hits[i]]);
+            result.add(new ProfileLocationIndex.Nearby((Long) row[0], (Long) row[1], distance));
+        }
+        return result;
+    }
+
+    /**
+     * Kolejne nieprzesunięte profile (keyset po id) spełniające filtry wieku i odległości
+     */
+    private List<DiscoverCandidate> findFilteredProfiles(User currentUser, Integer minAge, Integer maxAge,
+                                                         Integer maxDistance, long afterId, int limit) {
         Profile currentUserProfile = currentUser.getProfile();
 
+        if (maxDistance != null && locationIndex.isReady()) {
+            // Indeks zwraca tylko profile z komórek w zasięgu - nie skanujemy wszystkich,
+            // a przesuniętych odrzucamy jeszcze przed zapytaniem do bazy
+            LongPredicate swiped = swipedUsers.swipedBy(currentUser.getId());
+            List<Long> nearbyIds = locationIndex.findWithinRadius(
+                            currentUserProfile.getLatitude(),
+                            currentUserProfile.getLongitude(),
+                            maxDistance
+                    ).stream()
+                    .filter(nearby -> nearby.profileId() > afterId)
+                    .filter(nearby -> !swiped.test(nearby.userId()))
+                    .map(ProfileLocationIndex.Nearby::profileId)
+                    .sorted()
+                    .toList();
+
+            return findDiscoverProfilesByIds(currentUser, nearbyIds, minAge, maxAge, afterId, limit);
+        }
+
+        if (maxDistance != null) {
+            // Bez indeksu filtr odległości liczy baza - do aplikacji trafiają tylko profile w zasięgu
+            double lat = currentUserProfile.getLatitude();
+            double lon = currentUserProfile.getLongitude();
+            GeoUtils.BoundingBox box = GeoUtils.boundingBox(lat, lon, maxDistance);
+
+            return findUnswiped(currentUser, afterId, limit,
+                    (from, chunk) -> profileRepository.findDiscoverCandidatesWithinRadius(
+                            currentUser, minAge, maxAge, lat, lon, maxDistance,
+                            box.minLat(), box.maxLat(), box.minLon(), box.maxLon(), from, chunk),
+                    (from, chunk) -> profileRepository.findUnswipedCandidatesWithinRadius(
+                            currentUser, minAge, maxAge, lat, lon, maxDistance,
+                            box.minLat(), box.maxLat(), box.minLon(), box.maxLon(), from, chunk));
+        }
+
         // Pobierz profile z filtrem wieku
-        List<Profile> profiles = profileRepository.findDiscoverProfilesWithFilters(
-                currentUser,
-                minAge,
-                maxAge
-        );
-
-        // Jeśli jest filtr odległości, zastosuj go
-        if (maxDistance != null && currentUserProfile.getLatitude() != null && currentUserProfile.getLongitude() != null) {
-            profiles = profiles.stream()
-                    .filter(profile -> {
-                        // Jeśli profil nie ma lokalizacji, pomiń go
-                        if (profile.getLatitude() == null || profile.getLongitude() == null) {
-                            return false;
-                        }
-
-                        // Oblicz dystans
-                        double distance = GeoUtils.calculateDistance(
-                                currentUserProfile.getLatitude(),
-                                currentUserProfile.getLongitude(),
-                                profile.getLatitude(),
-                                profile.getLongitude()
-                        );
-
-                        return distance <= maxDistance;
-                    })
-                    .collect(Collectors.toList());
-        }
-
-        return profiles.stream()
-                .map(ProfileResponse::fromEntity)
-                .collect(Collectors.toList());
+        return findUnswiped(currentUser, afterId, limit,
+                (from, chunk) -> profileRepository.findDiscoverCandidatesAfter(currentUser, minAge, maxAge, from, chunk),
+                (from, chunk) -> profileRepository.findUnswipedCandidatesAfter(currentUser, minAge, maxAge, from, chunk));
+    }
+
+    /**
+     * Czyta kolejne porcje (keyset po id, co najmniej {@value #ID_BATCH_SIZE} wierszy) i pomija już
+     * przesuniętych użytkowników, aż zbierze limit. Gdy przesunięcia pokrywają {@value #MAX_UNSWIPED_CHUNKS}
+     * pełne porcje z rzędu, dalej czyta zapytaniem wykluczającym przesuniętych w bazie - bitmapa odsiewa
+     * wtedy już tylko zarchiwizowane i buforowane PASS-y. Porcja niepełna oznacza koniec wyników w bazie.
+     */
+    private List<DiscoverCandidate> findUnswiped(User currentUser, long afterId, int limit,
+                                                 BiFunction<Long, Limit, List<DiscoverCandidate>> chunkAfter,
+                                                 BiFunction<Long, Limit, List<DiscoverCandidate>> unswipedChunkAfter) {
+        LongPredicate swiped = swipedUsers.swipedBy(currentUser.getId());
+        List<DiscoverCandidate> result = new ArrayList<>(limit);
+        int chunkSize = Math.max(limit, ID_BATCH_SIZE);
+        long from = afterId;
+        int chunks = 0;
+
+        while (result.size() < limit) {
+            List<DiscoverCandidate> chunk = chunks < MAX_UNSWIPED_CHUNKS
+                    ? chunkAfter.apply(from, Limit.of(chunkSize))
+                    : unswipedChunkAfter.apply(from, Limit.of(chunkSize));
+            chunks++;
+
+            for (DiscoverCandidate candidate : chunk) {
+                if (result.size() == limit) {
+                    break;
+                }
+                if (!swiped.test(candidate.userId())) {
+                    result.add(candidate);
+                }
+            }
+
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+            from = chunk.get(chunk.size() - 1).profileId();
+        }
+        return result;
+    }
+
+    private List<DiscoverCandidate> findDiscoverProfilesByIds(User currentUser, List<Long> sortedIds,
+                                                              Integer minAge, Integer maxAge, long afterId, int limit) {
+        List<DiscoverCandidate> result = new ArrayList<>();
+        for (int from = 0; from < sortedIds.size() && result.size() < limit; from += ID_BATCH_SIZE) {
+            List<Long> batch = sortedIds.subList(from, Math.min(sortedIds.size(), from + ID_BATCH_SIZE));
+            result.addAll(profileRepository.findDiscoverCandidatesByIds(
+                    currentUser, batch, minAge, maxAge, afterId, Limit.of(limit - result.size())));
+        }
+        return result;
+    }
+
+    private static List<Long> profileIds(List<DiscoverCandidate> candidates) {
+        return candidates.stream().map(DiscoverCandidate::profileId).toList();
+    }
+
+    /**
+     * Karty profili w kolejności podanych id. Zawsze dwa zapytania (pola karty + zainteresowania
+     * całej strony), niezależnie od rozmiaru strony - bez hydracji encji i leniwych kolekcji.
+     */
+    public List<ProfileResponse> loadCards(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, ProfileCard> cards = profileRepository.findDiscoverCards(ids).stream()
+                .collect(Collectors.toMap(ProfileCard::id, Function.identity()));
+        Map<Long, List<String>> interests = new HashMap<>();
+        for (Object[] row : profileRepository.findInterestsByProfileIds(ids)) {
+            interests.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        List<ProfileResponse> responses = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProfileCard card = cards.get(id);
+            if (card != null) {
+                responses.add(ProfileResponse.fromCard(card, interests.getOrDefault(id, new ArrayList<>())));
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Buduje stronę wyników; kursor następnej strony to klucz sortowania i id ostatniego profilu
+     */
+    private DiscoverPageResponse toPage(List<Long> ids, int pageSize,
+                                        Consumer<ProfileResponse> decorate,
+                                        ToDoubleFunction<ProfileResponse> sortKeyOf) {
+        boolean hasMore = ids.size() > pageSize;
+        List<Long> page = hasMore ? ids.subList(0, pageSize) : ids;
+
+        List<ProfileResponse> responses = loadCards(page);
+        responses.forEach(decorate);
+
+        String nextCursor = null;
+        if (hasMore && !responses.isEmpty()) {
+            ProfileResponse last = responses.get(responses.size() - 1);
+            nextCursor = new DiscoverCursor(sortKeyOf.applyAsDouble(last), last.getId()).encode();
+        }
+
+        return new DiscoverPageResponse(responses, nextCursor);
+    }
+
+    private static Double distanceTo(GeoUtils.Origin origin, ProfileResponse profile) {
+        if (origin == null || profile.getLatitude() == null || profile.getLongitude() == null) {
+            return null;
+        }
+        return GeoUtils.distance(origin, Math.toRadians(profile.getLatitude()), Math.toRadians(profile.getLongitude()));
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1) {
+            throw new BadRequestException("Limit must be at least 1");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
     }
 
     /**
@@ -141,7 +533,9 @@ public class ProfileService {
         }
 
         profile.setProfilePhoto(photoUrl);
-        profileRepository.save(profile);
+        Profile saved = profileRepository.save(profile);
+        ProfileResponse response = ProfileResponse.fromEntity(saved);
+        TransactionHooks.afterCommit(() -> onProfileChanged(currentUser.getId(), response));
     }
 
     /**
@@ -161,7 +555,14 @@ public class ProfileService {
         }
 
         profile.setProfilePhoto(null);
-        profileRepository.save(profile);
+        Profile saved = profileRepository.save(profile);
+        ProfileResponse response = ProfileResponse.fromEntity(saved);
+        TransactionHooks.afterCommit(() -> onProfileChanged(currentUser.getId(), response));
+    }
+
+    // Karty w listach matchy partnerów - ich id z bazy tylko, gdy lista samego użytkownika nie jest w cache
+    private void onProfileChanged(Long userId, ProfileResponse profile) {
+        matchListCache.onProfileChanged(userId, profile, () -> matchRepository.findActiveMatchedUserIds(userId));
     }
 
     private User getCurrentUser() {
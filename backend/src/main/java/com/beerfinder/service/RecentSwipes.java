@@ -0,0 +1,116 @@
+package com.beerfinder.service;
+
+import com.beerfinder.entity.SwipeAction;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user ring buffer of the most recent swipes, used by undo.
+ *
+ * Each user keeps at most {@code depth} swipes; older ones are overwritten. Only swipes younger
+ * than {@code window} can be taken back, so a request outside the window (or after a restart)
+ * is answered from memory without touching the database. Rings of users who have not swiped
+ * within the window hold nothing undoable and expire.
+ */
+@Component
+public class RecentSwipes {
+
+    private final int depth;
+    private final long windowNanos;
+    private final LongSupplier clock;
+    private final Cache<Long, Ring> rings;
+
+    @Autowired
+    public RecentSwipes(@Value("${swipe.undo.depth:5}") int depth,
+                        @Value("${swipe.undo.window:60s}") Duration window,
+                        @Value("${swipe.undo.max-users:100000}") long maxUsers) {
+        this(depth, window, maxUsers, System::nanoTime);
+    }
+
+    RecentSwipes(int depth, Duration window, long maxUsers, LongSupplier clock) {
+        this.depth = depth;
+        this.windowNanos = window.toNanos();
+        this.clock = clock;
+        this.rings = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(window)
+                .build();
+    }
+
+    /**
+     * Committed (or buffered) swipe that can be undone
+     *
+     * @param swipeId      Id of the stored swipe, null while it waits in the write-behind buffer
+     * @param swipedUserId Swiped user
+     * @param action       LIKE or PASS
+     * @param matchId      Match created by this swipe, if any
+     * @param recordedAt   Clock reading when the swipe was recorded
+     */
+    public record Entry(Long swipeId, Long swipedUserId, SwipeAction action, Long matchId, long recordedAt) {
+    }
+
+    public void record(Long swiperId, Long swipeId, Long swipedUserId, SwipeAction action, Long matchId) {
+        Entry entry = new Entry(swipeId, swipedUserId, action, matchId, clock.getAsLong());
+        rings.get(swiperId, id -> new Ring(depth)).push(entry);
+    }
+
+    /**
+     * Take the latest swipe of the user if it is still inside the undo window
+     */
+    public Optional<Entry> popLatest(Long swiperId) {
+        Ring ring = rings.getIfPresent(swiperId);
+        if (ring == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(ring.pop(clock.getAsLong() - windowNanos));
+    }
+
+    /**
+     * Put back an entry taken by {@link #popLatest} whose undo did not go through
+     */
+    public void restore(Long swiperId, Entry entry) {
+        rings.get(swiperId, id -> new Ring(depth)).push(entry);
+    }
+
+    private static final class Ring {
+
+        private final Entry[] entries;
+        private int head;
+        private int size;
+
+        Ring(int capacity) {
+            this.entries = new Entry[capacity];
+        }
+
+        synchronized void push(Entry entry) {
+            head = (head + 1) % entries.length;
+            entries[head] = entry;
+            size = Math.min(size + 1, entries.length);
+        }
+
+        synchronized Entry pop(long notBefore) {
+            if (size == 0) {
+                return null;
+            }
+
+            Entry latest = entries[head];
+            if (latest.recordedAt() - notBefore < 0) {
+                // Najnowszy jest już poza oknem - starsze tym bardziej
+                size = 0;
+                return null;
+            }
+
+            entries[head] = null;
+            head = (head - 1 + entries.length) % entries.length;
+            size--;
+            return latest;
+        }
+    }
+}
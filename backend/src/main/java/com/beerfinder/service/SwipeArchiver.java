@@ -0,0 +1,162 @@
+package com.beerfinder.service;
+
+import com.beerfinder.config.AsyncConfig;
+import com.beerfinder.entity.SwipeArchive;
+import com.beerfinder.repository.SwipeArchiveRepository;
+import com.beerfinder.repository.SwipeRepository;
+import com.beerfinder.util.RoaringBitmaps;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Moves old PASS swipes out of the hot swipes table.
+ *
+ * Every {@code interval} PASS swipes older than {@code min-age} are merged into the swiper's row
+ * of swipe_archives (a compressed Roaring bitmap of passed user ids) and deleted from swipes.
+ * Work is split into transactions of at most {@code batch-size} swipes, so row locks are short
+ * and the job can stop between any two batches. {@link SwipedUsersCache} loads the archive
+ * together with the hot swipes, so discover keeps hiding archived users.
+ *
+ * LIKE swipes are never archived - match detection reads them from the hot table.
+ */
+@Component
+public class SwipeArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(SwipeArchiver.class);
+
+    private final SwipeRepository swipeRepository;
+    private final SwipeArchiveRepository archiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration interval;
+    private final Duration minAge;
+    private final int batchSize;
+
+    private final TaskScheduler scheduler;
+    private ScheduledFuture<?> schedule;
+
+    public SwipeArchiver(SwipeRepository swipeRepository,
+                         SwipeArchiveRepository archiveRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Qualifier(AsyncConfig.BACKGROUND_SCHEDULER) TaskScheduler scheduler,
+                         @Value("${swipe.archive.enabled:true}") boolean enabled,
+                         @Value("${swipe.archive.interval:1h}") Duration interval,
+                         @Value("${swipe.archive.min-age:30d}") Duration minAge,
+                         @Value("${swipe.archive.batch-size:1000}") int batchSize) {
+        this.swipeRepository = swipeRepository;
+        this.archiveRepository = archiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.scheduler = scheduler;
+        this.enabled = enabled;
+        this.interval = interval;
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        schedule = scheduler.scheduleWithFixedDelay(this::archiveQuietly, Instant.now().plus(interval), interval);
+    }
+
+    // Przerwanie kończy bieżące przejście między paczkami
+    @PreDestroy
+    public void stop() {
+        if (schedule != null) {
+            schedule.cancel(true);
+        }
+    }
+
+    /**
+     * Archive every PASS older than min-age, batch by batch
+     *
+     * @return Number of archived swipes
+     */
+    public int archive() {
+        LocalDateTime before = LocalDateTime.now().minus(minAge);
+
+        int archived = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            Integer moved = transactionTemplate.execute(status -> archiveBatch(before));
+            archived += moved == null ? 0 : moved;
+            if (moved == null || moved < batchSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("Archived {} PASS swipes older than {}", archived, before);
+        }
+        return archived;
+    }
+
+    private int archiveBatch(LocalDateTime before) {
+        List<Object[]> rows = swipeRepository.findArchivablePasses(before, Limit.of(batchSize));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> swipeIds = new ArrayList<>(rows.size());
+        Map<Long, Roaring64NavigableMap> passedBySwiper = new HashMap<>();
+        for (Object[] row : rows) {
+            swipeIds.add((Long) row[0]);
+            passedBySwiper.computeIfAbsent((Long) row[1], id -> new Roaring64NavigableMap()).addLong((Long) row[2]);
+        }
+
+        // Scalamy z istniejącymi archiwami - zablokowanymi do końca tej krótkiej transakcji
+        Map<Long, SwipeArchive> archives = new HashMap<>();
+        for (SwipeArchive archive : archiveRepository.findForUpdate(passedBySwiper.keySet())) {
+            archives.put(archive.getSwiperId(), archive);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<SwipeArchive> changed = new ArrayList<>(passedBySwiper.size());
+        passedBySwiper.forEach((swiperId, passed) -> {
+            SwipeArchive archive = archives.get(swiperId);
+            if (archive == null) {
+                archive = new SwipeArchive();
+                archive.setSwiperId(swiperId);
+            } else {
+                passed.or(RoaringBitmaps.fromBytes(archive.getPassedUserIds()));
+            }
+            archive.setPassedUserIds(RoaringBitmaps.toBytes(passed));
+            archive.setPassedCount(passed.getLongCardinality());
+            archive.setUpdatedAt(now);
+            changed.add(archive);
+        });
+
+        archiveRepository.saveAll(changed);
+        swipeRepository.deleteAllByIdInBatch(swipeIds);
+        return rows.size();
+    }
+
+    private void archiveQuietly() {
+        try {
+            archive();
+        } catch (RuntimeException e) {
+            // Niezarchiwizowane swipe'y zostają w tabeli - kolejna próba przy następnym cyklu
+            log.warn("Swipe archival failed, will retry: {}", e.getMessage());
+        }
+    }
+}
@@ -1,98 +1,417 @@
 package com.beerfinder.service;
 
+import com.beerfinder.dto.BatchSwipeRequest;
+import com.beerfinder.dto.BatchSwipeResponse;
 import com.beerfinder.dto.SwipeRequest;
 import com.beerfinder.dto.SwipeResponse;
-import com.beerfinder.entity.Match;
 import com.beerfinder.entity.Swipe;
 import com.beerfinder.entity.SwipeAction;
 import com.beerfinder.entity.User;
+import com.beerfinder.event.DomainEvent;
+import com.beerfinder.event.DomainEventPublisher;
+import com.beerfinder.event.MatchCreated;
+import com.beerfinder.event.SwipeRecorded;
+import com.beerfinder.event.SwipeUndone;
 import com.beerfinder.exception.BadRequestException;
 import com.beerfinder.exception.ResourceNotFoundException;
 import com.beerfinder.repository.SwipeRepository;
 import com.beerfinder.repository.UserRepository;
+import com.beerfinder.security.AuthenticatedUser;
+import com.beerfinder.util.StripedLocks;
+import com.beerfinder.util.TransactionHooks;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.function.LongPredicate;
 
 @Service
 @Transactional
 public class SwipeService {
 
+    private static final int PAIR_LOCK_STRIPES = 1024;
+
     private final SwipeRepository swipeRepository;
     private final UserRepository userRepository;
     private final MatchService matchService;
+    private final SwipedUsersCache swipedUsers;
+    private final SwipeWriteBuffer writeBuffer;
+    private final LikeGraph likeGraph;
+    private final DomainEventPublisher eventPublisher;
+    private final RecentSwipes recentSwipes;
+    // Blokady par użytkowników - równoległe LIKE-i A->B i B->A nie mogą się minąć
+    private final StripedLocks pairLocks = new StripedLocks(PAIR_LOCK_STRIPES);
 
     public SwipeService(SwipeRepository swipeRepository,
                         UserRepository userRepository,
-                        MatchService matchService) {
+                        MatchService matchService,
+                        SwipedUsersCache swipedUsers,
+                        SwipeWriteBuffer writeBuffer,
+                        LikeGraph likeGraph,
+                        DomainEventPublisher eventPublisher,
+                        RecentSwipes recentSwipes) {
         this.swipeRepository = swipeRepository;
         this.userRepository = userRepository;
         this.matchService = matchService;
+        this.swipedUsers = swipedUsers;
+        this.writeBuffer = writeBuffer;
+        this.likeGraph = likeGraph;
+        this.eventPublisher = eventPublisher;
+        this.recentSwipes = recentSwipes;
     }
 
     /**
-     * Wykonuje swipe (LIKE lub PASS) i sprawdza czy powstał match
+     * Wykonuje swipe (LIKE lub PASS) i sprawdza czy powstał match.
+     * Działa na samych id: użytkownik z tokenu, istnienie celu sprawdza klucz obcy, a duplikat
+     * bitmapa przesuniętych (razem z archiwum) i unikalna para (swiper_id, swiped_id).
+     * Zdarzenia SwipeRecorded / MatchCreated trafiają do outboxu w tej samej transakcji.
      */
     public SwipeResponse swipe(SwipeRequest request) {
-        User currentUser = getCurrentUser();
-
-        // Znajdź użytkownika którego swipujemy
-        User swipedUser = userRepository.findById(request.getSwipedUserId())
-                .orElseThrow(() -> new ResourceNotFoundException("User", "id", request.getSwipedUserId()));
+        Long currentUserId = getCurrentUserId();
+        Long swipedUserId = request.getSwipedUserId();
 
         // Sprawdź czy nie swipujemy samego siebie
-        if (currentUser.getId().equals(swipedUser.getId())) {
+        if (currentUserId.equals(swipedUserId)) {
             throw new BadRequestException("Cannot swipe yourself");
         }
 
-        // Sprawdź czy już nie został wykonany swipe
-        if (swipeRepository.existsBySwiperAndSwiped(currentUser, swipedUser)) {
+        // Swipe czekający w buforze write-behind nie jest jeszcze w bazie, a zarchiwizowany PASS już w niej
+        // nie jest - unikalna para tabeli swipes nie wykryje żadnego z nich, bitmapa obejmuje oba
+        if (writeBuffer.isPending(currentUserId, swipedUserId)
+                || swipedUsers.swipedBy(currentUserId).test(swipedUserId)) {
             throw new BadRequestException("You have already swiped this user");
         }
 
-        // Stwórz swipe
-        Swipe swipe = new Swipe();
-        swipe.setSwiper(currentUser);
-        swipe.setSwiped(swipedUser);
-        swipe.setAction(request.getAction());
-        Swipe savedSwipe = swipeRepository.save(swipe);
+        // W trybie write-behind PASS trafia do bufora i jest zapisywany w grupowym commicie
+        // (razem ze zdarzeniem SwipeRecorded). LIKE zostaje synchroniczny - od niego zależy wykrywanie matchy.
+        if (request.getAction() == SwipeAction.PASS && writeBuffer.isEnabled()) {
+            // Bez INSERT-a nie ma klucza obcego - istnienie celu sprawdzamy sami
+            if (!userRepository.existsById(swipedUserId)) {
+                throw new ResourceNotFoundException("User", "id", swipedUserId);
+            }
+
+            writeBuffer.enqueue(currentUserId, swipedUserId);
+            likeGraph.onSwipe(currentUserId, swipedUserId, SwipeAction.PASS, false);
+            swipedUsers.add(currentUserId, swipedUserId);
+            recentSwipes.record(currentUserId, null, swipedUserId, SwipeAction.PASS, null);
+
+            return new SwipeResponse(null, currentUserId, swipedUserId,
+                    SwipeAction.PASS, false, null, "Swipe recorded");
+        }
+
+        // LIKE-i tej samej pary wykonują się po kolei aż do commitu - drugi zawsze widzi pierwszy
+        List<Lock> locks = request.getAction() == SwipeAction.LIKE
+                ? pairLocks.lockPairs(currentUserId, List.of(swipedUserId))
+                : List.of();
+        try {
+            // Zapisz swipe - konflikt na unikalnej parze oznacza, że swipe już był
+            Long swipeId;
+            try {
+                swipeId = swipeRepository.insertIfAbsent(currentUserId, swipedUserId, request.getAction())
+                        .orElseThrow(() -> new BadRequestException("You have already swiped this user"));
+            } catch (DataIntegrityViolationException e) {
+                // Naruszony klucz obcy - użytkownik docelowy nie istnieje
+                throw new ResourceNotFoundException("User", "id", swipedUserId);
+            }
+
+            // Sprawdź czy powstał match (tylko jeśli LIKE)
+            boolean reverseLike = false;
+            boolean isMatch = false;
+            Long matchId = null;
 
-        // Sprawdź czy powstał match (tylko jeśli LIKE)
-        boolean isMatch = false;
-        Long matchId = null;
-        String message;
+            if (request.getAction() == SwipeAction.LIKE) {
+                // Sprawdź czy druga osoba też nas lajknęła - w grafie polubień bez zapytania do bazy
+                reverseLike = likeGraph.isReady()
+                        ? likeGraph.hasLiked(swipedUserId, currentUserId)
+                        : !swipeRepository.findLikersAmong(currentUserId, List.of(swipedUserId)).isEmpty();
 
-        if (request.getAction() == SwipeAction.LIKE) {
-            // Sprawdź czy druga osoba też nas lajknęła
-            Optional<Swipe> reverseSwipe = swipeRepository.findBySwiperAndSwipedAndAction(
-                    swipedUser, currentUser, SwipeAction.LIKE
+                // Upsert - równoległy LIKE tej pary nie utworzy drugiego matcha, a zakończonego nie przywróci
+                if (reverseLike) {
+                    matchId = matchService.ensureMatch(currentUserId, swipedUserId).orElse(null);
+                    isMatch = matchId != null;
+                }
+            }
+            String message = isMatch ? "It's a match! 🎉" : "Swipe recorded";
+
+            eventPublisher.publish(new SwipeRecorded(swipeId, currentUserId, swipedUserId, request.getAction()));
+            if (isMatch) {
+                eventPublisher.publish(MatchCreated.of(matchId, currentUserId, swipedUserId));
+            }
+
+            // Graf polubień i zbiór przesuniętych decydują o kolejnych swipe'ach - aktualizujemy je
+            // zaraz po commicie, nie czekając na dostarczenie zdarzenia. Wzajemny LIKE nie czeka już
+            // na odpowiedź, nawet gdy match pary zakończono - jak w paczce swipe'ów
+            boolean answered = reverseLike;
+            Long createdMatchId = matchId;
+            TransactionHooks.afterCommit(() -> {
+                likeGraph.onSwipe(currentUserId, swipedUserId, request.getAction(), answered);
+                swipedUsers.add(currentUserId, swipedUserId);
+                recentSwipes.record(currentUserId, swipeId, swipedUserId, request.getAction(), createdMatchId);
+            });
+
+            return new SwipeResponse(
+                    swipeId,
+                    currentUserId,
+                    swipedUserId,
+                    request.getAction(),
+                    isMatch,
+                    matchId,
+                    message
             );
+        } finally {
+            releaseAfterCompletion(locks);
+        }
+    }
+
+    /**
+     * Wykonuje listę swipe'ów w jednej transakcji. Walidacja, zapis (batch JDBC) i wykrywanie
+     * matchy to stała liczba zapytań niezależnie od rozmiaru listy. Niepoprawne pozycje
+     * (nieistniejący użytkownik, samego siebie, już przesunięty, duplikat w liście) są pomijane
+     * z komunikatem w wyniku - pozostałe zostają zapisane.
+     */
+    public BatchSwipeResponse swipeBatch(BatchSwipeRequest request) {
+        User currentUser = userRepository.getReferenceById(getCurrentUserId());
+        List<SwipeRequest> requests = request.getSwipes();
+
+        Set<Long> requestedIds = new HashSet<>();
+        for (SwipeRequest item : requests) {
+            requestedIds.add(item.getSwipedUserId());
+        }
+        Set<Long> existing = new HashSet<>(userRepository.findExistingIds(requestedIds));
+        Set<Long> alreadySwiped = new HashSet<>(
+                swipeRepository.findSwipedUserIdsIn(currentUser.getId(), requestedIds));
+        // Zarchiwizowanych PASS-ów nie ma w tabeli swipes - widzi je tylko bitmapa
+        LongPredicate swiped = swipedUsers.swipedBy(currentUser.getId());
 
-            if (reverseSwipe.isPresent()) {
-                // Jest match!
-                isMatch = true;
-                Match match = matchService.createMatch(currentUser, swipedUser);
-                matchId = match.getId();
-                message = "It's a match! 🎉";
+        // Walidacja całej listy - w tablicy zostaje komunikat błędu albo null dla poprawnych
+        String[] rejections = new String[requests.size()];
+        Set<Long> accepted = new HashSet<>();
+        List<Swipe> swipes = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            SwipeRequest item = requests.get(i);
+            Long swipedUserId = item.getSwipedUserId();
+
+            if (!existing.contains(swipedUserId)) {
+                rejections[i] = "User not found with id: " + swipedUserId;
+            } else if (currentUser.getId().equals(swipedUserId)) {
+                rejections[i] = "Cannot swipe yourself";
+            } else if (alreadySwiped.contains(swipedUserId) || swiped.test(swipedUserId)
+                    || writeBuffer.isPending(currentUser.getId(), swipedUserId)) {
+                rejections[i] = "You have already swiped this user";
+            } else if (!accepted.add(swipedUserId)) {
+                rejections[i] = "Duplicate swipe in batch";
             } else {
-                message = "Swipe recorded";
+                Swipe swipe = new Swipe();
+                swipe.setSwiper(currentUser);
+                swipe.setSwiped(userRepository.getReferenceById(swipedUserId));
+                swipe.setAction(item.getAction());
+                swipes.add(swipe);
+            }
+        }
+
+        List<Long> likedIds = swipes.stream()
+                .filter(swipe -> swipe.getAction() == SwipeAction.LIKE)
+                .map(swipe -> swipe.getSwiped().getId())
+                .toList();
+
+        List<Lock> locks = pairLocks.lockPairs(currentUser.getId(), likedIds);
+        try {
+            return persistBatch(currentUser, requests, rejections, swipes, likedIds);
+        } finally {
+            releaseAfterCompletion(locks);
+        }
+    }
+
+    private BatchSwipeResponse persistBatch(User currentUser, List<SwipeRequest> requests, String[] rejections,
+                                            List<Swipe> requested, List<Long> requestedLikes) {
+        // Równoległy swipe tej samej pary mógł wejść między sprawdzeniem a zapisem - taka pozycja
+        // jest pomijana jak każdy inny duplikat zamiast wycofywać całą paczkę
+        List<Swipe> swipes = swipeRepository.batchInsertIfAbsent(requested);
+        int index = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            if (rejections[i] == null && requested.get(index++).getId() == null) {
+                rejections[i] = "You have already swiped this user";
+            }
+        }
+        List<Long> likedIds = swipes.size() == requested.size()
+                ? requestedLikes
+                : swipes.stream()
+                        .filter(swipe -> swipe.getAction() == SwipeAction.LIKE)
+                        .map(swipe -> swipe.getSwiped().getId())
+                        .toList();
+
+        // Wszystkie wzajemne LIKE - z grafu polubień albo jednym zapytaniem
+        Set<Long> mutual;
+        if (likedIds.isEmpty()) {
+            mutual = Set.of();
+        } else if (likeGraph.isReady()) {
+            mutual = new HashSet<>();
+            for (Long likedId : likedIds) {
+                if (likeGraph.hasLiked(likedId, currentUser.getId())) {
+                    mutual.add(likedId);
+                }
             }
         } else {
-            message = "Swipe recorded";
-        }
-
-        return new SwipeResponse(
-                savedSwipe.getId(),
-                currentUser.getId(),
-                swipedUser.getId(),
-                request.getAction(),
-                isMatch,
-                matchId,
-                message
-        );
+            mutual = new HashSet<>(swipeRepository.findLikersAmong(currentUser.getId(), likedIds));
+        }
+
+        // Matche całej paczki naraz - istniejące jednym zapytaniem po parach
+        List<Long> matchedIds = likedIds.stream().filter(mutual::contains).toList();
+        Map<Long, Long> matchIds = matchedIds.isEmpty()
+                ? Map.of()
+                : matchService.ensureMatches(currentUser.getId(), matchedIds);
+
+        List<DomainEvent> events = new ArrayList<>();
+        for (Swipe swipe : swipes) {
+            Long swipedUserId = swipe.getSwiped().getId();
+            events.add(new SwipeRecorded(swipe.getId(), currentUser.getId(), swipedUserId, swipe.getAction()));
+            Long matchId = matchIds.get(swipedUserId);
+            if (matchId != null) {
+                events.add(MatchCreated.of(matchId, currentUser.getId(), swipedUserId));
+            }
+        }
+        eventPublisher.publishAll(events);
+
+        TransactionHooks.afterCommit(() -> {
+            for (Swipe swipe : swipes) {
+                Long swipedUserId = swipe.getSwiped().getId();
+                likeGraph.onSwipe(currentUser.getId(), swipedUserId, swipe.getAction(), mutual.contains(swipedUserId));
+                swipedUsers.add(currentUser.getId(), swipedUserId);
+                recentSwipes.record(currentUser.getId(), swipe.getId(), swipedUserId, swipe.getAction(),
+                        matchIds.get(swipedUserId));
+            }
+        });
+
+        List<SwipeResponse> results = new ArrayList<>(requests.size());
+        int saved = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            SwipeRequest item = requests.get(i);
+            if (rejections[i] != null) {
+                results.add(new SwipeResponse(null, currentUser.getId(), item.getSwipedUserId(),
+                        item.getAction(), false, null, rejections[i]));
+                continue;
+            }
+
+            Swipe swipe = swipes.get(saved++);
+            Long matchId = matchIds.get(swipe.getSwiped().getId());
+            results.add(new SwipeResponse(
+                    swipe.getId(),
+                    currentUser.getId(),
+                    swipe.getSwiped().getId(),
+                    swipe.getAction(),
+                    matchId != null,
+                    matchId,
+                    matchId != null ? "It's a match! 🎉" : "Swipe recorded"
+            ));
+        }
+
+        return new BatchSwipeResponse(results, swipes.size(), matchIds.size());
+    }
+
+    /**
+     * Cofa ostatni swipe zalogowanego użytkownika. Ostatnie swipe'y są w buforze pierścieniowym
+     * w pamięci - poza oknem cofania odpowiadamy bez zapytania do bazy. Cofnięcie LIKE, który
+     * utworzył match, dezaktywuje ten match.
+     */
+    public SwipeResponse undoLastSwipe() {
+        Long currentUserId = getCurrentUserId();
+        RecentSwipes.Entry entry = recentSwipes.popLatest(currentUserId)
+                .orElseThrow(() -> new BadRequestException("Nothing to undo"));
+        Long swipedUserId = entry.swipedUserId();
+
+        // Jak przy LIKE - równoległy LIKE drugiej strony nie może utworzyć matcha w trakcie cofania
+        List<Lock> locks = entry.action() == SwipeAction.LIKE
+                ? pairLocks.lockPairs(currentUserId, List.of(swipedUserId))
+                : List.of();
+        try {
+            // PASS z bufora write-behind wystarczy z niego usunąć
+            boolean cancelled = entry.swipeId() == null && writeBuffer.cancel(currentUserId, swipedUserId);
+            if (!cancelled && swipeRepository.deletePair(currentUserId, swipedUserId) == 0) {
+                throw new BadRequestException("Nothing to undo");
+            }
+            restoreOnRollback(currentUserId, entry);
+
+            // MatchEnded publikuje MatchService - partner dostał MatchCreated, więc musi się dowiedzieć o końcu
+            Long matchId = entry.action() == SwipeAction.LIKE
+                    ? matchService.deactivateMatch(currentUserId, swipedUserId).orElse(null)
+                    : null;
+            boolean unmatched = matchId != null;
+
+            // LIKE drugiej strony, na który odpowiadał cofnięty swipe, znów czeka na odpowiedź
+            boolean likedBySwiped = likeGraph.isReady()
+                    && !swipeRepository.findLikersAmong(currentUserId, List.of(swipedUserId)).isEmpty();
+
+            eventPublisher.publish(new SwipeUndone(entry.swipeId(), currentUserId, swipedUserId, entry.action(), matchId));
+            TransactionHooks.afterCommit(() -> {
+                likeGraph.onUndo(currentUserId, swipedUserId, likedBySwiped);
+                swipedUsers.remove(currentUserId, swipedUserId);
+            });
+
+            return new SwipeResponse(
+                    entry.swipeId(),
+                    currentUserId,
+                    swipedUserId,
+                    entry.action(),
+                    false,
+                    matchId,
+                    unmatched ? "Swipe undone, match removed" : "Swipe undone"
+            );
+        } finally {
+            releaseAfterCompletion(locks);
+        }
+    }
+
+    // Cofnięcie wycofane razem z transakcją - swipe znów można cofnąć
+    private void restoreOnRollback(Long swiperId, RecentSwipes.Entry entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    recentSwipes.restore(swiperId, entry);
+                }
+            }
+        });
+    }
+
+    // Zwolnienie blokad par dopiero po commicie (albo wycofaniu) - wtedy swipe jest widoczny dla innych
+    private void releaseAfterCompletion(List<Lock> locks) {
+        if (locks.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            locks.forEach(Lock::unlock);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                locks.forEach(Lock::unlock);
+            }
+        });
+    }
+
+    // Id z tokenu (principal) - bez zapytania o encję użytkownika
+    private Long getCurrentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getId();
+        }
+        return getCurrentUser().getId();
     }
 
     private User getCurrentUser() {
@@ -0,0 +1,281 @@
+package com.beerfinder.service;
+
+import com.beerfinder.config.AsyncConfig;
+import com.beerfinder.entity.Swipe;
+import com.beerfinder.entity.SwipeAction;
+import com.beerfinder.entity.User;
+import com.beerfinder.event.DomainEventPublisher;
+import com.beerfinder.event.SwipeRecorded;
+import com.beerfinder.exception.ServiceUnavailableException;
+import com.beerfinder.repository.SwipeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind buffer for PASS swipes.
+ *
+ * When enabled, {@link SwipeService#swipe} hands PASS swipes to this buffer instead of inserting
+ * them synchronously. Pending swipes are deduplicated per (swiper, swiped) pair and written in
+ * group commits - one JDBC batch per transaction - every {@code flush-interval} or as soon as
+ * {@code max-batch} swipes are waiting. Their SwipeRecorded events go to the outbox in the same
+ * transaction.
+ *
+ * While the database accepts writes, at most {@code flush-interval} worth of PASS swipes can be
+ * lost if the process dies. While flushes keep failing, swipes pile up in memory and everything
+ * pending - up to {@code max-pending} swipes - is at risk. When {@code max-pending} is reached new
+ * swipes are rejected before they are queued and a background flush is requested. The swiping
+ * thread never flushes itself: it runs inside the swipe transaction, which already holds a pooled
+ * connection, and a flush needs a second one. The buffer is drained on shutdown.
+ *
+ * Entries stay visible through {@link #isPending} until their transaction has committed, so
+ * duplicate checks never see a gap between the buffer and the database.
+ */
+@Component
+public class SwipeWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(SwipeWriteBuffer.class);
+
+    private final SwipeRepository swipeRepository;
+    private final DomainEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration flushInterval;
+    private final int maxBatch;
+    private final int maxPending;
+
+    // Kolejność wstawienia = kolejność zapisu
+    private final Set<PendingPass> pending = new LinkedHashSet<>();
+    private final Object flushLock = new Object();
+    // Najwyżej jeden zlecony flush naraz - odrzucane swipe'y nie zapychają harmonogramu
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final TaskScheduler scheduler;
+    private ScheduledFuture<?> schedule;
+
+    public SwipeWriteBuffer(SwipeRepository swipeRepository,
+                            DomainEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager,
+                            @Qualifier(AsyncConfig.BACKGROUND_SCHEDULER) TaskScheduler scheduler,
+                            @Value("${swipe.write-behind.enabled:false}") boolean enabled,
+                            @Value("${swipe.write-behind.flush-interval:50ms}") Duration flushInterval,
+                            @Value("${swipe.write-behind.max-batch:500}") int maxBatch,
+                            @Value("${swipe.write-behind.max-pending:10000}") int maxPending) {
+        this.swipeRepository = swipeRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Synchroniczny flush z wątku swipe'a nie może dołączyć do jego transakcji
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.scheduler = scheduler;
+        this.enabled = enabled;
+        this.flushInterval = flushInterval;
+        this.maxBatch = maxBatch;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * PASS swipe waiting to be written
+     */
+    public record PendingPass(Long swiperId, Long swipedUserId) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        schedule = scheduler.scheduleWithFixedDelay(this::flushQuietly, Instant.now().plus(flushInterval), flushInterval);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a PASS swipe. Duplicates of a pending swipe are ignored.
+     *
+     * @throws ServiceUnavailableException When the buffer is full - the swipe is not queued
+     */
+    public void enqueue(Long swiperId, Long swipedUserId) {
+        boolean full;
+        int size;
+        synchronized (pending) {
+            full = pending.size() >= maxPending;
+            if (!full) {
+                pending.add(new PendingPass(swiperId, swipedUserId));
+            }
+            size = pending.size();
+        }
+
+        if (full || size >= maxBatch) {
+            requestFlush();
+        }
+        // Bufor pełny - swipe odrzucamy od razu (przed aktualizacją cache w SwipeService), zaległości
+        // zapisze flush w tle; synchroniczny zapis czekałby na drugie połączenie z puli
+        if (full) {
+            throw new ServiceUnavailableException("Swipe could not be recorded, please try again later");
+        }
+    }
+
+    public boolean isPending(Long swiperId, Long swipedUserId) {
+        synchronized (pending) {
+            return pending.contains(new PendingPass(swiperId, swipedUserId));
+        }
+    }
+
+    /**
+     * Users with a pending PASS from the given swiper
+     */
+    public List<Long> pendingSwipedBy(Long swiperId) {
+        List<Long> result = new ArrayList<>();
+        synchronized (pending) {
+            for (PendingPass pass : pending) {
+                if (pass.swiperId().equals(swiperId)) {
+                    result.add(pass.swipedUserId());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drop a pending PASS before it is written. Waits for a running flush, so a swipe that is
+     * being written is reported as not cancelled and must be deleted from the database instead.
+     *
+     * @return Whether the swipe was still pending and will never be written
+     */
+    public boolean cancel(Long swiperId, Long swipedUserId) {
+        synchronized (flushLock) {
+            synchronized (pending) {
+                return pending.remove(new PendingPass(swiperId, swipedUserId));
+            }
+        }
+    }
+
+    public int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Write everything pending, {@code max-batch} swipes per transaction
+     *
+     * @return Number of swipes written
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            List<PendingPass> snapshot;
+            synchronized (pending) {
+                snapshot = new ArrayList<>(pending);
+            }
+
+            int written = 0;
+            for (int from = 0; from < snapshot.size(); from += maxBatch) {
+                List<PendingPass> chunk = snapshot.subList(from, Math.min(snapshot.size(), from + maxBatch));
+                written += write(chunk);
+
+                // Usuwamy dopiero po commicie - do tego momentu isPending widzi wpis
+                synchronized (pending) {
+                    chunk.forEach(pending::remove);
+                }
+            }
+            return written;
+        }
+    }
+
+    // Trwający flush kończy się przed ostatnim (flushLock)
+    @PreDestroy
+    public void drain() {
+        if (schedule != null) {
+            schedule.cancel(false);
+        }
+        int written = flush();
+        if (written > 0) {
+            log.info("Drained {} buffered PASS swipes on shutdown", written);
+        }
+    }
+
+    private void requestFlush() {
+        if (enabled && flushRequested.compareAndSet(false, true)) {
+            scheduler.schedule(() -> {
+                flushRequested.set(false);
+                flushQuietly();
+            }, Instant.now());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Wpisy zostają w buforze - spróbujemy przy następnym cyklu
+            log.warn("Write-behind flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private int write(List<PendingPass> chunk) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(chunk));
+            return chunk.size();
+        } catch (DataIntegrityViolationException e) {
+            // Para zapisana w międzyczasie inną drogą - zapisujemy pojedynczo i pomijamy konflikty
+            int written = 0;
+            for (PendingPass pass : chunk) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(pass)));
+                    written++;
+                } catch (DataIntegrityViolationException conflict) {
+                    log.debug("Skipping already stored swipe {} -> {}", pass.swiperId(), pass.swipedUserId());
+                }
+            }
+            return written;
+        }
+    }
+
+    private void insert(List<PendingPass> passes) {
+        List<Swipe> swipes = toSwipes(passes);
+        swipeRepository.batchInsert(swipes);
+        eventPublisher.publishAll(swipes.stream()
+                .map(swipe -> new SwipeRecorded(swipe.getId(), swipe.getSwiper().getId(),
+                        swipe.getSwiped().getId(), SwipeAction.PASS))
+                .toList());
+    }
+
+    private static List<Swipe> toSwipes(List<PendingPass> passes) {
+        List<Swipe> swipes = new ArrayList<>(passes.size());
+        for (PendingPass pass : passes) {
+            Swipe swipe = new Swipe();
+            swipe.setSwiper(userWithId(pass.swiperId()));
+            swipe.setSwiped(userWithId(pass.swipedUserId()));
+            swipe.setAction(SwipeAction.PASS);
+            swipes.add(swipe);
+        }
+        return swipes;
+    }
+
+    // batchInsert czyta tylko id użytkowników
+    private static User userWithId(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,154 @@
+package com.beerfinder.service;
+
+import com.beerfinder.repository.SwipeArchiveRepository;
+import com.beerfinder.repository.SwipeRepository;
+import com.beerfinder.util.RoaringBitmaps;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Per-user set of already swiped user ids, kept as a compressed Roaring bitmap.
+ *
+ * Discover uses it to drop swiped candidates in memory instead of running a correlated
+ * NOT IN over the swipes table. A bitmap is built from {@link SwipeRepository} and the user's
+ * archived PASS swipes ({@link SwipeArchiver}) on the first access and updated by {@link SwipeService#swipe} once the swipe is committed.
+ *
+ * A swipe adds one id to the cached bitmap in place, so it costs the same for a user with a
+ * handful of swipes and one with hundreds of thousands. Each bitmap has its own read-write
+ * lock: readers take the read lock per lookup and see swipes recorded after they got the
+ * predicate. Total memory is bounded by weight (bitmap size in bytes, recomputed on every
+ * update) and idle bitmaps expire.
+ */
+@Component
+public class SwipedUsersCache {
+
+    private final SwipeRepository swipeRepository;
+    private final SwipeArchiveRepository archiveRepository;
+    private final SwipeWriteBuffer writeBuffer;
+    private final Cache<Long, SwipedSet> bitmaps;
+
+    public SwipedUsersCache(SwipeRepository swipeRepository,
+                            SwipeArchiveRepository archiveRepository,
+                            SwipeWriteBuffer writeBuffer,
+                            @Value("${discover.swiped-set.max-bytes:67108864}") long maxBytes,
+                            @Value("${discover.swiped-set.idle-timeout:30m}") Duration idleTimeout) {
+        this.swipeRepository = swipeRepository;
+        this.archiveRepository = archiveRepository;
+        this.writeBuffer = writeBuffer;
+        this.bitmaps = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long userId, SwipedSet swiped) ->
+                        (int) Math.min(Integer.MAX_VALUE, swiped.sizeInBytes()))
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    /**
+     * Users already swiped by the given user
+     *
+     * @param swiperId Id of the swiping user
+     * @return Live predicate matching swiped user ids, safe to use after the call returns
+     */
+    public LongPredicate swipedBy(Long swiperId) {
+        return bitmaps.get(swiperId, this::load)::contains;
+    }
+
+    /**
+     * Record a committed swipe. Bitmaps that are not cached are left alone -
+     * the swipe will be read from the database on the next load.
+     */
+    public void add(Long swiperId, Long swipedUserId) {
+        // compute czeka na trwające ładowanie i przelicza wagę wpisu
+        bitmaps.asMap().computeIfPresent(swiperId, (id, swiped) -> {
+            swiped.add(swipedUserId);
+            return swiped;
+        });
+    }
+
+    /**
+     * Forget an undone swipe
+     */
+    public void remove(Long swiperId, Long swipedUserId) {
+        bitmaps.asMap().computeIfPresent(swiperId, (id, swiped) -> {
+            swiped.remove(swipedUserId);
+            return swiped;
+        });
+    }
+
+    public void evict(Long swiperId) {
+        bitmaps.invalidate(swiperId);
+    }
+
+    private SwipedSet load(Long swiperId) {
+        List<Long> swipedIds = swipeRepository.findSwipedUserIdsBySwiperId(swiperId);
+
+        // Zarchiwizowane PASS-y - już nie ma ich w tabeli swipes
+        Roaring64NavigableMap bitmap = archiveRepository.findById(swiperId)
+                .map(archive -> RoaringBitmaps.fromBytes(archive.getPassedUserIds()))
+                .orElseGet(Roaring64NavigableMap::new);
+        for (Long swipedId : swipedIds) {
+            bitmap.addLong(swipedId);
+        }
+        // PASS-y czekające w buforze write-behind jeszcze nie są w bazie
+        for (Long swipedId : writeBuffer.pendingSwipedBy(swiperId)) {
+            bitmap.addLong(swipedId);
+        }
+        bitmap.runOptimize();
+        return new SwipedSet(bitmap);
+    }
+
+    // Bitmapa zmieniana w miejscu pod blokadą zapisu, czytana pod blokadą odczytu
+    private static final class SwipedSet {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Roaring64NavigableMap bitmap;
+        private volatile long sizeInBytes;
+
+        SwipedSet(Roaring64NavigableMap bitmap) {
+            this.bitmap = bitmap;
+            this.sizeInBytes = bitmap.getLongSizeInBytes();
+        }
+
+        boolean contains(long userId) {
+            lock.readLock().lock();
+            try {
+                return bitmap.contains(userId);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void add(long userId) {
+            lock.writeLock().lock();
+            try {
+                bitmap.addLong(userId);
+                sizeInBytes = bitmap.getLongSizeInBytes();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(long userId) {
+            lock.writeLock().lock();
+            try {
+                bitmap.removeLong(userId);
+                sizeInBytes = bitmap.getLongSizeInBytes();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        long sizeInBytes() {
+            return sizeInBytes;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.beerfinder.util;
+
+import com.beerfinder.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for paginated discover.
+ * Holds the sort key and id of the last profile returned, encoded as URL-safe Base64.
+ *
+ * @param sortKey Sort key of the last returned profile
+ * @param lastId  Id of the last returned profile (tie-breaker)
+ */
+public record DiscoverCursor(double sortKey, long lastId) {
+
+    public String encode() {
+        String raw = sortKey + ":" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor previously returned by {@link #encode()}
+     *
+     * @param token Encoded cursor (may be null)
+     * @return Decoded cursor or null when no token was given
+     * @throws BadRequestException when the token is malformed
+     */
+    public static DiscoverCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(':');
+            return new DiscoverCursor(
+                    Double.parseDouble(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
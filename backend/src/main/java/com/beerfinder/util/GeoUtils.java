@@ -6,6 +6,33 @@ package com.beerfinder.util;
 public class GeoUtils {
 
     private static final int EARTH_RADIUS_KM = 6371;
+    // Zapas na błędy zaokrągleń - punkt dokładnie na okręgu nie może wypaść z prostokąta
+    private static final double BOUNDING_BOX_MARGIN_DEG = 1e-6;
+
+    /**
+     * Relative error bound of {@link #equirectangularDistance} (overestimate) for distances
+     * up to {@value #FAST_REJECT_MAX_RADIUS_KM} km between latitudes ±{@value #FAST_REJECT_MAX_LAT}°
+     */
+    public static final double EQUIRECTANGULAR_MAX_ERROR = 0.01;
+    static final double FAST_REJECT_MAX_RADIUS_KM = 500;
+    static final double FAST_REJECT_MAX_LAT = 80;
+
+    /**
+     * Lat/lon rectangle enclosing a circle, usable as an index-friendly prefilter
+     */
+    public record BoundingBox(double minLat, double maxLat, double minLon, double maxLon) {
+    }
+
+    /**
+     * Origin of a one-to-many distance computation with its trigonometric terms precomputed
+     */
+    public record Origin(double latRad, double lonRad, double cosLat) {
+
+        public static Origin of(double lat, double lon) {
+            double latRad = Math.toRadians(lat);
+            return new Origin(latRad, Math.toRadians(lon), Math.cos(latRad));
+        }
+    }
 
     /**
      * Calculate distance between two points using Haversine formula
@@ -45,4 +72,131 @@ public class GeoUtils {
         double distance = calculateDistance(lat1, lon1, lat2, lon2);
         return distance <= maxDistance;
     }
-}
\ No newline at end of file
+
+    /**
+     * Calculate the bounding box of a circle around a point.
+     * When the circle touches a pole or crosses the antimeridian the full longitude range is returned.
+     *
+     * @param lat      Latitude of the center
+     * @param lon      Longitude of the center
+     * @param radiusKm Radius in kilometers
+     * @return Bounding box containing every point within radiusKm
+     */
+    public static BoundingBox boundingBox(double lat, double lon, double radiusKm) {
+        // Ten sam promień Ziemi co w Haversine (w Javie i w SQL), inaczej prostokąt jest za mały
+        double deltaLat = Math.toDegrees(radiusKm / EARTH_RADIUS_KM) + BOUNDING_BOX_MARGIN_DEG;
+        double minLat = Math.max(-90, lat - deltaLat);
+        double maxLat = Math.min(90, lat + deltaLat);
+
+        double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        double deltaLon = cosLat > 0 ? deltaLat / cosLat : 360;
+
+        if (deltaLon >= 180 || lon - deltaLon < -180 || lon + deltaLon > 180) {
+            return new BoundingBox(minLat, maxLat, -180, 180);
+        }
+        return new BoundingBox(minLat, maxLat, lon - deltaLon, lon + deltaLon);
+    }
+
+    /**
+     * Haversine distance from one origin to many points (batch variant of {@link #calculateDistance})
+     *
+     * @param origin  Origin with precomputed terms
+     * @param latsRad Latitudes of the points in radians
+     * @param lonsRad Longitudes of the points in radians
+     * @param count   Number of points to process
+     * @param outKm   Receives the distances in kilometers (at least count long)
+     */
+    public static void distances(Origin origin, double[] latsRad, double[] lonsRad, int count, double[] outKm) {
+        for (int i = 0; i < count; i++) {
+            outKm[i] = distance(origin, latsRad[i], lonsRad[i]);
+        }
+    }
+
+    /**
+     * Haversine distance from a precomputed origin to a single point.
+     * Gives exactly the same result as {@link #distances} for that point.
+     *
+     * @param origin Origin with precomputed terms
+     * @param latRad Latitude of the point in radians
+     * @param lonRad Longitude of the point in radians
+     * @return Distance in kilometers
+     */
+    public static double distance(Origin origin, double latRad, double lonRad) {
+        double a = haversineTerm(origin, latRad, lonRad);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1, a)));
+    }
+
+    /**
+     * Select the points within radiusKm of the origin.
+     *
+     * When the error bound of {@link #equirectangularDistance} holds for the query, points whose
+     * approximate distance exceeds the radius by more than {@link #EQUIRECTANGULAR_MAX_ERROR}
+     * are rejected without the exact formula. Survivors are compared on the haversine term
+     * against a precomputed threshold, so no asin/sqrt is evaluated.
+     *
+     * @param origin     Origin with precomputed terms
+     * @param latsRad    Latitudes of the points in radians
+     * @param lonsRad    Longitudes of the points in radians
+     * @param count      Number of points to process
+     * @param radiusKm   Radius in kilometers
+     * @param outIndices Receives indices of matching points (at least count long)
+     * @return Number of matching points written to outIndices
+     */
+    public static int withinRadius(Origin origin, double[] latsRad, double[] lonsRad, int count,
+                                   double radiusKm, int[] outIndices) {
+        double halfAngle = Math.min(Math.PI / 2, radiusKm / (2 * EARTH_RADIUS_KM));
+        double sinHalf = Math.sin(halfAngle);
+        double threshold = sinHalf * sinHalf;
+
+        boolean fastReject = radiusKm <= FAST_REJECT_MAX_RADIUS_KM
+                && Math.abs(Math.toDegrees(origin.latRad())) + Math.toDegrees(radiusKm / EARTH_RADIUS_KM) <= FAST_REJECT_MAX_LAT;
+        double rejectAngle = radiusKm * (1 + EQUIRECTANGULAR_MAX_ERROR) / EARTH_RADIUS_KM;
+        double rejectSquared = rejectAngle * rejectAngle;
+
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            if (fastReject && equirectangularAngleSquared(origin, latsRad[i], lonsRad[i]) > rejectSquared) {
+                continue;
+            }
+            if (haversineTerm(origin, latsRad[i], lonsRad[i]) <= threshold) {
+                outIndices[found++] = i;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Equirectangular approximation of the distance (flat projection at the mean latitude).
+     *
+     * Much cheaper than Haversine - a single cosine. For distances up to 500 km between latitudes
+     * ±80° it overestimates by at most {@link #EQUIRECTANGULAR_MAX_ERROR} (1%); the error grows
+     * quickly with distance and towards the poles, so use it only as a prefilter.
+     *
+     * @param origin Origin with precomputed terms
+     * @param latRad Latitude of the point in radians
+     * @param lonRad Longitude of the point in radians
+     * @return Approximate distance in kilometers
+     */
+    public static double equirectangularDistance(Origin origin, double latRad, double lonRad) {
+        return EARTH_RADIUS_KM * Math.sqrt(equirectangularAngleSquared(origin, latRad, lonRad));
+    }
+
+    private static double equirectangularAngleSquared(Origin origin, double latRad, double lonRad) {
+        double dLon = lonRad - origin.lonRad();
+        // Najkrótsza różnica długości - zawijanie na antypołudniku
+        if (dLon > Math.PI) {
+            dLon -= 2 * Math.PI;
+        } else if (dLon < -Math.PI) {
+            dLon += 2 * Math.PI;
+        }
+        double x = dLon * Math.cos((latRad + origin.latRad()) / 2);
+        double y = latRad - origin.latRad();
+        return x * x + y * y;
+    }
+
+    private static double haversineTerm(Origin origin, double latRad, double lonRad) {
+        double sinDLat = Math.sin((latRad - origin.latRad()) / 2);
+        double sinDLon = Math.sin((lonRad - origin.lonRad()) / 2);
+        return sinDLat * sinDLat + origin.cosLat() * Math.cos(latRad) * sinDLon * sinDLon;
+    }
+}
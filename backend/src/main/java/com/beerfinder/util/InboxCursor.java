@@ -0,0 +1,47 @@
+package com.beerfinder.util;
+
+import com.beerfinder.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for the paginated inbox.
+ * Holds the last activity time and match id of the last entry returned, encoded as URL-safe Base64.
+ *
+ * @param lastActivityAt Last activity of the last returned match
+ * @param matchId        Id of the last returned match (tie-breaker)
+ */
+public record InboxCursor(LocalDateTime lastActivityAt, long matchId) {
+
+    public String encode() {
+        String raw = lastActivityAt + "|" + matchId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor previously returned by {@link #encode()}
+     *
+     * @param token Encoded cursor (may be null)
+     * @return Decoded cursor or null when no token was given
+     * @throws BadRequestException when the token is malformed
+     */
+    public static InboxCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new InboxCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
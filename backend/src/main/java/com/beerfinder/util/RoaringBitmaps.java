@@ -0,0 +1,43 @@
+package com.beerfinder.util;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Byte form of {@link Roaring64NavigableMap} for storing id sets in a binary column
+ */
+public final class RoaringBitmaps {
+
+    private RoaringBitmaps() {
+    }
+
+    public static byte[] toBytes(Roaring64NavigableMap bitmap) {
+        bitmap.runOptimize();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE, bitmap.serializedSizeInBytes()));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            bitmap.serialize(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Roaring64NavigableMap fromBytes(byte[] bytes) {
+        Roaring64NavigableMap bitmap = new Roaring64NavigableMap();
+        if (bytes == null || bytes.length == 0) {
+            return bitmap;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            bitmap.deserialize(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bitmap;
+    }
+}
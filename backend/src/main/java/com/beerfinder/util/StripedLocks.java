@@ -0,0 +1,69 @@
+package com.beerfinder.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks addressed by an unordered user pair.
+ *
+ * (a, b) and (b, a) always map to the same stripe, so two users swiping each other serialize
+ * while unrelated pairs almost never contend. Memory is constant - the number of stripes does
+ * not grow with the number of users. Locks are local to the JVM.
+ */
+public final class StripedLocks {
+
+    private final ReentrantLock[] stripes;
+
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Lock guarding the unordered pair (a, b)
+     */
+    public Lock forPair(long a, long b) {
+        return stripes[stripeOf(a, b)];
+    }
+
+    /**
+     * Acquire the locks of every pair (owner, other) in ascending stripe order, so concurrent
+     * callers can never deadlock. Each stripe is locked once.
+     *
+     * @return Acquired locks - the caller must unlock each of them
+     */
+    public List<Lock> lockPairs(long owner, Collection<Long> others) {
+        TreeSet<Integer> indices = new TreeSet<>();
+        for (Long other : others) {
+            indices.add(stripeOf(owner, other));
+        }
+
+        List<Lock> locked = new ArrayList<>(indices.size());
+        for (int index : indices) {
+            stripes[index].lock();
+            locked.add(stripes[index]);
+        }
+        return locked;
+    }
+
+    private int stripeOf(long a, long b) {
+        long low = Math.min(a, b);
+        long high = Math.max(a, b);
+        long hash = low * 0x9E3779B97F4A7C15L + high;
+        hash ^= hash >>> 32;
+        hash *= 0xC2B2AE3D27D4EB4FL;
+        hash ^= hash >>> 29;
+        return (int) hash & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,85 @@
+package com.beerfinder.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-key token bucket rate limiter.
+ *
+ * Each bucket is a single {@link AtomicLong} holding the theoretical arrival time of the next
+ * request (GCRA - the generic cell rate algorithm, equivalent to a token bucket refilled at
+ * {@code permitsPerSecond} and holding at most {@code burst} tokens). Acquiring a permit is a
+ * CAS loop on that value, so concurrent requests of one key never block each other.
+ *
+ * Buckets are dropped after {@code idleTimeout} without requests and the number of tracked keys
+ * is capped at {@code maxKeys}. An evicted bucket comes back full, which is exactly its state
+ * once it has been idle for the time needed to refill, so the idle timeout should be at least
+ * {@code burst / permitsPerSecond}.
+ */
+public class TokenBucketRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final LongSupplier clock;
+    private final Cache<Long, AtomicLong> buckets;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst, long maxKeys, Duration idleTimeout) {
+        this(permitsPerSecond, burst, maxKeys, idleTimeout, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(double permitsPerSecond, int burst, long maxKeys, Duration idleTimeout, LongSupplier clock) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.toleranceNanos = emissionIntervalNanos * burst;
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    /**
+     * Take one permit for the given key
+     *
+     * @return 0 when the permit was granted, otherwise nanoseconds until one becomes available
+     */
+    public long tryAcquire(long key) {
+        AtomicLong arrival = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long now = clock.getAsLong();
+
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long waitNanos = next - toleranceNanos - now;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Take permits without checking the bucket, letting it go into debt.
+     * Requests of the key are rejected until the debt is repaid at {@code permitsPerSecond}.
+     *
+     * @param permits Number of permits to take
+     */
+    public void consume(long key, int permits) {
+        AtomicLong arrival = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long cost = emissionIntervalNanos * permits;
+        arrival.accumulateAndGet(clock.getAsLong(), (current, now) -> Math.max(current, now) + cost);
+    }
+
+    public long trackedKeys() {
+        return buckets.estimatedSize();
+    }
+}
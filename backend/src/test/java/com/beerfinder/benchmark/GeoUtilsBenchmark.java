@@ -0,0 +1,91 @@
+package com.beerfinder.benchmark;
+
+import com.beerfinder.util.GeoUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares one-origin-to-many distance filtering: the per-pair {@link GeoUtils#calculateDistance}
+ * against the batch kernel with and without the equirectangular fast-reject.
+ *
+ * Not part of the test suite. The JMH annotation processor only runs in the benchmark profile:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoUtilsBenchmark {
+
+    private static final double ORIGIN_LAT = 54.3520;
+    private static final double ORIGIN_LON = 18.6466;
+
+    @Param({"1000", "100000"})
+    private int count;
+
+    @Param({"10", "100"})
+    private double radiusKm;
+
+    private double[] latsDeg;
+    private double[] lonsDeg;
+    private double[] latsRad;
+    private double[] lonsRad;
+    private double[] distances;
+    private int[] hits;
+
+    @Setup
+    public void setUp() {
+        // Kandydaci rozrzuceni w promieniu kilkuset km - typowy wynik z komórek indeksu przy dużym promieniu
+        Random random = new Random(42);
+        latsDeg = new double[count];
+        lonsDeg = new double[count];
+        latsRad = new double[count];
+        lonsRad = new double[count];
+        distances = new double[count];
+        hits = new int[count];
+        for (int i = 0; i < count; i++) {
+            latsDeg[i] = ORIGIN_LAT + random.nextGaussian() * 2;
+            lonsDeg[i] = ORIGIN_LON + random.nextGaussian() * 3;
+            latsRad[i] = Math.toRadians(latsDeg[i]);
+            lonsRad[i] = Math.toRadians(lonsDeg[i]);
+        }
+    }
+
+    @Benchmark
+    public int perPair() {
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            if (GeoUtils.calculateDistance(ORIGIN_LAT, ORIGIN_LON, latsDeg[i], lonsDeg[i]) <= radiusKm) {
+                hits[found++] = i;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public void batchDistances(Blackhole blackhole) {
+        GeoUtils.distances(GeoUtils.Origin.of(ORIGIN_LAT, ORIGIN_LON), latsRad, lonsRad, count, distances);
+        blackhole.consume(distances);
+    }
+
+    @Benchmark
+    public int batchWithinRadius() {
+        return GeoUtils.withinRadius(GeoUtils.Origin.of(ORIGIN_LAT, ORIGIN_LON), latsRad, lonsRad, count, radiusKm, hits);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeoUtilsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
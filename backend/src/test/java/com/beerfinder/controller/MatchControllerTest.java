@@ -1,5 +1,7 @@
 package com.beerfinder.controller;
 
+import com.beerfinder.dto.InboxEntry;
+import com.beerfinder.dto.InboxPageResponse;
 import com.beerfinder.dto.MatchResponse;
 import com.beerfinder.service.MatchService;
 import com.beerfinder.security.JwtUtil;
@@ -13,9 +15,14 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Collections;
+import java.util.List;
 
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(MatchController.class)
@@ -53,4 +60,28 @@ public class MatchControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturn204WhenUnmatching() throws Exception {
+        mockMvc.perform(delete("/api/matches/7"))
+                .andExpect(status().isNoContent());
+
+        verify(matchService).unmatch(7L);
+    }
+
+    @Test
+    void shouldReturnInboxWithNextCursorHeader() throws Exception {
+        InboxEntry entry = new InboxEntry();
+        entry.setMatchId(5L);
+        entry.setUnreadCount(2L);
+        when(matchService.getInbox("abc", 1)).thenReturn(new InboxPageResponse(List.of(entry), "next"));
+
+        mockMvc.perform(get("/api/matches/inbox")
+                        .param("cursor", "abc")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(UserController.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].matchId").value(5))
+                .andExpect(jsonPath("$[0].unreadCount").value(2));
+    }
+}
@@ -1,5 +1,6 @@
 package com.beerfinder.controller;
 
+import com.beerfinder.dto.MessagePageResponse;
 import com.beerfinder.dto.MessageRequest;
 import com.beerfinder.dto.MessageResponse;
 import com.beerfinder.service.MessageService;
@@ -72,14 +73,27 @@ class MessageControllerTest {
         Long matchId = 1L;
         List<MessageResponse> history = List.of(new MessageResponse(), new MessageResponse());
 
-        when(messageService.getChatHistory(matchId)).thenReturn(history);
+        when(messageService.getChatHistory(matchId, 500L, 2)).thenReturn(new MessagePageResponse(history, 480L));
 
         // When & Then
-        mockMvc.perform(get("/api/messages/{matchId}", matchId))
+        mockMvc.perform(get("/api/messages/{matchId}", matchId)
+                        .param("before", "500")
+                        .param("limit", "2"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(UserController.NEXT_CURSOR_HEADER, "480"))
                 .andExpect(jsonPath("$.length()").value(2));
     }
 
+    @Test
+    @DisplayName("Should mark messages as read and return their number")
+    void shouldMarkAsRead() throws Exception {
+        when(messageService.markAsRead(1L)).thenReturn(4);
+
+        mockMvc.perform(post("/api/messages/{matchId}/read", 1L))
+                .andExpect(status().isOk())
+                .andExpect(content().string("4"));
+    }
+
     @Test
     @DisplayName("Should return unread count")
     void shouldGetUnreadCount() throws Exception {
@@ -1,11 +1,14 @@
 package com.beerfinder.controller;
 
+import com.beerfinder.dto.BatchSwipeRequest;
+import com.beerfinder.dto.BatchSwipeResponse;
 import com.beerfinder.dto.SwipeRequest;
 import com.beerfinder.dto.SwipeResponse;
 import com.beerfinder.entity.SwipeAction;
 import com.beerfinder.service.SwipeService;
 import com.beerfinder.security.JwtUtil;
 import com.beerfinder.security.CustomUserDetailsService;
+import com.beerfinder.security.RateLimitFilter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,7 +19,11 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -40,6 +47,9 @@ class SwipeControllerTest {
     @MockBean
     private CustomUserDetailsService customUserDetailsService;
 
+    @MockBean
+    private RateLimitFilter rateLimitFilter;
+
     @Test
     @DisplayName("Should return 201 Created when swipe is successful")
     void shouldReturnCreatedWhenSwipeIsSuccessful() throws Exception {
@@ -72,4 +82,47 @@ class SwipeControllerTest {
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should return 200 with per-item results for a batch of swipes")
+    void shouldReturnOkForBatch() throws Exception {
+        BatchSwipeRequest request = new BatchSwipeRequest(List.of(
+                new SwipeRequest(2L, SwipeAction.LIKE),
+                new SwipeRequest(3L, SwipeAction.PASS)));
+        BatchSwipeResponse response = new BatchSwipeResponse(List.of(
+                new SwipeResponse(10L, 1L, 2L, SwipeAction.LIKE, true, 100L, "It's a match! 🎉"),
+                new SwipeResponse(11L, 1L, 3L, SwipeAction.PASS, false, null, "Swipe recorded")), 2, 1);
+
+        when(swipeService.swipeBatch(any(BatchSwipeRequest.class))).thenReturn(response);
+
+        mockMvc.perform(post("/api/swipes/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].matchId").value(100))
+                .andExpect(jsonPath("$.matches").value(1));
+
+        verify(rateLimitFilter).chargeBatchSwipes(any(), eq(2));
+    }
+
+    @Test
+    @DisplayName("Should return 200 with the undone swipe")
+    void shouldUndoLastSwipe() throws Exception {
+        when(swipeService.undoLastSwipe()).thenReturn(
+                new SwipeResponse(10L, 1L, 2L, SwipeAction.LIKE, false, 100L, "Swipe undone, match removed"));
+
+        mockMvc.perform(post("/api/swipes/undo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.swipedUserId").value(2))
+                .andExpect(jsonPath("$.matchId").value(100));
+    }
+
+    @Test
+    @DisplayName("Should return 400 for an empty batch")
+    void shouldReturn400ForEmptyBatch() throws Exception {
+        mockMvc.perform(post("/api/swipes/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BatchSwipeRequest(List.of()))))
+                .andExpect(status().isBadRequest());
+    }
+}
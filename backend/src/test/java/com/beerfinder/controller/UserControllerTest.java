@@ -1,5 +1,7 @@
 package com.beerfinder.controller;
 
+import com.beerfinder.dto.DiscoverPageResponse;
+import com.beerfinder.dto.DiscoverSort;
 import com.beerfinder.dto.ProfileResponse;
 import com.beerfinder.dto.UpdateProfileRequest;
 import com.beerfinder.service.CloudinaryService;
@@ -61,15 +63,45 @@ class UserControllerTest {
     @Test
     @DisplayName("Should discover profiles with filters")
     void shouldDiscoverProfilesWithFilters() throws Exception {
-        when(profileService.discoverProfilesWithFilters(anyInt(), anyInt(), anyInt()))
-                .thenReturn(List.of(new ProfileResponse()));
+        when(profileService.discoverProfiles(anyInt(), anyInt(), anyInt(), eq(DiscoverSort.DEFAULT), isNull(), isNull()))
+                .thenReturn(new DiscoverPageResponse(List.of(new ProfileResponse()), null));
 
         mockMvc.perform(get("/api/users/discover")
                         .param("minAge", "18")
                         .param("maxAge", "30")
                         .param("maxDistance", "10"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(1));
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().doesNotExist(UserController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    @DisplayName("Should return next page cursor in header")
+    void shouldReturnNextCursorHeader() throws Exception {
+        when(profileService.discoverProfiles(isNull(), isNull(), isNull(), eq(DiscoverSort.DEFAULT), eq("abc"), eq(5)))
+                .thenReturn(new DiscoverPageResponse(List.of(new ProfileResponse()), "next"));
+
+        mockMvc.perform(get("/api/users/discover")
+                        .param("cursor", "abc")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(UserController.NEXT_CURSOR_HEADER, "next"));
+    }
+
+    @Test
+    @DisplayName("Should pass distance sort to the service and reject unknown sort")
+    void shouldParseSortParameter() throws Exception {
+        ProfileResponse nearest = new ProfileResponse();
+        nearest.setDistanceKm(1.5);
+        when(profileService.discoverProfiles(isNull(), isNull(), isNull(), eq(DiscoverSort.DISTANCE), isNull(), isNull()))
+                .thenReturn(new DiscoverPageResponse(List.of(nearest), null));
+
+        mockMvc.perform(get("/api/users/discover").param("sort", "distance"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].distanceKm").value(1.5));
+
+        mockMvc.perform(get("/api/users/discover").param("sort", "popularity"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -0,0 +1,93 @@
+package com.beerfinder.event;
+
+import com.beerfinder.entity.OutboxEvent;
+import com.beerfinder.entity.SwipeAction;
+import com.beerfinder.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxDispatcherTest {
+
+    @Mock
+    private OutboxEventRepository outboxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TaskScheduler scheduler;
+
+    @Mock
+    private DomainEventListener failingListener;
+
+    @Mock
+    private DomainEventListener listener;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        // Bez harmonogramu (enabled=false) - drain wywołujemy ręcznie
+        dispatcher = new OutboxDispatcher(outboxRepository, objectMapper, List.of(failingListener, listener),
+                transactionManager, scheduler, false, Duration.ofSeconds(1), 2);
+    }
+
+    @Test
+    @DisplayName("Should deliver outbox events in order, batch by batch, and delete them afterwards")
+    void shouldDeliverAndDelete() throws Exception {
+        // Given
+        SwipeRecorded swipe = new SwipeRecorded(5L, 1L, 2L, SwipeAction.LIKE);
+        MatchCreated match = new MatchCreated(7L, 1L, 2L);
+        MessageSent message = new MessageSent(9L, 7L, 1L, "Ala", "Cześć", LocalDateTime.of(2024, 5, 1, 20, 0));
+
+        when(outboxRepository.findOldest(any(Pageable.class)))
+                .thenReturn(List.of(row(1L, swipe), row(2L, match)))
+                .thenReturn(List.of(row(3L, message)));
+        doThrow(new IllegalStateException("boom")).when(failingListener).onEvent(any());
+
+        // When
+        int delivered = dispatcher.drain();
+
+        // Then - błąd jednego listenera nie blokuje pozostałych
+        assertThat(delivered).isEqualTo(3);
+        var inOrder = inOrder(listener, outboxRepository);
+        inOrder.verify(listener).onEvent(swipe);
+        inOrder.verify(listener).onEvent(match);
+        inOrder.verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        inOrder.verify(listener).onEvent(message);
+        inOrder.verify(outboxRepository).deleteAllByIdInBatch(List.of(3L));
+    }
+
+    @Test
+    @DisplayName("Should keep events in the outbox when reading a batch fails")
+    void shouldNotDeleteWhenNothingRead() {
+        when(outboxRepository.findOldest(any(Pageable.class))).thenReturn(List.of());
+
+        assertThat(dispatcher.drain()).isZero();
+        verify(outboxRepository, never()).deleteAllByIdInBatch(any());
+        verifyNoInteractions(listener);
+    }
+
+    private OutboxEvent row(Long id, DomainEvent event) throws Exception {
+        return new OutboxEvent(id, event.type(), objectMapper.writeValueAsString(event), LocalDateTime.now());
+    }
+}
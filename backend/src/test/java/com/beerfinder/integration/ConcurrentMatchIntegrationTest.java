@@ -0,0 +1,115 @@
+package com.beerfinder.integration;
+
+import com.beerfinder.dto.SwipeRequest;
+import com.beerfinder.dto.SwipeResponse;
+import com.beerfinder.entity.SwipeAction;
+import com.beerfinder.entity.User;
+import com.beerfinder.repository.MatchRepository;
+import com.beerfinder.repository.SwipeRepository;
+import com.beerfinder.repository.UserRepository;
+import com.beerfinder.security.AuthenticatedUser;
+import com.beerfinder.service.SwipeService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ConcurrentMatchIntegrationTest {
+
+    private static final int PAIRS = 40;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private SwipeService swipeService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SwipeRepository swipeRepository;
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Test
+    @DisplayName("Should create exactly one match per pair when both users like each other at the same time")
+    void shouldCreateOneMatchPerPairUnderContention() throws Exception {
+        // Given - pary użytkowników, każda para lajkuje się nawzajem w tej samej chwili
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        List<User[]> pairs = new ArrayList<>();
+        for (int i = 0; i < PAIRS; i++) {
+            pairs.add(new User[]{newUser(run + "-a" + i), newUser(run + "-b" + i)});
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        List<Future<SwipeResponse>> responses = new ArrayList<>();
+
+        for (User[] pair : pairs) {
+            responses.add(executor.submit(() -> like(pair[0], pair[1], start, errors)));
+            responses.add(executor.submit(() -> like(pair[1], pair[0], start, errors)));
+        }
+
+        // When
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+
+        // Then - żadnych wycofanych transakcji, zgubionych swipe'ów ani podwójnych matchy
+        assertThat(errors).isEmpty();
+
+        int reportedMatches = 0;
+        for (Future<SwipeResponse> response : responses) {
+            if (Boolean.TRUE.equals(response.get().getIsMatch())) {
+                reportedMatches++;
+            }
+        }
+        assertThat(reportedMatches).isEqualTo(PAIRS);
+
+        for (User[] pair : pairs) {
+            assertThat(swipeRepository.findSwipedUserIdsBySwiperId(pair[0].getId())).containsExactly(pair[1].getId());
+            assertThat(swipeRepository.findSwipedUserIdsBySwiperId(pair[1].getId())).containsExactly(pair[0].getId());
+            assertThat(matchRepository.findIdByPair(pair[0].getId(), pair[1].getId())).isPresent();
+            assertThat(matchRepository.findActiveMatchRows(pair[0].getId())).hasSize(1);
+        }
+    }
+
+    private SwipeResponse like(User swiper, User swiped, CountDownLatch start, ConcurrentLinkedQueue<Throwable> errors) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser(swiper.getId(), swiper.getEmail(), "hash", List.of()), null, List.of()));
+        try {
+            start.await();
+            return swipeService.swipe(new SwipeRequest(swiped.getId(), SwipeAction.LIKE));
+        } catch (Throwable e) {
+            errors.add(e);
+            return new SwipeResponse();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private User newUser(String name) {
+        User user = new User();
+        user.setEmail(name + "@concurrency.test");
+        user.setPasswordHash("hash");
+        return userRepository.save(user);
+    }
+}
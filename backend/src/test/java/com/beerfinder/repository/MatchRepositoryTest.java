@@ -0,0 +1,259 @@
+package com.beerfinder.repository;
+
+import com.beerfinder.dto.InboxRow;
+import com.beerfinder.dto.MatchPair;
+import com.beerfinder.dto.MatchRow;
+import com.beerfinder.entity.Match;
+import com.beerfinder.entity.Message;
+import com.beerfinder.entity.Profile;
+import com.beerfinder.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class MatchRepositoryTest {
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User me;
+    private User alice;
+    private User bob;
+    private User carol;
+
+    @BeforeEach
+    void setUp() {
+        me = persistUser("me@test.com");
+        alice = persistUser("alice@test.com");
+        bob = persistUser("bob@test.com");
+        carol = persistUser("carol@test.com");
+
+        Profile aliceProfile = new Profile();
+        aliceProfile.setUser(alice);
+        aliceProfile.setName("Alice");
+        entityManager.persist(aliceProfile);
+
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Should return matches with last message and unread count, latest activity first")
+    void shouldFindInbox() throws InterruptedException {
+        // Given - z Alice dwie wiadomości (jedna od niej nieprzeczytana), z Bobem cisza, match z Carol nieaktywny
+        Match withAlice = persistMatch(me, alice, true);
+        Match withBob = persistMatch(me, bob, true);
+        persistMatch(me, carol, false);
+        entityManager.flush();
+        Thread.sleep(5); // wiadomości po utworzeniu matchy
+
+        persistMessage(withAlice, me, "Cześć", true);
+        Message last = persistMessage(withAlice, alice, "Idziemy na piwo?", false);
+        entityManager.flush();
+
+        // When
+        List<InboxRow> inbox = matchRepository.findInbox(me.getId(), null, null, 10);
+
+        // Then
+        assertThat(inbox).extracting(InboxRow::matchId).containsExactly(withAlice.getId(), withBob.getId());
+
+        InboxRow aliceRow = inbox.get(0);
+        assertThat(aliceRow.matchedUserId()).isEqualTo(alice.getId());
+        assertThat(aliceRow.matchedProfileId()).isNotNull();
+        assertThat(aliceRow.lastMessageId()).isEqualTo(last.getId());
+        assertThat(aliceRow.lastMessageSenderId()).isEqualTo(alice.getId());
+        assertThat(aliceRow.lastMessagePreview()).isEqualTo("Idziemy na piwo?");
+        assertThat(aliceRow.unreadCount()).isEqualTo(1);
+
+        InboxRow bobRow = inbox.get(1);
+        assertThat(bobRow.matchedProfileId()).isNull();
+        assertThat(bobRow.lastMessageId()).isNull();
+        assertThat(bobRow.lastActivityAt()).isEqualTo(bobRow.matchedAt());
+    }
+
+    @Test
+    @DisplayName("Should continue the inbox after the keyset cursor")
+    void shouldPageInboxByCursor() {
+        // Given
+        persistMatch(me, alice, true);
+        persistMatch(me, bob, true);
+        persistMatch(carol, me, true);
+        entityManager.flush();
+
+        // When
+        List<InboxRow> first = matchRepository.findInbox(me.getId(), null, null, 2);
+        InboxRow cursor = first.get(1);
+        List<InboxRow> second = matchRepository.findInbox(me.getId(), cursor.lastActivityAt(), cursor.matchId(), 2);
+
+        // Then
+        assertThat(first).hasSize(2);
+        assertThat(second).hasSize(1);
+        assertThat(second.get(0).matchId()).isNotIn(first.get(0).matchId(), first.get(1).matchId());
+        assertThat(second.get(0).matchedUserId()).isIn(alice.getId(), bob.getId(), carol.getId());
+    }
+
+    @Test
+    @DisplayName("Should return partners of active matches from either side of the pair")
+    void shouldFindActiveMatchedUserIds() {
+        // Given
+        persistMatch(me, alice, true);
+        persistMatch(bob, me, true);
+        persistMatch(me, carol, false);
+        entityManager.flush();
+
+        // When
+        List<Long> partners = matchRepository.findActiveMatchedUserIds(me.getId());
+
+        // Then
+        assertThat(partners).containsExactlyInAnyOrder(alice.getId(), bob.getId());
+    }
+
+    @Test
+    @DisplayName("Should return active match rows with profile ids of both sides")
+    void shouldFindActiveMatchRows() {
+        // Given
+        Match withAlice = persistMatch(me, alice, true);
+        Match withBob = persistMatch(bob, me, true);
+        persistMatch(me, carol, false);
+        entityManager.flush();
+
+        // When
+        List<MatchRow> rows = matchRepository.findActiveMatchRows(me.getId());
+
+        // Then
+        assertThat(rows).extracting(MatchRow::matchId).containsExactly(withAlice.getId(), withBob.getId());
+        assertThat(rows.get(0).matchedUserOf(me.getId())).isEqualTo(alice.getId());
+        assertThat(rows.get(0).matchedProfileOf(me.getId())).isNotNull();
+        assertThat(rows.get(1).matchedUserOf(me.getId())).isEqualTo(bob.getId());
+        assertThat(rows.get(1).matchedProfileOf(me.getId())).isNull();
+        assertThat(matchRepository.findMatchRow(withAlice.getId())).contains(rows.get(0));
+    }
+
+    @Test
+    @DisplayName("Should look up pairs by canonical key, one at a time and in a batch")
+    void shouldFindMatchesByPair() {
+        // Given
+        Match withAlice = persistMatch(me, alice, true);
+        Match withCarol = persistMatch(me, carol, false);
+        entityManager.flush();
+        MatchPair aliceKey = MatchPair.of(alice.getId(), me.getId());
+
+        // When
+        Map<MatchPair, Long> active = matchRepository.findActiveMatchIds(List.of(
+                aliceKey, MatchPair.of(me.getId(), bob.getId()), MatchPair.of(me.getId(), carol.getId())));
+
+        // Then
+        assertThat(matchRepository.findIdByPair(aliceKey.user1Id(), aliceKey.user2Id())).contains(withAlice.getId());
+        assertThat(matchRepository.findIdByPair(aliceKey.user2Id(), aliceKey.user1Id())).isEmpty();
+        assertThat(matchRepository.findIdByPair(Math.min(me.getId(), carol.getId()), Math.max(me.getId(), carol.getId())))
+                .contains(withCarol.getId());
+        assertThat(active).containsOnly(Map.entry(aliceKey, withAlice.getId()));
+    }
+
+    @Test
+    @DisplayName("Should find idle matches without messages and deactivate them")
+    void shouldFindAndDeactivateIdleMatches() {
+        // Given - z Alice ktoś napisał, z Bobem cisza, z Carol już nieaktywny
+        Match withAlice = persistMatch(me, alice, true);
+        Match withBob = persistMatch(me, bob, true);
+        persistMatch(me, carol, false);
+        persistMessage(withAlice, alice, "Hej", false);
+        entityManager.flush();
+
+        // When
+        List<Object[]> idle = matchRepository.findIdleMatches(LocalDateTime.now().plusMinutes(1), Limit.of(10));
+        List<Object[]> tooYoung = matchRepository.findIdleMatches(LocalDateTime.now().minusDays(1), Limit.of(10));
+        int deactivated = matchRepository.deactivateAll(List.of(withBob.getId(), withAlice.getId()));
+        entityManager.clear();
+
+        // Then
+        assertThat(idle).hasSize(1);
+        assertThat(idle.get(0)[0]).isEqualTo(withBob.getId());
+        assertThat(tooYoung).isEmpty();
+        assertThat(deactivated).isEqualTo(2);
+        assertThat(matchRepository.findActiveMatchRows(me.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reactivate on upsert only the match deactivated by an undo")
+    void shouldReactivateOnlyUndoneMatches() {
+        // Given - match z Alice cofnięty przez undo, z Bobem zakończony przez unmatch
+        Match withAlice = persistMatch(me, alice, true);
+        Match withBob = persistMatch(me, bob, true);
+        entityManager.flush();
+        MatchPair alicePair = MatchPair.of(me.getId(), alice.getId());
+        MatchPair bobPair = MatchPair.of(me.getId(), bob.getId());
+        matchRepository.deactivatePair(alicePair.user1Id(), alicePair.user2Id());
+        matchRepository.deactivateAll(List.of(withBob.getId()));
+        entityManager.clear();
+
+        // When - obie pary znów się lubią
+        Optional<Long> aliceMatchId = matchRepository.upsertMatch(alicePair.user1Id(), alicePair.user2Id());
+        Optional<Long> bobMatchId = matchRepository.upsertMatch(bobPair.user1Id(), bobPair.user2Id());
+
+        // Then
+        assertThat(aliceMatchId).contains(withAlice.getId());
+        assertThat(bobMatchId).isEmpty();
+        assertThat(matchRepository.findActiveMatchRows(me.getId()))
+                .extracting(MatchRow::matchId).containsExactly(withAlice.getId());
+        assertThat(matchRepository.findMatchRow(withBob.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep an unmatched pair ended after undo and a repeated like")
+    void shouldNotReviveUnmatchedMatchAfterUndo() {
+        // Given - unmatch, a potem cofnięcie LIKE w oknie undo (match już nieaktywny, więc nie jest oznaczany)
+        Match withAlice = persistMatch(me, alice, true);
+        entityManager.flush();
+        MatchPair pair = MatchPair.of(me.getId(), alice.getId());
+        matchRepository.deactivateAll(List.of(withAlice.getId()));
+        int undone = matchRepository.deactivatePair(pair.user1Id(), pair.user2Id());
+        entityManager.clear();
+
+        // When - ponowny LIKE
+        Optional<Long> matchId = matchRepository.upsertMatch(pair.user1Id(), pair.user2Id());
+
+        // Then
+        assertThat(undone).isZero();
+        assertThat(matchId).isEmpty();
+        assertThat(matchRepository.findActiveMatchRows(me.getId())).isEmpty();
+    }
+
+    private User persistUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        return entityManager.persist(user);
+    }
+
+    private Match persistMatch(User a, User b, boolean active) {
+        Match match = new Match();
+        match.setUser1(a.getId() < b.getId() ? a : b);
+        match.setUser2(a.getId() < b.getId() ? b : a);
+        match.setIsActive(active);
+        return entityManager.persist(match);
+    }
+
+    private Message persistMessage(Match match, User sender, String content, boolean read) {
+        Message message = new Message();
+        message.setMatch(match);
+        message.setSender(sender);
+        message.setContent(content);
+        message.setIsRead(read);
+        return entityManager.persist(message);
+    }
+}
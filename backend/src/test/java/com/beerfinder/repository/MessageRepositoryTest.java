@@ -0,0 +1,102 @@
+package com.beerfinder.repository;
+
+import com.beerfinder.entity.Match;
+import com.beerfinder.entity.Message;
+import com.beerfinder.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class MessageRepositoryTest {
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Match match;
+    private final List<Long> messageIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User userA = persistUser("userA@test.com");
+        User userB = persistUser("userB@test.com");
+
+        match = new Match();
+        match.setUser1(userA);
+        match.setUser2(userB);
+        entityManager.persist(match);
+
+        // Inny match - jego wiadomości nie mogą trafić na stronę
+        User userC = persistUser("userC@test.com");
+        Match otherMatch = new Match();
+        otherMatch.setUser1(userA);
+        otherMatch.setUser2(userC);
+        entityManager.persist(otherMatch);
+
+        for (int i = 0; i < 5; i++) {
+            messageIds.add(persistMessage(match, i % 2 == 0 ? userA : userB, "msg " + i).getId());
+            persistMessage(otherMatch, userC, "other " + i);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should return the newest messages of a match first, page by page")
+    void shouldPageHistoryByKeyset() {
+        // When
+        List<Message> first = messageRepository.findPageBefore(match, Long.MAX_VALUE, Limit.of(2));
+        List<Message> second = messageRepository.findPageBefore(match, first.get(1).getId(), Limit.of(2));
+        List<Message> last = messageRepository.findPageBefore(match, second.get(1).getId(), Limit.of(2));
+
+        // Then
+        assertThat(first).extracting(Message::getId).containsExactly(messageIds.get(4), messageIds.get(3));
+        assertThat(second).extracting(Message::getId).containsExactly(messageIds.get(2), messageIds.get(1));
+        assertThat(last).extracting(Message::getId).containsExactly(messageIds.get(0));
+        assertThat(first.get(0).getSender().getEmail()).isEqualTo("userA@test.com"); // nadawca pobrany razem
+    }
+
+    @Test
+    @DisplayName("Should mark only the other user's unread messages of the match as read in one update")
+    void shouldMarkReadByRecipient() {
+        // Given - userB czyta: wiadomości userA to id 0, 2, 4
+        Long readerId = messageRepository.findById(messageIds.get(1)).orElseThrow().getSender().getId();
+
+        // When
+        int marked = messageRepository.markReadByRecipient(match.getId(), readerId);
+        int again = messageRepository.markReadByRecipient(match.getId(), readerId);
+
+        // Then
+        assertThat(marked).isEqualTo(3);
+        assertThat(again).isZero();
+        assertThat(messageRepository.countByMatchAndSenderIdNotAndIsReadFalse(match, readerId)).isZero();
+        assertThat(messageRepository.findById(messageIds.get(1)).orElseThrow().getIsRead()).isFalse();
+    }
+
+    private User persistUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        return entityManager.persist(user);
+    }
+
+    private Message persistMessage(Match match, User sender, String content) {
+        Message message = new Message();
+        message.setMatch(match);
+        message.setSender(sender);
+        message.setContent(content);
+        return entityManager.persist(message);
+    }
+}
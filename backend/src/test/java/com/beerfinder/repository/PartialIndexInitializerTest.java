@@ -0,0 +1,53 @@
+package com.beerfinder.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PartialIndexInitializerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private PartialIndexInitializer initializer;
+
+    @Test
+    @DisplayName("Should skip valid indexes, rebuild invalid ones and create missing ones")
+    void shouldRebuildInvalidIndexes() {
+        // Given - user1 poprawny, user2 nieważny po przerwanym budowaniu, created nie istnieje
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<String>>any())).thenReturn("PostgreSQL");
+        when(jdbcTemplate.queryForList(anyString(), eq(Boolean.class), eq("idx_matches_active_user1")))
+                .thenReturn(List.of(true));
+        when(jdbcTemplate.queryForList(anyString(), eq(Boolean.class), eq("idx_matches_active_user2")))
+                .thenReturn(List.of(false));
+        when(jdbcTemplate.queryForList(anyString(), eq(Boolean.class), eq("idx_matches_active_created")))
+                .thenReturn(List.of());
+
+        // When
+        initializer.createIndexes();
+
+        // Then
+        verify(jdbcTemplate, never()).execute(startsWith("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_matches_active_user1 "));
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("DROP INDEX CONCURRENTLY IF EXISTS idx_matches_active_user2");
+        inOrder.verify(jdbcTemplate).execute(startsWith("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_matches_active_user2 "));
+        inOrder.verify(jdbcTemplate).execute(startsWith("CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_matches_active_created "));
+        verify(jdbcTemplate, never()).execute(startsWith("DROP INDEX CONCURRENTLY IF EXISTS idx_matches_active_created"));
+    }
+}
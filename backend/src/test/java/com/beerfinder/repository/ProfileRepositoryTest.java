@@ -1,5 +1,7 @@
 package com.beerfinder.repository;
 
+import com.beerfinder.dto.DiscoverCandidate;
+import com.beerfinder.dto.ProfileCard;
 import com.beerfinder.entity.Profile;
 import com.beerfinder.entity.Swipe;
 import com.beerfinder.entity.SwipeAction;
@@ -10,8 +12,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -73,35 +77,169 @@ class ProfileRepositoryTest {
     }
 
     @Test
-    @DisplayName("Should return profiles that were not swiped yet")
-    void shouldFindDiscoverProfiles() {
-        List<Profile> discover = profileRepository.findDiscoverProfiles(currentUser);
+    @DisplayName("Should exclude swiped profiles in the database in the fallback keyset queries")
+    void shouldExcludeSwipedProfilesInFallbackQueries() {
+        Long otherId = profileRepository.findByUser(otherUser).orElseThrow().getId();
+        assertThat(profileRepository.findUnswipedCandidatesAfter(currentUser, null, null, 0L, Limit.of(10)))
+                .extracting(DiscoverCandidate::profileId).containsExactly(otherId);
 
-        assertThat(discover).hasSize(1);
-        assertThat(discover.get(0).getUser().getEmail()).isEqualTo("other@test.com");
-    }
-
-    @Test
-    @DisplayName("Should not return already swiped profiles")
-    void shouldExcludeSwipedProfiles() {
         Swipe swipe = new Swipe();
         swipe.setSwiper(currentUser);
         swipe.setSwiped(otherUser);
-        swipe.setAction(SwipeAction.LIKE);
+        swipe.setAction(SwipeAction.PASS);
         entityManager.persist(swipe);
         entityManager.flush();
 
-        List<Profile> discover = profileRepository.findDiscoverProfiles(currentUser);
+        assertThat(profileRepository.findUnswipedCandidatesAfter(currentUser, null, null, 0L, Limit.of(10))).isEmpty();
+        assertThat(profileRepository.findUnswipedCandidateIdsAfter(currentUser.getId(), 0L, Limit.of(10))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should restrict discover to the given profile ids")
+    void shouldFindDiscoverProfilesByIds() {
+        Profile other = profileRepository.findByUser(otherUser).orElseThrow();
+        Profile mine = profileRepository.findByUser(currentUser).orElseThrow();
+
+        List<DiscoverCandidate> discover = profileRepository.findDiscoverCandidatesByIds(
+                currentUser, List.of(other.getId(), mine.getId()), null, null, 0L, Limit.of(10));
+        List<DiscoverCandidate> outsideAgeRange = profileRepository.findDiscoverCandidatesByIds(
+                currentUser, List.of(other.getId()), 18, 25, 0L, Limit.of(10));
+
+        assertThat(discover).containsExactly(new DiscoverCandidate(other.getId(), otherUser.getId()));
+        assertThat(outsideAgeRange).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should return only profiles within radius computed in the database")
+    void shouldFindDiscoverProfilesWithinRadius() {
+        User farUser = new User();
+        farUser.setEmail("far@test.com");
+        farUser.setPasswordHash("encoded_password");
+        entityManager.persist(farUser);
+
+        Profile farProfile = new Profile();
+        farProfile.setUser(farUser);
+        farProfile.setName("Far Away");
+        farProfile.setAge(30);
+        farProfile.setLatitude(52.2297); // Warszawa
+        farProfile.setLongitude(21.0122);
+        entityManager.persist(farProfile);
+
+        Profile other = profileRepository.findByUser(otherUser).orElseThrow();
+        other.setLatitude(54.4416); // Sopot
+        other.setLongitude(18.5601);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Gdańsk, promień 50 km - prostokąt obejmuje Sopot, ale nie Warszawę
+        List<DiscoverCandidate> discover = profileRepository.findDiscoverCandidatesWithinRadius(
+                currentUser, null, null, 54.3520, 18.6466, 50, 53.9, 54.8, 17.9, 19.4, 0L, Limit.of(10));
+        // Prostokąt obejmuje oba miasta - Warszawę odrzuca dopiero dokładny Haversine
+        List<DiscoverCandidate> wideBox = profileRepository.findDiscoverCandidatesWithinRadius(
+                currentUser, null, null, 54.3520, 18.6466, 50, -90, 90, -180, 180, 0L, Limit.of(10));
 
-        assertThat(discover).isEmpty();
+        assertThat(discover).extracting(DiscoverCandidate::profileId).containsExactly(other.getId());
+        assertThat(wideBox).extracting(DiscoverCandidate::profileId).containsExactly(other.getId());
     }
 
     @Test
     @DisplayName("Should return profiles when they match age filters")
     void shouldIncludeProfilesWithinAgeRange() {
-        List<Profile> discover = profileRepository.findDiscoverProfilesWithFilters(currentUser, 28, 32);
+        Long otherId = profileRepository.findByUser(otherUser).orElseThrow().getId();
+
+        assertThat(profileRepository.findDiscoverCandidatesAfter(currentUser, 28, 32, 0L, Limit.of(10)))
+                .extracting(DiscoverCandidate::profileId).containsExactly(otherId);
+        assertThat(profileRepository.findDiscoverCandidatesAfter(currentUser, 31, null, 0L, Limit.of(10))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should page discover profiles by id after the cursor")
+    void shouldPageDiscoverProfilesAfterId() {
+        List<Long> pageIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User user = new User();
+            user.setEmail("page" + i + "@test.com");
+            user.setPasswordHash("encoded_password");
+            entityManager.persist(user);
+
+            Profile profile = new Profile();
+            profile.setUser(user);
+            profile.setName("Page " + i);
+            profile.setAge(27);
+            entityManager.persist(profile);
+            pageIds.add(profile.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Long otherId = profileRepository.findByUser(otherUser).orElseThrow().getId();
+
+        List<DiscoverCandidate> firstPage = profileRepository.findDiscoverCandidatesAfter(
+                currentUser, null, null, 0L, Limit.of(2));
+        List<DiscoverCandidate> secondPage = profileRepository.findDiscoverCandidatesAfter(
+                currentUser, null, null, firstPage.get(1).profileId(), Limit.of(2));
+
+        assertThat(firstPage).extracting(DiscoverCandidate::profileId).containsExactly(otherId, pageIds.get(0));
+        assertThat(secondPage).extracting(DiscoverCandidate::profileId).containsExactly(pageIds.get(1), pageIds.get(2));
+    }
+
+    @Test
+    @DisplayName("Should load discover cards and interests without hydrating entities")
+    void shouldFindDiscoverCardsAndInterests() {
+        Profile other = profileRepository.findByUser(otherUser).orElseThrow();
+        other.setInterests(new ArrayList<>(List.of("piwo", "góry")));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<ProfileCard> cards = profileRepository.findDiscoverCards(List.of(other.getId()));
+        List<Object[]> interests = profileRepository.findInterestsByProfileIds(List.of(other.getId()));
+
+        assertThat(cards).hasSize(1);
+        assertThat(cards.get(0).userId()).isEqualTo(otherUser.getId());
+        assertThat(cards.get(0).name()).isEqualTo("Someone Else");
+        assertThat(cards.get(0).age()).isEqualTo(30);
+        assertThat(interests).extracting(row -> row[1]).containsExactlyInAnyOrder("piwo", "góry");
+        assertThat(interests).allSatisfy(row -> assertThat(row[0]).isEqualTo(other.getId()));
+    }
+
+    @Test
+    @DisplayName("Should return coordinates of candidates inside the rectangle")
+    void shouldFindDiscoverCandidateLocations() {
+        Profile other = profileRepository.findByUser(otherUser).orElseThrow();
+        other.setLatitude(54.4416);
+        other.setLongitude(18.5601);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Object[]> inside = profileRepository.findDiscoverCandidateLocations(
+                currentUser, null, null, 53.9, 54.8, 17.9, 19.4);
+        List<Object[]> tooOld = profileRepository.findDiscoverCandidateLocations(
+                currentUser, null, 25, 53.9, 54.8, 17.9, 19.4);
+
+        assertThat(inside).hasSize(1);
+        assertThat(inside.get(0)).containsExactly(other.getId(), otherUser.getId(), 54.4416, 18.5601);
+        assertThat(tooOld).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should load the card of a user's profile")
+    void shouldFindCardByUserId() {
+        assertThat(profileRepository.findCardByUserId(otherUser.getId()))
+                .hasValueSatisfying(card -> {
+                    assertThat(card.userId()).isEqualTo(otherUser.getId());
+                    assertThat(card.age()).isEqualTo(30);
+                });
+    }
+
+    @Test
+    @DisplayName("Should return one row per interest and a null row for profiles without interests")
+    void shouldFindAllInterests() {
+        Profile other = profileRepository.findByUser(otherUser).orElseThrow();
+        other.setInterests(new ArrayList<>(List.of("Beer", "Chess")));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Object[]> rows = profileRepository.findAllInterests();
 
-        assertThat(discover).hasSize(1);
-        assertThat(discover.get(0).getAge()).isEqualTo(30);
+        assertThat(rows).extracting(row -> row[2]).containsExactlyInAnyOrder("Beer", "Chess", null);
     }
-}
\ No newline at end of file
+}
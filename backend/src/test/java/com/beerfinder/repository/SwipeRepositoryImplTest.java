@@ -0,0 +1,70 @@
+package com.beerfinder.repository;
+
+import com.beerfinder.entity.Swipe;
+import com.beerfinder.entity.SwipeAction;
+import com.beerfinder.entity.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SwipeRepositoryImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should match generated keys to swipes by pair when the driver reports no row counts")
+    void shouldMatchKeysByPair() {
+        // Given - PostgreSQL z reWriteBatchedInserts: liczniki bez informacji, klucze tylko wstawionych wierszy
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            KeyHolder keyHolder = invocation.getArgument(2);
+            keyHolder.getKeyList().add(Map.of("id", 71L, "swiper_id", 1L, "swiped_id", 4L));
+            keyHolder.getKeyList().add(Map.of("id", 70L, "swiper_id", 1L, "swiped_id", 2L));
+            return new int[]{Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO};
+        });
+        Swipe toTwo = swipe(1L, 2L);
+        Swipe toThree = swipe(1L, 3L); // para już zapisana - pominięta
+        Swipe toFour = swipe(1L, 4L);
+
+        // When
+        List<Swipe> inserted = new SwipeRepositoryImpl(jdbcTemplate).batchInsertIfAbsent(List.of(toTwo, toThree, toFour));
+
+        // Then
+        assertThat(inserted).containsExactly(toTwo, toFour);
+        assertThat(toTwo.getId()).isEqualTo(70L);
+        assertThat(toThree.getId()).isNull();
+        assertThat(toFour.getId()).isEqualTo(71L);
+    }
+
+    private static Swipe swipe(Long swiperId, Long swipedId) {
+        Swipe swipe = new Swipe();
+        swipe.setSwiper(user(swiperId));
+        swipe.setSwiped(user(swipedId));
+        swipe.setAction(SwipeAction.PASS);
+        return swipe;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
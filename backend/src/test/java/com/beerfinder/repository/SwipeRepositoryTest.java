@@ -9,7 +9,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -62,22 +65,159 @@ class SwipeRepositoryTest {
     }
 
     @Test
-    @DisplayName("Should find swipe by swiper, swiped and specific action")
-    void shouldFindSwipeByAction() {
+    @DisplayName("Should return ids of all users swiped by the swiper")
+    void shouldFindSwipedUserIds() {
         // Given
         Swipe swipe = new Swipe();
         swipe.setSwiper(userA);
         swipe.setSwiped(userB);
-        swipe.setAction(SwipeAction.LIKE);
+        swipe.setAction(SwipeAction.PASS);
+        entityManager.persist(swipe);
+        entityManager.flush();
+
+        // When
+        List<Long> swipedByA = swipeRepository.findSwipedUserIdsBySwiperId(userA.getId());
+        List<Long> swipedByB = swipeRepository.findSwipedUserIdsBySwiperId(userB.getId());
+
+        // Then
+        assertThat(swipedByA).containsExactly(userB.getId());
+        assertThat(swipedByB).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should insert swipes in one batch and detect mutual likes")
+    void shouldBatchInsertSwipesAndFindLikers() {
+        // Given - B polubił A wcześniej
+        Swipe earlier = new Swipe();
+        earlier.setSwiper(userB);
+        earlier.setSwiped(userA);
+        earlier.setAction(SwipeAction.LIKE);
+        entityManager.persist(earlier);
+
+        User userC = new User();
+        userC.setEmail("userC@test.com");
+        userC.setPasswordHash("hash");
+        entityManager.persist(userC);
+        entityManager.flush();
+
+        Swipe likeB = new Swipe();
+        likeB.setSwiper(userA);
+        likeB.setSwiped(userB);
+        likeB.setAction(SwipeAction.LIKE);
+        Swipe passC = new Swipe();
+        passC.setSwiper(userA);
+        passC.setSwiped(userC);
+        passC.setAction(SwipeAction.PASS);
+
+        // When
+        swipeRepository.batchInsert(List.of(likeB, passC));
+
+        // Then
+        assertThat(likeB.getId()).isNotNull();
+        assertThat(passC.getId()).isNotNull().isNotEqualTo(likeB.getId());
+        assertThat(swipeRepository.findSwipedUserIdsIn(userA.getId(), List.of(userB.getId(), userC.getId())))
+                .containsExactlyInAnyOrder(userB.getId(), userC.getId());
+        assertThat(swipeRepository.findLikersAmong(userA.getId(), List.of(userB.getId(), userC.getId())))
+                .containsExactly(userB.getId());
+    }
+
+    @Test
+    @DisplayName("Should skip already stored pairs in a conflict-tolerant batch insert")
+    void shouldSkipExistingPairsInBatchInsertIfAbsent() {
+        // Given - A już przesunął B
+        User userC = new User();
+        userC.setEmail("userC@test.com");
+        userC.setPasswordHash("hash");
+        entityManager.persist(userC);
+        persistSwipe(userA, userB, SwipeAction.PASS);
+        entityManager.flush();
+
+        Swipe likeB = new Swipe();
+        likeB.setSwiper(userA);
+        likeB.setSwiped(userB);
+        likeB.setAction(SwipeAction.LIKE);
+        Swipe passC = new Swipe();
+        passC.setSwiper(userA);
+        passC.setSwiped(userC);
+        passC.setAction(SwipeAction.PASS);
+
+        // When
+        List<Swipe> inserted = swipeRepository.batchInsertIfAbsent(List.of(likeB, passC));
+
+        // Then
+        assertThat(inserted).containsExactly(passC);
+        assertThat(likeB.getId()).isNull();
+        assertThat(passC.getId()).isNotNull();
+        assertThat(swipeRepository.findLikersAmong(userB.getId(), List.of(userA.getId()))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should return only likes that were not answered yet")
+    void shouldFindPendingLikes() {
+        // Given - A polubił B (bez odpowiedzi), C polubił A, a A odpowiedział PASS
+        User userC = new User();
+        userC.setEmail("userC@test.com");
+        userC.setPasswordHash("hash");
+        entityManager.persist(userC);
+
+        persistSwipe(userA, userB, SwipeAction.LIKE);
+        persistSwipe(userC, userA, SwipeAction.LIKE);
+        persistSwipe(userA, userC, SwipeAction.PASS);
+        entityManager.flush();
+
+        // When
+        List<Object[]> pending = swipeRepository.findPendingLikes();
+
+        // Then
+        assertThat(pending).hasSize(1);
+        assertThat(pending.get(0)).containsExactly(userA.getId(), userB.getId());
+    }
+
+    private void persistSwipe(User swiper, User swiped, SwipeAction action) {
+        Swipe swipe = new Swipe();
+        swipe.setSwiper(swiper);
+        swipe.setSwiped(swiped);
+        swipe.setAction(action);
         entityManager.persist(swipe);
+    }
+
+    @Test
+    @DisplayName("Should insert a swipe once and report the duplicate without an exception")
+    void shouldInsertIfAbsent() {
+        // When
+        Optional<Long> first = swipeRepository.insertIfAbsent(userA.getId(), userB.getId(), SwipeAction.LIKE);
+        Optional<Long> duplicate = swipeRepository.insertIfAbsent(userA.getId(), userB.getId(), SwipeAction.PASS);
+
+        // Then
+        assertThat(first).isPresent();
+        assertThat(duplicate).isEmpty();
+        assertThat(swipeRepository.findSwipedUserIdsBySwiperId(userA.getId())).containsExactly(userB.getId());
+    }
+
+    @Test
+    @DisplayName("Should select only PASS swipes older than the cutoff for archival")
+    void shouldFindArchivablePasses() {
+        // Given
+        User userC = new User();
+        userC.setEmail("userC@test.com");
+        userC.setPasswordHash("hash");
+        entityManager.persist(userC);
+
+        persistSwipe(userA, userB, SwipeAction.PASS);
+        persistSwipe(userA, userC, SwipeAction.LIKE);
+        persistSwipe(userB, userC, SwipeAction.PASS);
         entityManager.flush();
 
         // When
-        Optional<Swipe> found = swipeRepository.findBySwiperAndSwipedAndAction(userA, userB, SwipeAction.LIKE);
-        Optional<Swipe> notFound = swipeRepository.findBySwiperAndSwipedAndAction(userA, userB, SwipeAction.PASS);
+        List<Object[]> archivable = swipeRepository.findArchivablePasses(LocalDateTime.now().plusMinutes(1), Limit.of(10));
+        List<Object[]> limited = swipeRepository.findArchivablePasses(LocalDateTime.now().plusMinutes(1), Limit.of(1));
+        List<Object[]> tooYoung = swipeRepository.findArchivablePasses(LocalDateTime.now().minusDays(1), Limit.of(10));
 
         // Then
-        assertThat(found).isPresent();
-        assertThat(notFound).isEmpty();
+        assertThat(archivable).hasSize(2);
+        assertThat(archivable.get(0)).endsWith(userA.getId(), userB.getId());
+        assertThat(archivable.get(1)).endsWith(userB.getId(), userC.getId());
+        assertThat(limited).hasSize(1);
+        assertThat(tooYoung).isEmpty();
     }
-}
\ No newline at end of file
+}
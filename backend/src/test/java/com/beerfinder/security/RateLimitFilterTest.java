@@ -0,0 +1,124 @@
+package com.beerfinder.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitFilterTest {
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private FilterChain filterChain;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Swipe'y: burst 2, wiadomości: burst 1
+        rateLimitFilter = new RateLimitFilter(jwtUtil, new ObjectMapper().findAndRegisterModules(),
+                true, 1, 2, 1, 1, 1000, Duration.ofMinutes(10));
+        rateLimitFilter.bindTo(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should return 429 with Retry-After once the burst is used up")
+    void shouldRejectOverLimit() throws Exception {
+        // Given
+        when(jwtUtil.extractUserId("token")).thenReturn(1L);
+
+        // When
+        MockHttpServletResponse first = perform("/api/swipes");
+        MockHttpServletResponse second = perform("/api/swipes/batch");
+        MockHttpServletResponse third = perform("/api/swipes");
+
+        // Then
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(second.getStatus()).isEqualTo(200);
+        assertThat(third.getStatus()).isEqualTo(429);
+        assertThat(third.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(third.getContentAsString()).contains("Too Many Requests");
+        verify(filterChain, times(2)).doFilter(any(), any());
+        assertThat(meterRegistry.get(RateLimitFilter.REJECTED_METRIC).tag("endpoint", "swipes").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should charge one token per swipe of a batch")
+    void shouldChargeBatchPerSwipe() throws Exception {
+        // Given
+        when(jwtUtil.extractUserId("token")).thenReturn(1L);
+
+        // When - wsad 10 swipe'ów przechodzi, ale wyczerpuje i zadłuża kubełek
+        MockHttpServletResponse batch = perform("/api/swipes/batch");
+        rateLimitFilter.chargeBatchSwipes(1L, 10);
+        MockHttpServletResponse next = perform("/api/swipes");
+
+        // Then - przy 1/s i burst 2 dług spłaca się dopiero po ~9 s
+        assertThat(batch.getStatus()).isEqualTo(200);
+        assertThat(next.getStatus()).isEqualTo(429);
+        assertThat(next.getHeader("Retry-After")).isEqualTo("9");
+    }
+
+    @Test
+    @DisplayName("Should limit swipes and messages independently")
+    void shouldSeparateEndpoints() throws Exception {
+        // Given
+        when(jwtUtil.extractUserId("token")).thenReturn(1L);
+
+        // When
+        perform("/api/swipes");
+        perform("/api/swipes");
+        MockHttpServletResponse message = perform("/api/messages");
+
+        // Then
+        assertThat(message.getStatus()).isEqualTo(200);
+        assertThat(perform("/api/messages/5").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("Should pass requests without a valid token to Spring Security")
+    void shouldPassUnauthenticated() throws Exception {
+        // Given
+        when(jwtUtil.extractUserId("token")).thenThrow(new IllegalArgumentException("bad token"));
+
+        // When & Then
+        for (int i = 0; i < 5; i++) {
+            assertThat(perform("/api/swipes").getStatus()).isEqualTo(200);
+        }
+        verify(filterChain, times(5)).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should not limit other endpoints")
+    void shouldSkipOtherPaths() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/discover");
+
+        assertThat(rateLimitFilter.shouldNotFilter(request)).isTrue();
+    }
+
+    private MockHttpServletResponse perform(String uri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.addHeader("Authorization", "Bearer token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilterInternal(request, response, filterChain);
+        return response;
+    }
+}
@@ -3,6 +3,7 @@ package com.beerfinder.service;
 import com.beerfinder.dto.AuthResponse;
 import com.beerfinder.dto.LoginRequest;
 import com.beerfinder.dto.RegisterRequest;
+import com.beerfinder.entity.Profile;
 import com.beerfinder.entity.User;
 import com.beerfinder.exception.BadRequestException;
 import com.beerfinder.repository.UserRepository;
@@ -23,6 +24,8 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +43,9 @@ class AuthServiceTest {
     @Mock
     private AuthenticationManager authenticationManager;
 
+    @Mock
+    private InterestDictionary interestDictionary;
+
     @InjectMocks
     private AuthService authService;
 
@@ -54,6 +60,10 @@ class AuthServiceTest {
         User savedUser = new User();
         savedUser.setId(1L);
         savedUser.setEmail(request.getEmail());
+        Profile savedProfile = new Profile();
+        savedProfile.setId(5L);
+        savedProfile.setUser(savedUser);
+        savedUser.setProfile(savedProfile);
 
         when(userRepository.existsByEmail(request.getEmail())).thenReturn(false);
         when(passwordEncoder.encode(request.getPassword())).thenReturn("hashedPassword");
@@ -72,6 +82,8 @@ class AuthServiceTest {
         verify(userRepository).save(argThat(user ->
                 user.getProfile() != null && user.getProfile().getUser() == user
         ));
+        // Nowy profil trafia do słownika zainteresowań bez czekania na edycję
+        verify(interestDictionary).update(eq(5L), eq(1L), isNull(), any());
     }
 
     @Test
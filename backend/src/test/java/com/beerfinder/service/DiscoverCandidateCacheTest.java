@@ -0,0 +1,172 @@
+package com.beerfinder.service;
+
+import com.beerfinder.dto.DiscoverCandidate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiscoverCandidateCacheTest {
+
+    private static final DiscoverCandidateCache.Filters NEAR_GDANSK = new DiscoverCandidateCache.Filters(20, 30, 50);
+    private static final LongPredicate NONE_SWIPED = userId -> false;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DiscoverCandidateCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new DiscoverCandidateCache(meterRegistry, 3, 1000, Duration.ofMinutes(10));
+        loads = new AtomicInteger();
+    }
+
+    private Supplier<List<DiscoverCandidate>> loader(DiscoverCandidate... candidates) {
+        return () -> {
+            loads.incrementAndGet();
+            return List.of(candidates);
+        };
+    }
+
+    private static DiscoverCandidate profile(long id, long userId) {
+        return new DiscoverCandidate(id, userId);
+    }
+
+    private static DiscoverCandidateCache.FilterFields fields(Integer age, Double latitude, Double longitude) {
+        return new DiscoverCandidateCache.FilterFields(age, latitude, longitude);
+    }
+
+    @Test
+    @DisplayName("Should load candidates once and serve pages from the cache")
+    void shouldServePagesFromCache() {
+        Supplier<List<DiscoverCandidate>> loader = loader(profile(10, 100), profile(11, 101));
+
+        assertThat(cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 1, NONE_SWIPED, loader)).contains(List.of(10L));
+        assertThat(cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 10L, 5, NONE_SWIPED, loader)).contains(List.of(11L));
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", DiscoverCandidateCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should fall through beyond the cached range of an incomplete entry")
+    void shouldMissBeyondCachedRange() {
+        // Pojemność 3 - lista niepełna, dalsze strony idą do bazy
+        Supplier<List<DiscoverCandidate>> loader = loader(profile(10, 100), profile(11, 101), profile(12, 102));
+
+        assertThat(cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 11L, 2, NONE_SWIPED, loader)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should trim swiped users from the swiper's entries")
+    void shouldTrimOnSwipe() {
+        cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, NONE_SWIPED, loader(profile(10, 100), profile(11, 101)));
+
+        cache.onSwipe(1L, 100L);
+
+        assertThat(cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, NONE_SWIPED, loader())).contains(List.of(11L));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should put an undone swipe back into the entries it matches")
+    void shouldRestoreOnUndo() {
+        cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, NONE_SWIPED, loader(profile(10, 100), profile(11, 101)));
+        cache.onSwipe(1L, 100L);
+
+        cache.onUndo(1L, 300L, 30L, 45, 54.44, 18.56); // poza przedziałem wieku - nie wraca
+        cache.onUndo(1L, 100L, 10L, 25, 54.44, 18.56); // Sopot, 25 lat
+
+        assertThat(cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, NONE_SWIPED, loader())).contains(List.of(10L, 11L));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should add a changed profile in place to the entries it now matches")
+    void shouldAddChangedProfileInRegion() {
+        cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, NONE_SWIPED, loader(profile(10, 100)));
+
+        cache.onProfileChanged(200L, 20L, fields(25, null, null), fields(25, 52.23, 21.01)); // Warszawa - poza zasięgiem
+        assertThat(cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, NONE_SWIPED, loader())).contains(List.of(10L));
+
+        cache.onProfileChanged(200L, 20L, fields(25, 52.23, 21.01), fields(25, 54.44, 18.56)); // Sopot - w zasięgu
+        assertThat(cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, NONE_SWIPED, loader())).contains(List.of(10L, 20L));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should remove a changed profile in place from the entries it no longer matches")
+    void shouldRemoveProfileThatLeftEntry() {
+        cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, NONE_SWIPED, loader(profile(10, 100), profile(11, 101)));
+
+        cache.onProfileChanged(100L, 10L, fields(25, 54.44, 18.56), fields(25, 52.23, 21.01)); // przeprowadzka do Warszawy
+        cache.onProfileChanged(101L, 11L, fields(25, 54.44, 18.56), fields(26, 54.44, 18.56)); // nadal w przedziale wieku
+
+        assertThat(cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, NONE_SWIPED, loader())).contains(List.of(11L));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should leave every entry alone when the filtered fields did not change")
+    void shouldIgnoreChangesOutsideFilteredFields() {
+        DiscoverCandidateCache.Filters twenties = new DiscoverCandidateCache.Filters(20, 30, null);
+        cache.page(1L, twenties, null, null, 0L, 5, NONE_SWIPED, loader(profile(10, 100)));
+        cache.page(2L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, NONE_SWIPED, loader(profile(10, 100)));
+
+        // Zmiana samego opisu - ani wpisy innych, ani własne nie są ruszane
+        cache.onProfileChanged(200L, 20L, fields(25, 54.44, 18.56), fields(25, 54.44, 18.56));
+        cache.onProfileChanged(2L, 2L, fields(30, 54.35, 18.65), fields(30, 54.35, 18.65));
+
+        assertThat(cache.page(1L, twenties, null, null, 0L, 5, NONE_SWIPED, loader())).contains(List.of(10L));
+        assertThat(cache.page(2L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, NONE_SWIPED, loader())).contains(List.of(10L));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should update age-only entries regardless of where the changed profile is")
+    void shouldUpdateAgeOnlyEntries() {
+        DiscoverCandidateCache.Filters twenties = new DiscoverCandidateCache.Filters(20, 30, null);
+        cache.page(1L, twenties, null, null, 0L, 5, NONE_SWIPED, loader(profile(10, 100)));
+
+        cache.onProfileChanged(200L, 20L, fields(44, null, null), fields(45, null, null)); // poza przedziałem wieku
+        assertThat(cache.page(1L, twenties, null, null, 0L, 5, NONE_SWIPED, loader())).contains(List.of(10L));
+
+        cache.onProfileChanged(200L, 20L, fields(45, null, null), fields(25, -33.87, 151.21)); // Sydney - odległość nie ma znaczenia
+        assertThat(cache.page(1L, twenties, null, null, 0L, 5, NONE_SWIPED, loader())).contains(List.of(10L, 20L));
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should keep trimming swipes from an entry reloaded after its owner moved")
+    void shouldTrimReloadedEntry() {
+        cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, NONE_SWIPED, loader(profile(10, 100), profile(11, 101)));
+        cache.onProfileChanged(1L, 1L, fields(25, 54.30, 18.60), fields(25, 54.35, 18.65)); // własna przeprowadzka - wpis unieważniony
+        cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, NONE_SWIPED, loader(profile(10, 100), profile(11, 101)));
+
+        cache.onSwipe(1L, 100L);
+
+        assertThat(cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, NONE_SWIPED, loader())).contains(List.of(11L));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should skip users swiped before their swipe event reached the cache")
+    void shouldSkipSwipedUsersWhenServing() {
+        Supplier<List<DiscoverCandidate>> loader = loader(profile(10, 100), profile(11, 101));
+
+        assertThat(cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 1, userId -> userId == 100L, loader))
+                .contains(List.of(11L));
+        // Pełny wpis (mniej niż capacity) - krótsza strona jest wiarygodna
+        assertThat(cache.page(1L, NEAR_GDANSK, 54.35, 18.65, 0L, 5, userId -> userId == 101L, loader))
+                .contains(List.of(10L));
+    }
+}
@@ -0,0 +1,147 @@
+package com.beerfinder.service;
+
+import com.beerfinder.repository.ProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DiscoverDeckServiceTest {
+
+    @Mock
+    private ProfileRepository profileRepository;
+
+    @Mock
+    private SwipedUsersCache swipedUsers;
+
+    private static final LongPredicate NONE_SWIPED = userId -> false;
+
+    private DiscoverDeckService deckService;
+
+    @BeforeEach
+    void setUp() {
+        // Wykonawca synchroniczny - uzupełnianie dzieje się od razu
+        deckService = new DiscoverDeckService(profileRepository, swipedUsers, Runnable::run, 4, 2, 100, Duration.ofMinutes(30));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the database while the deck is cold and serve from it afterwards")
+    void shouldServeFromDeckOnceLoaded() {
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+        when(profileRepository.findDiscoverCandidateIdsAfter(1L, 0L, Limit.of(1000)))
+                .thenReturn(List.of(new Object[]{10L, 100L}, new Object[]{11L, 101L}, new Object[]{12L, 102L}));
+
+        // Pierwszy odczyt tylko zleca wypełnienie talii - wykonawca jest synchroniczny, więc już jest gotowa
+        assertThat(deckService.peek(1L, 0L, 2, NONE_SWIPED)).contains(List.of(10L, 11L));
+        assertThat(deckService.peek(1L, 11L, 2, NONE_SWIPED)).contains(List.of(12L));
+        verify(profileRepository, times(1)).findDiscoverCandidateIdsAfter(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should remove swiped users and refill below the low-water mark")
+    void shouldConsumeAndRefill() {
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+        // Pięć wierszy na cztery miejsca - talia pełna, ale baza nie jest wyczerpana
+        when(profileRepository.findDiscoverCandidateIdsAfter(1L, 0L, Limit.of(1000)))
+                .thenReturn(List.of(new Object[]{10L, 100L}, new Object[]{11L, 101L},
+                        new Object[]{12L, 102L}, new Object[]{13L, 103L}, new Object[]{14L, 104L}));
+        when(profileRepository.findDiscoverCandidateIdsAfter(eq(1L), eq(13L), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{14L, 104L}));
+
+        deckService.peek(1L, 0L, 1, NONE_SWIPED);
+
+        deckService.consume(1L, 100L);
+        deckService.consume(1L, 101L);
+        assertThat(deckService.peek(1L, 0L, 10, NONE_SWIPED)).isEmpty(); // 2 karty < 10, baza mogła mieć więcej
+
+        deckService.consume(1L, 102L); // spadek poniżej progu - dobieramy za ostatnim id
+
+        assertThat(deckService.peek(1L, 0L, 10, NONE_SWIPED)).contains(List.of(13L, 14L));
+    }
+
+    @Test
+    @DisplayName("Should leave out already swiped users and read further to fill the deck")
+    void shouldSkipSwipedUsersWhenFilling() {
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> userId == 100L || userId == 101L);
+        when(profileRepository.findDiscoverCandidateIdsAfter(1L, 0L, Limit.of(1000)))
+                .thenReturn(List.of(new Object[]{10L, 100L}, new Object[]{11L, 101L},
+                        new Object[]{12L, 102L}, new Object[]{13L, 103L}, new Object[]{14L, 104L}));
+
+        deckService.peek(1L, 0L, 1, NONE_SWIPED);
+
+        assertThat(deckService.peek(1L, 0L, 10, NONE_SWIPED)).contains(List.of(12L, 13L, 14L));
+    }
+
+    @Test
+    @DisplayName("Should let the database exclude swiped users once several full chunks were all swiped")
+    void shouldFallBackToDatabaseExclusion() {
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> userId <= 3000L);
+        when(profileRepository.findDiscoverCandidateIdsAfter(eq(1L), anyLong(), eq(Limit.of(1000))))
+                .thenAnswer(invocation -> chunkAfter(invocation.getArgument(1), 1000));
+        when(profileRepository.findUnswipedCandidateIdsAfter(1L, 3000L, Limit.of(1000)))
+                .thenReturn(List.<Object[]>of(new Object[]{5001L, 5001L}));
+
+        // Wykonawca synchroniczny - talia jest wypełniana już przy pierwszym odczycie
+        assertThat(deckService.peek(1L, 0L, 4, NONE_SWIPED)).contains(List.of(5001L));
+        verify(profileRepository, times(3)).findDiscoverCandidateIdsAfter(anyLong(), anyLong(), any());
+    }
+
+    private static List<Object[]> chunkAfter(long afterId, int size) {
+        List<Object[]> rows = new ArrayList<>(size);
+        for (long id = afterId + 1; id <= afterId + size; id++) {
+            rows.add(new Object[]{id, id});
+        }
+        return rows;
+    }
+
+    @Test
+    @DisplayName("Should skip cards swiped before their swipe event reached the deck")
+    void shouldSkipSwipedCardsWhenServing() {
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+        when(profileRepository.findDiscoverCandidateIdsAfter(1L, 0L, Limit.of(1000)))
+                .thenReturn(List.of(new Object[]{10L, 100L}, new Object[]{11L, 101L}, new Object[]{12L, 102L}));
+
+        deckService.peek(1L, 0L, 1, NONE_SWIPED);
+
+        // Swipe zapisany, ale consume jeszcze nie dotarł - kartę i tak pomijamy, a strona dalej jest pełna
+        assertThat(deckService.peek(1L, 0L, 2, userId -> userId == 100L)).contains(List.of(11L, 12L));
+    }
+
+    @Test
+    @DisplayName("Should put back the card of an undone swipe without rebuilding the deck")
+    void shouldRestoreUndoneCard() {
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+        when(profileRepository.findDiscoverCandidateIdsAfter(1L, 0L, Limit.of(1000)))
+                .thenReturn(List.of(new Object[]{10L, 100L}, new Object[]{11L, 101L}, new Object[]{12L, 102L}));
+
+        deckService.peek(1L, 0L, 1, NONE_SWIPED);
+        deckService.consume(1L, 100L);
+        deckService.restore(1L, 100L, 10L);
+
+        assertThat(deckService.peek(1L, 0L, 3, NONE_SWIPED)).contains(List.of(10L, 11L, 12L));
+        verify(profileRepository, times(1)).findDiscoverCandidateIdsAfter(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should ignore swipes of users without a deck")
+    void shouldIgnoreConsumeWithoutDeck() {
+        deckService.consume(1L, 100L);
+
+        verifyNoInteractions(profileRepository);
+    }
+}
@@ -0,0 +1,79 @@
+package com.beerfinder.service;
+
+import com.beerfinder.repository.ProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InterestDictionaryTest {
+
+    @Mock
+    private ProfileRepository profileRepository;
+
+    private InterestDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        dictionary = new InterestDictionary(profileRepository);
+    }
+
+    @Test
+    @DisplayName("Should warm up from the database and count shared interests case-insensitively")
+    void shouldScoreSharedInterests() {
+        when(profileRepository.findAllInterests()).thenReturn(List.of(
+                new Object[]{10L, 100L, "Beer", 25},
+                new Object[]{10L, 100L, "Hiking", 25},
+                new Object[]{11L, 101L, "Chess", 31},
+                new Object[]{12L, 102L, null, null})); // profil bez zainteresowań
+
+        dictionary.warmUp();
+        long[] viewer = dictionary.encode(List.of(" beer ", "HIKING", "Chess", "Opera"));
+
+        assertThat(dictionary.isReady()).isTrue();
+        assertThat(dictionary.distinctInterests()).isEqualTo(3); // "Opera" nie trafia do słownika przy odczycie
+        assertThat(dictionary.score(viewer))
+                .extracting(InterestDictionary.Match::profileId, InterestDictionary.Match::sharedInterests)
+                .containsExactlyInAnyOrder(
+                        tuple(10L, 2),
+                        tuple(11L, 1),
+                        tuple(12L, 0));
+        assertThat(dictionary.score(viewer, 30, null))
+                .extracting(InterestDictionary.Match::profileId)
+                .containsExactly(11L); // profil bez wieku nie spełnia ograniczenia
+    }
+
+    @Test
+    @DisplayName("Should replace interests of an updated profile")
+    void shouldReplaceInterestsOnUpdate() {
+        dictionary.update(10L, 100L, 25, List.of("Beer"));
+        dictionary.update(10L, 100L, 25, List.of("Chess"));
+
+        long[] viewer = dictionary.encode(List.of("Beer"));
+
+        assertThat(dictionary.score(viewer))
+                .extracting(InterestDictionary.Match::sharedInterests)
+                .containsExactly(0);
+    }
+
+    @Test
+    @DisplayName("Should count bits across words of different lengths")
+    void shouldCountAcrossWords() {
+        long[] shortBits = {0b1011L};
+        long[] longBits = new long[3];
+        Arrays.fill(longBits, -1L);
+
+        assertThat(InterestDictionary.sharedCount(shortBits, longBits)).isEqualTo(3);
+        assertThat(InterestDictionary.sharedCount(longBits, longBits)).isEqualTo(192);
+    }
+}
@@ -0,0 +1,100 @@
+package com.beerfinder.service;
+
+import com.beerfinder.entity.SwipeAction;
+import com.beerfinder.entity.SwipeArchive;
+import com.beerfinder.repository.SwipeArchiveRepository;
+import com.beerfinder.repository.SwipeRepository;
+import com.beerfinder.util.RoaringBitmaps;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LikeGraphTest {
+
+    @Mock
+    private SwipeRepository swipeRepository;
+
+    @Mock
+    private SwipeArchiveRepository archiveRepository;
+
+    private LikeGraph likeGraph;
+
+    @BeforeEach
+    void setUp() {
+        likeGraph = new LikeGraph(swipeRepository, archiveRepository);
+    }
+
+    @Test
+    @DisplayName("Should warm pending likes from the database")
+    void shouldWarmUp() {
+        when(swipeRepository.findPendingLikes()).thenReturn(List.of(new Object[]{2L, 1L}, new Object[]{3L, 1L}));
+
+        likeGraph.warmUp();
+
+        assertThat(likeGraph.isReady()).isTrue();
+        assertThat(likeGraph.hasLiked(2L, 1L)).isTrue();
+        assertThat(likeGraph.hasLiked(1L, 2L)).isFalse();
+        assertThat(likeGraph.pendingLikes(1L)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should skip likes answered by an archived PASS when warming up")
+    void shouldSkipArchivedAnswersOnWarmUp() {
+        // Given - 1 przesunął 2 w lewo, a PASS trafił już do archiwum
+        Roaring64NavigableMap passed = new Roaring64NavigableMap();
+        passed.addLong(2L);
+        when(swipeRepository.findPendingLikes()).thenReturn(List.of(new Object[]{2L, 1L}, new Object[]{3L, 1L}));
+        when(archiveRepository.findAllById(List.of(1L))).thenReturn(
+                List.of(new SwipeArchive(1L, RoaringBitmaps.toBytes(passed), 1L, LocalDateTime.now())));
+
+        // When
+        likeGraph.warmUp();
+
+        // Then
+        assertThat(likeGraph.hasLiked(2L, 1L)).isFalse();
+        assertThat(likeGraph.hasLiked(3L, 1L)).isTrue();
+        assertThat(likeGraph.pendingLikes(1L)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should record likes and clear them once answered")
+    void shouldTrackPendingLikes() {
+        likeGraph.onSwipe(2L, 1L, SwipeAction.LIKE, false);
+        assertThat(likeGraph.hasLiked(2L, 1L)).isTrue();
+
+        // Odpowiedź LIKE tworzy match - polubienie przestaje czekać, nowe nie powstaje
+        likeGraph.onSwipe(1L, 2L, SwipeAction.LIKE, true);
+        assertThat(likeGraph.hasLiked(2L, 1L)).isFalse();
+        assertThat(likeGraph.hasLiked(1L, 2L)).isFalse();
+
+        likeGraph.onSwipe(3L, 1L, SwipeAction.LIKE, false);
+        likeGraph.onSwipe(1L, 3L, SwipeAction.PASS, false);
+        assertThat(likeGraph.pendingLikes(1L)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should withdraw an undone like and reopen the like it had answered")
+    void shouldApplyUndo() {
+        likeGraph.onSwipe(2L, 1L, SwipeAction.LIKE, false);
+        likeGraph.onSwipe(1L, 2L, SwipeAction.LIKE, true);
+
+        // 1 cofa LIKE, który utworzył match - LIKE od 2 znów czeka
+        likeGraph.onUndo(1L, 2L, true);
+        assertThat(likeGraph.hasLiked(2L, 1L)).isTrue();
+
+        // 2 cofa swój LIKE
+        likeGraph.onUndo(2L, 1L, false);
+        assertThat(likeGraph.pendingLikes(1L)).isZero();
+    }
+}
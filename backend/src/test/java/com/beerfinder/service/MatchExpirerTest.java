@@ -0,0 +1,35 @@
+package com.beerfinder.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MatchExpirerTest {
+
+    @Mock
+    private MatchService matchService;
+
+    @Mock
+    private TaskScheduler scheduler;
+
+    @Test
+    @DisplayName("Should keep expiring batches until one comes back short")
+    void shouldExpireInBatches() {
+        MatchExpirer expirer = new MatchExpirer(matchService, scheduler, false, Duration.ofHours(1), Duration.ofDays(14), 2);
+        when(matchService.expireIdleMatches(any(), eq(2))).thenReturn(2, 2, 1);
+
+        assertThat(expirer.expire()).isEqualTo(5);
+        verify(matchService, times(3)).expireIdleMatches(any(), eq(2));
+    }
+}
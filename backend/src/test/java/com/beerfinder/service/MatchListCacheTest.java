@@ -0,0 +1,126 @@
+package com.beerfinder.service;
+
+import com.beerfinder.dto.MatchResponse;
+import com.beerfinder.dto.ProfileResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MatchListCacheTest {
+
+    private MatchListCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new MatchListCache(new SimpleMeterRegistry(), 1000, Duration.ofMinutes(30));
+    }
+
+    @Test
+    @DisplayName("Should load a user's list once and serve it from memory afterwards")
+    void shouldLoadOnce() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return List.of(snapshot(10L, 2L, "Bob"));
+        });
+        List<MatchResponse> matches = cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+
+        assertThat(loads).hasValue(1);
+        assertThat(matches).extracting(MatchResponse::getMatchId).containsExactly(10L);
+    }
+
+    @Test
+    @DisplayName("Should append new matches to cached lists only, without duplicates")
+    void shouldAppendCreatedMatch() {
+        cache.get(1L, id -> List.of(snapshot(10L, 2L, "Bob")));
+
+        cache.onMatchCreated(1L, snapshot(11L, 3L, "Carol"));
+        cache.onMatchCreated(1L, snapshot(11L, 3L, "Carol"));
+        cache.onMatchCreated(3L, snapshot(11L, 1L, "Alice"));
+
+        assertThat(matchIds(1L)).containsExactly(10L, 11L);
+        assertThat(cache.isCached(3L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should remove a deactivated match from both users")
+    void shouldRemoveDeactivatedMatch() {
+        cache.get(1L, id -> List.of(snapshot(10L, 2L, "Bob"), snapshot(11L, 3L, "Carol")));
+        cache.get(2L, id -> List.of(snapshot(10L, 1L, "Alice")));
+
+        cache.onMatchDeactivated(2L, 1L);
+
+        assertThat(matchIds(1L)).containsExactly(11L);
+        assertThat(matchIds(2L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should replace the card of a changed profile in its partners' lists")
+    void shouldReplaceChangedProfile() {
+        cache.get(1L, id -> List.of(snapshot(10L, 2L, "Bob")));
+        cache.get(3L, id -> List.of(snapshot(11L, 2L, "Bob")));
+
+        ProfileResponse renamed = profile(2L, "Robert");
+        cache.onProfileChanged(2L, renamed, () -> List.of(1L, 3L));
+
+        assertThat(cache.get(1L, id -> List.of()).get(0).getMatchedUser().getName()).isEqualTo("Robert");
+        assertThat(cache.get(3L, id -> List.of()).get(0).getMatchedUser().getName()).isEqualTo("Robert");
+    }
+
+    @Test
+    @DisplayName("Should find partners in the user's own cached list without loading them")
+    void shouldUseOwnListForChangedProfile() {
+        cache.get(1L, id -> List.of(snapshot(10L, 2L, "Bob")));
+        cache.get(2L, id -> List.of(snapshot(10L, 1L, "Alice")));
+        cache.get(3L, id -> List.of(snapshot(11L, 4L, "Dave")));
+
+        cache.onProfileChanged(2L, profile(2L, "Robert"), () -> {
+            throw new AssertionError("Partners should come from the cached list");
+        });
+
+        assertThat(cache.get(1L, id -> List.of()).get(0).getMatchedUser().getName()).isEqualTo("Robert");
+        assertThat(cache.get(3L, id -> List.of()).get(0).getMatchedUser().getName()).isEqualTo("Dave");
+    }
+
+    @Test
+    @DisplayName("Should not load partners when no match list is cached")
+    void shouldSkipChangedProfileOnEmptyCache() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.onProfileChanged(2L, profile(2L, "Robert"), () -> {
+            loads.incrementAndGet();
+            return List.of(1L);
+        });
+
+        assertThat(loads).hasValue(0);
+    }
+
+    private List<Long> matchIds(Long userId) {
+        return cache.get(userId, id -> List.of()).stream().map(MatchResponse::getMatchId).toList();
+    }
+
+    private static MatchListCache.Snapshot snapshot(Long matchId, Long matchedUserId, String name) {
+        return new MatchListCache.Snapshot(matchedUserId,
+                new MatchResponse(matchId, profile(matchedUserId, name), true, LocalDateTime.now()));
+    }
+
+    private static ProfileResponse profile(Long userId, String name) {
+        ProfileResponse profile = new ProfileResponse();
+        profile.setId(userId * 10);
+        profile.setUserId(userId);
+        profile.setName(name);
+        return profile;
+    }
+}
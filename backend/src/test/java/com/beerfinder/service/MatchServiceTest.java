@@ -1,28 +1,44 @@
 package com.beerfinder.service;
 
+import com.beerfinder.dto.InboxPageResponse;
+import com.beerfinder.dto.InboxRow;
+import com.beerfinder.dto.MatchPair;
 import com.beerfinder.dto.MatchResponse;
+import com.beerfinder.dto.MatchRow;
+import com.beerfinder.dto.ProfileResponse;
 import com.beerfinder.entity.Match;
 import com.beerfinder.entity.User;
+import com.beerfinder.event.DomainEventPublisher;
+import com.beerfinder.event.MatchEnded;
 import com.beerfinder.exception.ResourceNotFoundException;
 import com.beerfinder.repository.MatchRepository;
 import com.beerfinder.repository.UserRepository;
+import com.beerfinder.security.AuthenticatedUser;
+import com.beerfinder.util.InboxCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +50,15 @@ class MatchServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ProfileService profileService;
+
+    @Mock
+    private MatchListCache matchListCache;
+
+    @Mock
+    private DomainEventPublisher eventPublisher;
+
     @Mock
     private Authentication authentication;
 
@@ -61,53 +86,193 @@ class MatchServiceTest {
     }
 
     @Test
-    @DisplayName("Should create match with user1 having smaller ID")
-    void shouldCreateMatchWithOrderedIds() {
+    @DisplayName("Should upsert the match of an ordered pair and return its id")
+    void shouldEnsureMatchIdempotently() {
         // Given
-        when(matchRepository.existsByUser1AndUser2(any(), any())).thenReturn(false);
-        when(matchRepository.save(any(Match.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(matchRepository.upsertMatch(1L, 2L)).thenReturn(Optional.of(7L));
 
-        // When
-        Match createdMatch = matchService.createMatch(user2, user1); // Odwrócona kolejność w argumencie
+        // When - kolejność argumentów nie ma znaczenia
+        Optional<Long> first = matchService.ensureMatch(2L, 1L);
+        Optional<Long> second = matchService.ensureMatch(1L, 2L);
 
         // Then
-        assertThat(createdMatch.getUser1().getId()).isEqualTo(1L); // user1 powinien być pierwszy (ID:1 < ID:2)
-        assertThat(createdMatch.getUser2().getId()).isEqualTo(2L);
-        verify(matchRepository).save(any(Match.class));
+        assertThat(first).contains(7L);
+        assertThat(second).contains(7L);
+        verify(matchRepository, times(2)).upsertMatch(1L, 2L);
+        verify(matchRepository, never()).findIdByPair(any(), any()); // bez osobnego sprawdzenia pary
+        verify(matchRepository, never()).save(any(Match.class));
     }
 
     @Test
-    @DisplayName("Should throw exception when match already exists")
-    void shouldThrowExceptionWhenMatchExists() {
+    @DisplayName("Should not touch cached match lists when the pair's match stays ended")
+    void shouldNotReviveEndedMatch() {
         // Given
-        when(matchRepository.existsByUser1AndUser2(user1, user2)).thenReturn(true);
+        when(matchRepository.upsertMatch(1L, 2L)).thenReturn(Optional.empty());
 
-        // When & Then
-        assertThatThrownBy(() -> matchService.createMatch(user1, user2))
-                .isInstanceOf(RuntimeException.class)
-                .hasMessage("Match already exists between these users");
+        // When
+        Optional<Long> matchId = matchService.ensureMatch(2L, 1L);
+
+        // Then
+        assertThat(matchId).isEmpty();
+        verify(matchRepository, never()).findMatchRow(any());
+        verifyNoInteractions(matchListCache);
     }
 
     @Test
-    @DisplayName("Should return matches for current user")
+    @DisplayName("Should load the matches list with profile cards in one batch on a cache miss")
     void shouldReturnMyMatches() {
+        // Given - id z tokenu, bez zapytania o użytkownika
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal())
+                .thenReturn(new AuthenticatedUser(1L, "user1@test.com", "hash", List.of()));
+        when(matchListCache.get(eq(1L), any())).thenAnswer(invocation ->
+                invocation.<Function<Long, List<MatchListCache.Snapshot>>>getArgument(1).apply(1L).stream()
+                        .map(MatchListCache.Snapshot::card)
+                        .toList());
+
+        when(matchRepository.findActiveMatchRows(1L)).thenReturn(List.of(
+                new MatchRow(10L, 1L, 2L, 11L, 22L, LocalDateTime.now()),
+                new MatchRow(11L, 1L, 3L, 11L, null, LocalDateTime.now())));
+        ProfileResponse profile2 = new ProfileResponse();
+        profile2.setId(22L);
+        when(profileService.loadCards(List.of(22L))).thenReturn(List.of(profile2));
+
+        // When
+        List<MatchResponse> results = matchService.getMyMatches();
+
+        // Then
+        assertThat(results).extracting(MatchResponse::getMatchId).containsExactly(10L, 11L);
+        assertThat(results.get(0).getMatchedUser()).isSameAs(profile2);
+        assertThat(results.get(1).getMatchedUser()).isNull(); // użytkownik bez profilu
+        verify(userRepository, never()).findByEmail(any());
+    }
+
+    @Test
+    @DisplayName("Should append a new match to cached lists of both users after commit")
+    void shouldUpdateCachedListsOnNewMatch() {
         // Given
+        when(matchRepository.upsertMatch(1L, 2L)).thenReturn(Optional.of(10L));
+        when(matchListCache.isCached(2L)).thenReturn(true);
+        when(matchRepository.findMatchRow(10L))
+                .thenReturn(Optional.of(new MatchRow(10L, 1L, 2L, 11L, 22L, LocalDateTime.now())));
+        ProfileResponse profile1 = new ProfileResponse();
+        profile1.setId(11L);
+        ProfileResponse profile2 = new ProfileResponse();
+        profile2.setId(22L);
+        when(profileService.loadCards(List.of(11L, 22L))).thenReturn(List.of(profile1, profile2));
+
+        // When - bez aktywnej transakcji akcja po commicie wykonuje się od razu
+        matchService.ensureMatch(2L, 1L);
+
+        // Then
+        ArgumentCaptor<MatchListCache.Snapshot> forUser2 = ArgumentCaptor.forClass(MatchListCache.Snapshot.class);
+        verify(matchListCache).onMatchCreated(eq(2L), forUser2.capture());
+        assertThat(forUser2.getValue().matchedUserId()).isEqualTo(1L);
+        assertThat(forUser2.getValue().card().getMatchedUser()).isSameAs(profile1);
+        verify(matchListCache).onMatchCreated(eq(1L), any());
+    }
+
+    @Test
+    @DisplayName("Should resolve existing matches of a batch in one query and upsert only the rest")
+    void shouldEnsureMatchesInBatch() {
+        // Given - z 3 match już jest, z 5 trzeba go utworzyć
+        when(matchRepository.findActiveMatchIds(List.of(MatchPair.of(4L, 3L), MatchPair.of(4L, 5L))))
+                .thenReturn(Map.of(new MatchPair(3L, 4L), 30L));
+        when(matchRepository.upsertMatch(4L, 5L)).thenReturn(Optional.of(50L));
+
+        // When
+        Map<Long, Long> matchIds = matchService.ensureMatches(4L, List.of(3L, 5L));
+
+        // Then
+        assertThat(matchIds).containsExactly(entry(3L, 30L), entry(5L, 50L));
+        verify(matchRepository, never()).upsertMatch(3L, 4L);
+    }
+
+    @Test
+    @DisplayName("Should leave pairs whose match was ended out of a batch")
+    void shouldSkipEndedMatchesInBatch() {
+        // Given - z 5 match zakończono (unmatch lub wygaśnięcie), z 6 powstaje nowy
+        when(matchRepository.findActiveMatchIds(List.of(MatchPair.of(4L, 5L), MatchPair.of(4L, 6L))))
+                .thenReturn(Map.of());
+        when(matchRepository.upsertMatch(4L, 5L)).thenReturn(Optional.empty());
+        when(matchRepository.upsertMatch(4L, 6L)).thenReturn(Optional.of(60L));
+
+        // When
+        Map<Long, Long> matchIds = matchService.ensureMatches(4L, List.of(5L, 6L));
+
+        // Then
+        assertThat(matchIds).containsExactly(entry(6L, 60L));
+    }
+
+    @Test
+    @DisplayName("Should end an active match once and notify both users")
+    void shouldUnmatch() {
+        // Given
+        mockSecurityContext("user2@test.com");
+        when(userRepository.findByEmail("user2@test.com")).thenReturn(Optional.of(user2));
+        Match match = new Match(10L, user1, user2, true, LocalDateTime.now(), false);
+        when(matchRepository.findById(10L)).thenReturn(Optional.of(match));
+        when(matchRepository.deactivateAll(List.of(10L))).thenReturn(1, 0);
+
+        // When - drugie wywołanie nic już nie zmienia
+        matchService.unmatch(10L);
+        matchService.unmatch(10L);
+
+        // Then
+        verify(eventPublisher, times(1)).publish(new MatchEnded(10L, 1L, 2L, MatchEnded.Reason.UNMATCHED));
+        verify(matchListCache, times(1)).onMatchDeactivated(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Should not let other users end a match")
+    void shouldProtectUnmatch() {
         mockSecurityContext("user1@test.com");
         when(userRepository.findByEmail("user1@test.com")).thenReturn(Optional.of(user1));
+        User user3 = new User(); user3.setId(3L);
+        when(matchRepository.findById(10L)).thenReturn(Optional.of(new Match(10L, user2, user3, true, LocalDateTime.now(), false)));
 
-        Match match = new Match();
-        match.setUser1(user1);
-        match.setUser2(user2);
-        match.setIsActive(true);
+        assertThatThrownBy(() -> matchService.unmatch(10L)).isInstanceOf(ResourceNotFoundException.class);
+        verify(matchRepository, never()).deactivateAll(any());
+    }
 
-        when(matchRepository.findActiveMatchesByUser(user1)).thenReturn(List.of(match));
+    @Test
+    @DisplayName("Should expire one batch of idle matches")
+    void shouldExpireIdleMatches() {
+        // Given
+        LocalDateTime before = LocalDateTime.now().minusDays(14);
+        when(matchRepository.findIdleMatches(before, Limit.of(2)))
+                .thenReturn(List.of(new Object[]{10L, 1L, 2L}, new Object[]{11L, 1L, 3L}));
 
         // When
-        List<MatchResponse> results = matchService.getMyMatches();
+        int expired = matchService.expireIdleMatches(before, 2);
 
         // Then
-        assertThat(results).hasSize(1);
-        verify(matchRepository).findActiveMatchesByUser(user1);
+        assertThat(expired).isEqualTo(2);
+        verify(matchRepository).deactivateAll(List.of(10L, 11L));
+        verify(eventPublisher).publishAll(List.of(
+                new MatchEnded(10L, 1L, 2L, MatchEnded.Reason.EXPIRED),
+                new MatchEnded(11L, 1L, 3L, MatchEnded.Reason.EXPIRED)));
+        verify(matchListCache).onMatchDeactivated(1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Should remove a deactivated match from cached lists and tell both users it ended")
+    void shouldUpdateCachedListsOnDeactivation() {
+        when(matchRepository.deactivatePair(1L, 2L)).thenReturn(1);
+        when(matchRepository.findIdByPair(1L, 2L)).thenReturn(Optional.of(100L));
+
+        assertThat(matchService.deactivateMatch(2L, 1L)).contains(100L);
+        verify(eventPublisher).publish(new MatchEnded(100L, 1L, 2L, MatchEnded.Reason.UNMATCHED));
+        verify(matchListCache).onMatchDeactivated(2L, 1L);
+    }
+
+    @Test
+    @DisplayName("Should publish nothing when the pair had no active match")
+    void shouldSkipDeactivationWithoutActiveMatch() {
+        when(matchRepository.deactivatePair(1L, 2L)).thenReturn(0);
+
+        assertThat(matchService.deactivateMatch(2L, 1L)).isEmpty();
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -131,6 +296,42 @@ class MatchServiceTest {
                 .isInstanceOf(ResourceNotFoundException.class);
     }
 
+    @Test
+    @DisplayName("Should build an inbox page with profiles loaded in one batch and a cursor to the next page")
+    void shouldReturnInboxPage() {
+        // Given - limit 2, repozytorium zwraca 3 wiersze, więc jest kolejna strona
+        mockSecurityContext("user1@test.com");
+        when(userRepository.findByEmail("user1@test.com")).thenReturn(Optional.of(user1));
+
+        LocalDateTime now = LocalDateTime.now();
+        InboxRow withMessage = new InboxRow(10L, 2L, 20L, now.minusDays(1), 100L, 2L, "Na piwo?", now, 3, now);
+        InboxRow silent = new InboxRow(11L, 3L, 30L, now.minusHours(1), null, null, null, null, 0, now.minusHours(1));
+        InboxRow older = new InboxRow(12L, 4L, 40L, now.minusDays(2), null, null, null, null, 0, now.minusDays(2));
+        when(matchRepository.findInbox(1L, null, null, 3)).thenReturn(List.of(withMessage, silent, older));
+
+        ProfileResponse profile2 = new ProfileResponse();
+        profile2.setId(20L);
+        ProfileResponse profile3 = new ProfileResponse();
+        profile3.setId(30L);
+        when(profileService.loadCards(List.of(20L, 30L))).thenReturn(List.of(profile2, profile3));
+
+        // When
+        InboxPageResponse page = matchService.getInbox(null, 2);
+
+        // Then
+        assertThat(page.getEntries()).hasSize(2);
+        assertThat(page.getEntries().get(0).getMatchedUser()).isSameAs(profile2);
+        assertThat(page.getEntries().get(0).getLastMessage()).isEqualTo("Na piwo?");
+        assertThat(page.getEntries().get(0).getUnreadCount()).isEqualTo(3L);
+        assertThat(page.getEntries().get(1).getMatchedUser()).isSameAs(profile3);
+        assertThat(page.getEntries().get(1).getLastMessage()).isNull();
+
+        InboxCursor next = InboxCursor.decode(page.getNextCursor());
+        assertThat(next.matchId()).isEqualTo(11L);
+        assertThat(next.lastActivityAt()).isEqualTo(silent.lastActivityAt());
+        verify(profileService, times(1)).loadCards(any());
+    }
+
     private void mockSecurityContext(String email) {
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.isAuthenticated()).thenReturn(true);
@@ -1,10 +1,13 @@
 package com.beerfinder.service;
 
+import com.beerfinder.dto.MessagePageResponse;
 import com.beerfinder.dto.MessageRequest;
 import com.beerfinder.dto.MessageResponse;
 import com.beerfinder.entity.Match;
 import com.beerfinder.entity.Message;
 import com.beerfinder.entity.User;
+import com.beerfinder.event.DomainEventPublisher;
+import com.beerfinder.event.MessageSent;
 import com.beerfinder.exception.BadRequestException;
 import com.beerfinder.repository.MatchRepository;
 import com.beerfinder.repository.MessageRepository;
@@ -15,10 +18,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -32,6 +37,7 @@ class MessageServiceTest {
     @Mock private MessageRepository messageRepository;
     @Mock private MatchRepository matchRepository;
     @Mock private UserRepository userRepository;
+    @Mock private DomainEventPublisher eventPublisher;
     @Mock private SecurityContext securityContext;
     @Mock private Authentication authentication;
 
@@ -93,6 +99,7 @@ class MessageServiceTest {
         assertThat(response).isNotNull();
         assertThat(response.getContent()).isEqualTo("Hi!");
         verify(messageRepository).save(any(Message.class));
+        verify(eventPublisher).publish(new MessageSent(100L, 10L, 1L, "me@test.com", "Hi!", null));
     }
 
     @Test
@@ -117,4 +124,69 @@ class MessageServiceTest {
                 .isInstanceOf(BadRequestException.class)
                 .hasMessage("You are not part of this match");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnHistoryPageChronologicallyWithCursorToOlderMessages() {
+        // Given - limit 2, repozytorium zwraca 3 najnowsze (od najnowszej), więc są starsze
+        mockAuth();
+        when(matchRepository.findById(10L)).thenReturn(Optional.of(userMatch));
+        Message newest = message(103L, otherUser);
+        Message middle = message(102L, currentUser);
+        Message oldest = message(101L, otherUser);
+        when(messageRepository.findPageBefore(userMatch, 200L, Limit.of(3))).thenReturn(List.of(newest, middle, oldest));
+
+        // When
+        MessagePageResponse page = messageService.getChatHistory(10L, 200L, 2);
+
+        // Then
+        assertThat(page.getMessages()).extracting(MessageResponse::getId).containsExactly(102L, 103L);
+        assertThat(page.getNextBefore()).isEqualTo(102L);
+        assertThat(newest.getIsRead()).isFalse(); // odczyt historii niczego nie zapisuje
+        verify(messageRepository, never()).markReadByRecipient(any(), any());
+    }
+
+    @Test
+    void shouldStartHistoryFromNewestMessage() {
+        mockAuth();
+        when(matchRepository.findById(10L)).thenReturn(Optional.of(userMatch));
+        when(messageRepository.findPageBefore(userMatch, Long.MAX_VALUE, Limit.of(51))).thenReturn(List.of());
+
+        MessagePageResponse page = messageService.getChatHistory(10L, null, null);
+
+        assertThat(page.getMessages()).isEmpty();
+        assertThat(page.getNextBefore()).isNull();
+    }
+
+    @Test
+    void shouldMarkIncomingMessagesAsReadWithOneUpdate() {
+        mockAuth();
+        when(matchRepository.findById(10L)).thenReturn(Optional.of(userMatch));
+        when(messageRepository.markReadByRecipient(10L, 1L)).thenReturn(3);
+
+        assertThat(messageService.markAsRead(10L)).isEqualTo(3);
+    }
+
+    @Test
+    void shouldNotMarkMessagesOfOtherUsersMatch() {
+        mockAuth();
+        User user3 = new User(); user3.setId(3L);
+        Match otherMatch = new Match();
+        otherMatch.setId(20L);
+        otherMatch.setUser1(otherUser);
+        otherMatch.setUser2(user3);
+        when(matchRepository.findById(20L)).thenReturn(Optional.of(otherMatch));
+
+        assertThatThrownBy(() -> messageService.markAsRead(20L)).isInstanceOf(BadRequestException.class);
+        verify(messageRepository, never()).markReadByRecipient(any(), any());
+    }
+
+    private Message message(Long id, User sender) {
+        Message message = new Message();
+        message.setId(id);
+        message.setMatch(userMatch);
+        message.setSender(sender);
+        message.setContent("msg " + id);
+        message.setIsRead(false);
+        return message;
+    }
+}
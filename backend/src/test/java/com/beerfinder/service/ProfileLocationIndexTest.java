@@ -0,0 +1,108 @@
+package com.beerfinder.service;
+
+import com.beerfinder.repository.ProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProfileLocationIndexTest {
+
+    @Mock
+    private ProfileRepository profileRepository;
+
+    private ProfileLocationIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProfileLocationIndex(profileRepository);
+    }
+
+    @Test
+    @DisplayName("Should warm up from stored locations")
+    void shouldWarmUpFromRepository() {
+        when(profileRepository.findAllLocations()).thenReturn(List.of(
+                new Object[]{1L, 10L, 54.4416, 18.5601, 25}, // Sopot
+                new Object[]{2L, 20L, 52.2297, 21.0122, null}  // Warszawa, bez wieku
+        ));
+
+        index.warmUp();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should return only profiles within radius with their distance")
+    void shouldFindProfilesWithinRadius() {
+        index.update(1L, 10L, 25, 54.4416, 18.5601); // Sopot (~12km od Gdańska)
+        index.update(2L, 20L, 25, 52.2297, 21.0122); // Warszawa (~280km)
+
+        List<ProfileLocationIndex.Nearby> nearby = index.findWithinRadius(54.3520, 18.6466, 50);
+
+        assertThat(nearby).extracting(ProfileLocationIndex.Nearby::profileId).containsExactly(1L);
+        assertThat(nearby.get(0).userId()).isEqualTo(10L);
+        assertThat(nearby.get(0).distanceKm()).isBetween(10.0, 14.0);
+    }
+
+    @Test
+    @DisplayName("Should visit the cell holding a profile just inside the radius at the box edge")
+    void shouldFindProfileAtBoundingBoxEdge() {
+        // ~49.995 km na północ - tuż za granicą komórki 54.8°
+        double northLat = 54.3504 + Math.toDegrees(49.995 / 6371);
+        index.update(1L, 10L, 25, northLat, 18.65);
+        // Dużo zajętych komórek daleko stąd, żeby nie przeglądać wszystkich niepustych
+        for (long i = 0; i < 1000; i++) {
+            index.update(100 + i, 1000 + i, 25, -40.0 + (i % 100) * 0.1, 100.0 + (i / 100) * 0.1);
+        }
+
+        List<ProfileLocationIndex.Nearby> nearby = index.findWithinRadius(54.3504, 18.65, 50);
+
+        assertThat(nearby).extracting(ProfileLocationIndex.Nearby::profileId).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Should move profile between cells and drop it when location is cleared")
+    void shouldMoveAndRemoveProfiles() {
+        index.update(1L, 10L, 25, 52.2297, 21.0122); // Warszawa
+        assertThat(index.findWithinRadius(54.3520, 18.6466, 50)).isEmpty();
+
+        index.update(1L, 10L, 25, 54.4416, 18.5601); // przeprowadzka do Sopotu
+        assertThat(index.findWithinRadius(54.3520, 18.6466, 50)).hasSize(1);
+        assertThat(index.findWithinRadius(52.2297, 21.0122, 50)).isEmpty();
+
+        index.update(1L, 10L, 25, null, null);
+        assertThat(index.findWithinRadius(54.3520, 18.6466, 50)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should find profiles across the antimeridian")
+    void shouldHandleAntimeridian() {
+        index.update(1L, 10L, 25, -16.5, 179.95);
+
+        assertThat(index.findWithinRadius(-16.5, -179.95, 20)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should apply age bounds before computing distances")
+    void shouldFilterByAge() {
+        index.update(1L, 10L, 25, 54.4416, 18.5601); // Sopot
+        index.update(2L, 20L, 35, 54.5189, 18.5305); // Gdynia
+        index.update(3L, 30L, null, 54.3520, 18.6466); // Gdańsk, bez wieku
+
+        assertThat(index.findWithinRadius(54.3520, 18.6466, 50, 30, null))
+                .extracting(ProfileLocationIndex.Nearby::profileId).containsExactly(2L);
+        assertThat(index.findWithinRadius(54.3520, 18.6466, 50, null, 30))
+                .extracting(ProfileLocationIndex.Nearby::profileId).containsExactly(1L);
+        assertThat(index.findWithinRadius(54.3520, 18.6466, 50)).hasSize(3);
+    }
+}
@@ -1,10 +1,16 @@
 package com.beerfinder.service;
 
+import com.beerfinder.dto.DiscoverCandidate;
+import com.beerfinder.dto.DiscoverPageResponse;
+import com.beerfinder.dto.DiscoverSort;
+import com.beerfinder.dto.ProfileCard;
 import com.beerfinder.dto.ProfileResponse;
 import com.beerfinder.dto.UpdateProfileRequest;
 import com.beerfinder.entity.Profile;
 import com.beerfinder.entity.User;
+import com.beerfinder.exception.BadRequestException;
 import com.beerfinder.exception.ResourceNotFoundException;
+import com.beerfinder.repository.MatchRepository;
 import com.beerfinder.repository.ProfileRepository;
 import com.beerfinder.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,12 +20,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -40,6 +50,27 @@ class ProfileServiceTest {
     @Mock
     private CloudinaryService cloudinaryService;
 
+    @Mock
+    private ProfileLocationIndex locationIndex;
+
+    @Mock
+    private DiscoverDeckService deckService;
+
+    @Mock
+    private SwipedUsersCache swipedUsers;
+
+    @Mock
+    private InterestDictionary interestDictionary;
+
+    @Mock
+    private DiscoverCandidateCache candidateCache;
+
+    @Mock
+    private MatchListCache matchListCache;
+
+    @Mock
+    private MatchRepository matchRepository;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -73,6 +104,22 @@ class ProfileServiceTest {
         when(userRepository.findByEmail(currentUser.getEmail())).thenReturn(Optional.of(currentUser));
     }
 
+    private DiscoverCandidate profileOf(long id, long userId) {
+        return new DiscoverCandidate(id, userId);
+    }
+
+    // Karty wracają w odwrotnej kolejności - serwis musi sam przywrócić kolejność strony
+    @SuppressWarnings("unchecked")
+    private void mockCards() {
+        when(profileRepository.findDiscoverCards(anyCollection())).thenAnswer(invocation -> {
+            List<ProfileCard> cards = new ArrayList<>();
+            for (Long id : (Collection<Long>) invocation.getArgument(0)) {
+                cards.add(0, new ProfileCard(id, id + 10, "Profile " + id, 25, null, null, null, null, null));
+            }
+            return cards;
+        });
+    }
+
     @Test
     @DisplayName("Should update profile fields correctly")
     void shouldUpdateProfile() {
@@ -94,31 +141,317 @@ class ProfileServiceTest {
     }
 
     @Test
-    @DisplayName("Should filter profiles by distance")
+    @DisplayName("Should update the in-memory indexes and match lists only after the profile change commits")
+    void shouldUpdateIndexesAfterCommit() {
+        // Given
+        mockAuth();
+        UpdateProfileRequest request = new UpdateProfileRequest();
+        request.setName("New Name");
+        request.setAge(25);
+        request.setLatitude(54.35);
+        request.setLongitude(18.64);
+
+        when(profileRepository.findByUser(currentUser)).thenReturn(Optional.of(currentProfile));
+        when(profileRepository.save(any(Profile.class))).thenAnswer(i -> i.getArguments()[0]);
+        DiscoverCandidateCache.FilterFields previous = new DiscoverCandidateCache.FilterFields(
+                currentProfile.getAge(), currentProfile.getLatitude(), currentProfile.getLongitude());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            profileService.updateMyProfile(request);
+
+            // Then - przed commitem indeksy nie widzą zmiany
+            verifyNoInteractions(locationIndex, interestDictionary, candidateCache, matchListCache);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(locationIndex).update(currentProfile.getId(), 1L, 25, 54.35, 18.64);
+            verify(candidateCache).onProfileChanged(1L, currentProfile.getId(), previous,
+                    new DiscoverCandidateCache.FilterFields(25, 54.35, 18.64));
+            verify(matchListCache).onProfileChanged(eq(1L), any(ProfileResponse.class), any());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should filter profiles by distance in the database when index is not ready")
     void discoverWithDistanceFilter() {
         // Given
         mockAuth();
         currentProfile.setLatitude(54.3520); // Gdańsk
         currentProfile.setLongitude(18.6466);
 
-        Profile farProfile = new Profile();
-        farProfile.setLatitude(52.2297); // Warszawa (~280km)
-        farProfile.setLongitude(21.0122);
+        DiscoverCandidate nearProfile = profileOf(7L, 2L); // Sopot (~12km)
+
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+        mockCards();
+
+        when(profileRepository.findDiscoverCandidatesWithinRadius(
+                eq(currentUser), isNull(), isNull(), eq(54.3520), eq(18.6466), eq(50.0),
+                doubleThat(minLat -> minLat < 54.3520 - 0.4),
+                doubleThat(maxLat -> maxLat > 54.3520 + 0.4),
+                doubleThat(minLon -> minLon < 18.6466 - 0.7),
+                doubleThat(maxLon -> maxLon > 18.6466 + 0.7),
+                eq(0L), eq(Limit.of(1000))))
+                .thenReturn(List.of(nearProfile));
+
+        // When
+        DiscoverPageResponse results = profileService.discoverProfiles(null, null, 50, DiscoverSort.DEFAULT, null, null);
+
+        // Then
+        assertThat(results.getProfiles()).hasSize(1); // Tylko Sopot powinien zostać
+        assertThat(results.getNextCursor()).isNull();
+        verify(profileRepository, never()).findDiscoverCandidatesAfter(any(), any(), any(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should load only nearby profiles when location index is ready")
+    void discoverWithDistanceFilterUsesLocationIndex() {
+        // Given
+        mockAuth();
+        currentProfile.setLatitude(54.3520);
+        currentProfile.setLongitude(18.6466);
+
+        DiscoverCandidate nearProfile = profileOf(7L, 2L);
+        mockCards();
+
+        when(locationIndex.isReady()).thenReturn(true);
+        when(locationIndex.findWithinRadius(54.3520, 18.6466, 50))
+                .thenReturn(List.of(new ProfileLocationIndex.Nearby(7L, 2L, 12.0),
+                        new ProfileLocationIndex.Nearby(8L, 3L, 20.0)));
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> userId == 3L); // profil 8 już przesunięty
+        when(profileRepository.findDiscoverCandidatesByIds(currentUser, List.of(7L), null, null, 0L, Limit.of(21)))
+                .thenReturn(List.of(nearProfile));
+
+        // When
+        DiscoverPageResponse results = profileService.discoverProfiles(null, null, 50, DiscoverSort.DEFAULT, null, null);
+
+        // Then
+        assertThat(results.getProfiles()).extracting(ProfileResponse::getId).containsExactly(7L);
+        verify(profileRepository, never()).findDiscoverCandidatesAfter(any(), any(), any(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should return a full page with cursor and continue after it")
+    void discoverPaginatesWithCursor() {
+        // Given
+        mockAuth();
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+        mockCards();
+        List<DiscoverCandidate> firstBatch = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            firstBatch.add(profileOf(id, id + 10));
+        }
+        when(profileRepository.findDiscoverCandidatesAfter(currentUser, null, null, 0L, Limit.of(1000)))
+                .thenReturn(firstBatch);
+
+        // When
+        DiscoverPageResponse firstPage = profileService.discoverProfiles(null, null, null, DiscoverSort.DEFAULT, null, 2);
+
+        // Then
+        assertThat(firstPage.getProfiles()).extracting(ProfileResponse::getId).containsExactly(1L, 2L);
+        assertThat(firstPage.getNextCursor()).isNotNull();
+
+        // When - kolejna strona zaczyna się za ostatnim zwróconym profilem
+        when(profileRepository.findDiscoverCandidatesAfter(currentUser, null, null, 2L, Limit.of(1000)))
+                .thenReturn(List.of(firstBatch.get(2)));
+        DiscoverPageResponse secondPage = profileService.discoverProfiles(null, null, null, DiscoverSort.DEFAULT, firstPage.getNextCursor(), 2);
+
+        // Then
+        assertThat(secondPage.getProfiles()).extracting(ProfileResponse::getId).containsExactly(3L);
+        assertThat(secondPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should skip swiped users in memory and keep reading until the page is full")
+    void discoverSkipsSwipedUsers() {
+        // Given
+        mockAuth();
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> userId == 11L || userId == 12L);
+        mockCards();
+
+        when(profileRepository.findDiscoverCandidatesAfter(currentUser, 20, null, 0L, Limit.of(1000)))
+                .thenReturn(List.of(profileOf(1L, 11L), profileOf(2L, 12L), profileOf(3L, 13L), profileOf(4L, 14L)));
+
+        // When
+        DiscoverPageResponse page = profileService.discoverProfiles(20, null, null, DiscoverSort.DEFAULT, null, 2);
+
+        // Then - porcja jest dużo większa od strony, więc wystarcza jedno zapytanie
+        assertThat(page.getProfiles()).extracting(ProfileResponse::getId).containsExactly(3L, 4L);
+        assertThat(page.getNextCursor()).isNull();
+        verify(profileRepository, times(1)).findDiscoverCandidatesAfter(any(), any(), any(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should let the database exclude swiped users after a few fully swiped chunks")
+    void discoverFallsBackToDatabaseExclusion() {
+        // Given - przesunięcia pokrywają początek zakresu id
+        mockAuth();
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> userId <= 3000L);
+        mockCards();
+        when(profileRepository.findDiscoverCandidatesAfter(eq(currentUser), eq(20), isNull(), anyLong(), eq(Limit.of(1000))))
+                .thenAnswer(invocation -> {
+                    long afterId = invocation.getArgument(3);
+                    List<DiscoverCandidate> chunk = new ArrayList<>();
+                    for (long id = afterId + 1; id <= afterId + 1000; id++) {
+                        chunk.add(profileOf(id, id));
+                    }
+                    return chunk;
+                });
+        when(profileRepository.findUnswipedCandidatesAfter(currentUser, 20, null, 3000L, Limit.of(1000)))
+                .thenReturn(List.of(profileOf(4001L, 4001L)));
+
+        // When
+        DiscoverPageResponse page = profileService.discoverProfiles(20, null, null, DiscoverSort.DEFAULT, null, 2);
+
+        // Then - trzy porcje odsiane w pamięci, dalej wyklucza baza
+        assertThat(page.getProfiles()).extracting(ProfileResponse::getId).containsExactly(4001L);
+        verify(profileRepository, times(3)).findDiscoverCandidatesAfter(any(), any(), any(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should return the nearest profiles first and page by distance")
+    void discoverSortedByDistance() {
+        // Given
+        mockAuth();
+        currentProfile.setLatitude(54.3520);
+        currentProfile.setLongitude(18.6466);
+
+        when(locationIndex.isReady()).thenReturn(true);
+        when(locationIndex.findWithinRadius(eq(54.3520), eq(18.6466), anyDouble(), isNull(), isNull())).thenReturn(List.of(
+                new ProfileLocationIndex.Nearby(1L, 11L, 30.0),
+                new ProfileLocationIndex.Nearby(2L, 12L, 5.0),
+                new ProfileLocationIndex.Nearby(3L, 13L, 12.0),
+                new ProfileLocationIndex.Nearby(4L, 14L, 1.0)));
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> userId == 14L); // najbliższy już przesunięty
+        mockCards();
+
+        // When
+        DiscoverPageResponse firstPage = profileService.discoverProfiles(null, null, null, DiscoverSort.DISTANCE, null, 1);
+
+        // Then
+        assertThat(firstPage.getProfiles()).extracting(ProfileResponse::getId).containsExactly(2L);
+        assertThat(firstPage.getProfiles().get(0).getDistanceKm()).isEqualTo(5.0);
+
+        // When - kolejna strona zaczyna się za (5 km, id 2)
+        DiscoverPageResponse secondPage = profileService.discoverProfiles(
+                null, null, null, DiscoverSort.DISTANCE, firstPage.getNextCursor(), 1);
+
+        // Then
+        assertThat(secondPage.getProfiles()).extracting(ProfileResponse::getId).containsExactly(3L);
+        assertThat(secondPage.getNextCursor()).isNotNull();
+        // Ranking liczony w całości w pamięci - bez dodatkowych zapytań o kandydatów
+        verify(profileRepository, never()).findDiscoverCandidatesByIds(any(), any(), any(), any(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should rank age-filtered profiles by the number of shared interests")
+    void discoverSortedByInterests() {
+        // Given
+        mockAuth();
+        currentProfile.setInterests(List.of("Beer", "Chess"));
+        long[] viewerBits = {0b11L};
+
+        when(interestDictionary.isReady()).thenReturn(true);
+        when(interestDictionary.encode(List.of("Beer", "Chess"))).thenReturn(viewerBits);
+        // Słownik sam stosuje filtr wieku
+        when(interestDictionary.score(viewerBits, 20, 40)).thenReturn(List.of(
+                new InterestDictionary.Match(1L, 11L, 0),
+                new InterestDictionary.Match(2L, 12L, 2),
+                new InterestDictionary.Match(3L, 13L, 1)));
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+        mockCards();
+
+        // When
+        DiscoverPageResponse page = profileService.discoverProfiles(20, 40, null, DiscoverSort.INTERESTS, null, 2);
+
+        // Then
+        assertThat(page.getProfiles()).extracting(ProfileResponse::getId).containsExactly(2L, 3L);
+        assertThat(page.getProfiles()).extracting(ProfileResponse::getSharedInterests).containsExactly(2, 1);
+        assertThat(page.getNextCursor()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should require own location to sort by distance")
+    void discoverSortedByDistanceRequiresLocation() {
+        mockAuth();
+
+        assertThatThrownBy(() -> profileService.discoverProfiles(null, null, null, DiscoverSort.DISTANCE, null, null))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @DisplayName("Should serve filtered discover from the candidate cache")
+    void discoverUsesCandidateCacheWithFilters() {
+        // Given
+        mockAuth();
+        when(candidateCache.page(eq(1L), eq(new DiscoverCandidateCache.Filters(20, 30, null)), isNull(), isNull(),
+                eq(0L), eq(21), any(), any()))
+                .thenReturn(Optional.of(List.of(4L, 6L)));
+        mockCards();
+
+        // When
+        DiscoverPageResponse page = profileService.discoverProfiles(20, 30, null, DiscoverSort.DEFAULT, null, null);
+
+        // Then
+        assertThat(page.getProfiles()).extracting(ProfileResponse::getId).containsExactly(4L, 6L);
+        verify(profileRepository, never()).findDiscoverCandidatesAfter(any(), any(), any(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should serve unfiltered discover from the precomputed deck")
+    void discoverUsesDeckWithoutFilters() {
+        // Given
+        mockAuth();
+        when(deckService.peek(eq(1L), eq(0L), eq(21), any())).thenReturn(Optional.of(List.of(5L, 9L)));
+        mockCards();
 
-        Profile nearProfile = new Profile();
-        nearProfile.setLatitude(54.4416); // Sopot (~12km)
-        nearProfile.setLongitude(18.5601);
+        // When
+        DiscoverPageResponse page = profileService.discoverProfiles(null, null, null, DiscoverSort.DEFAULT, null, null);
 
-        List<Profile> allProfiles = new ArrayList<>(List.of(nearProfile, farProfile));
+        // Then
+        assertThat(page.getProfiles()).extracting(ProfileResponse::getId).containsExactly(5L, 9L);
+        verify(profileRepository, never()).findDiscoverCandidatesAfter(any(), any(), any(), anyLong(), any());
+    }
 
-        when(profileRepository.findDiscoverProfilesWithFilters(any(), any(), any()))
-                .thenReturn(allProfiles);
+    @Test
+    @DisplayName("Should load a page of cards with one query for fields and one for interests")
+    void discoverLoadsCardsWithConstantQueries() {
+        // Given
+        mockAuth();
+        List<Long> deckIds = new ArrayList<>();
+        for (long id = 1; id <= 21; id++) {
+            deckIds.add(id);
+        }
+        when(deckService.peek(eq(1L), eq(0L), eq(21), any())).thenReturn(Optional.of(deckIds));
+        mockCards();
+        when(profileRepository.findInterestsByProfileIds(deckIds.subList(0, 20))).thenReturn(List.of(
+                new Object[]{3L, "Beer"},
+                new Object[]{3L, "Chess"},
+                new Object[]{7L, "Hiking"}));
 
         // When
-        List<ProfileResponse> results = profileService.discoverProfilesWithFilters(null, null, 50);
+        DiscoverPageResponse page = profileService.discoverProfiles(null, null, null, DiscoverSort.DEFAULT, null, null);
 
         // Then
-        assertThat(results).hasSize(1); // Tylko Sopot powinien zostać
+        assertThat(page.getProfiles()).hasSize(20);
+        assertThat(page.getProfiles().get(2).getInterests()).containsExactly("Beer", "Chess");
+        assertThat(page.getProfiles().get(6).getInterests()).containsExactly("Hiking");
+        assertThat(page.getProfiles().get(0).getInterests()).isEmpty();
+        assertThat(page.getNextCursor()).isNotNull();
+        verify(profileRepository, times(1)).findDiscoverCards(anyCollection());
+        verify(profileRepository, times(1)).findInterestsByProfileIds(anyCollection());
+        verify(profileRepository, never()).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("Should reject malformed cursor")
+    void discoverRejectsInvalidCursor() {
+        mockAuth();
+
+        assertThatThrownBy(() -> profileService.discoverProfiles(null, null, null, DiscoverSort.DEFAULT, "not a cursor", null))
+                .isInstanceOf(BadRequestException.class);
     }
 
     @Test
@@ -0,0 +1,55 @@
+package com.beerfinder.service;
+
+import com.beerfinder.entity.SwipeAction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentSwipesTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    // Ostatnie 3 swipe'y, okno 60 s
+    private final RecentSwipes recentSwipes = new RecentSwipes(3, Duration.ofSeconds(60), 1000, clock::get);
+
+    @Test
+    @DisplayName("Should pop swipes newest first and keep only the last depth of them")
+    void shouldPopNewestFirst() {
+        for (long swipedUserId = 2; swipedUserId <= 5; swipedUserId++) {
+            recentSwipes.record(1L, swipedUserId * 10, swipedUserId, SwipeAction.LIKE, null);
+        }
+
+        assertThat(recentSwipes.popLatest(1L)).get().extracting(RecentSwipes.Entry::swipedUserId).isEqualTo(5L);
+        assertThat(recentSwipes.popLatest(1L)).get().extracting(RecentSwipes.Entry::swipedUserId).isEqualTo(4L);
+        assertThat(recentSwipes.popLatest(1L)).get().extracting(RecentSwipes.Entry::swipedUserId).isEqualTo(3L);
+        // Swipe na 2 został nadpisany
+        assertThat(recentSwipes.popLatest(1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should refuse swipes older than the undo window")
+    void shouldExpireOutsideWindow() {
+        recentSwipes.record(1L, 10L, 2L, SwipeAction.PASS, null);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+        assertThat(recentSwipes.popLatest(1L)).isEmpty();
+        assertThat(recentSwipes.popLatest(2L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should make a restored entry undoable again")
+    void shouldRestore() {
+        recentSwipes.record(1L, 10L, 2L, SwipeAction.LIKE, 100L);
+        RecentSwipes.Entry entry = recentSwipes.popLatest(1L).orElseThrow();
+
+        recentSwipes.restore(1L, entry);
+
+        assertThat(recentSwipes.popLatest(1L)).contains(entry);
+        assertThat(entry.matchId()).isEqualTo(100L);
+    }
+}
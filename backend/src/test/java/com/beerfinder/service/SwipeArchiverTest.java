@@ -0,0 +1,104 @@
+package com.beerfinder.service;
+
+import com.beerfinder.entity.SwipeArchive;
+import com.beerfinder.repository.SwipeArchiveRepository;
+import com.beerfinder.repository.SwipeRepository;
+import com.beerfinder.util.RoaringBitmaps;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SwipeArchiverTest {
+
+    @Mock
+    private SwipeRepository swipeRepository;
+
+    @Mock
+    private SwipeArchiveRepository archiveRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TaskScheduler scheduler;
+
+    private SwipeArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        archiver = new SwipeArchiver(swipeRepository, archiveRepository, transactionManager, scheduler,
+                false, Duration.ofHours(1), Duration.ofDays(30), 2);
+    }
+
+    @Test
+    @DisplayName("Should merge old passes into archives and delete them batch by batch")
+    void shouldArchiveInBatches() {
+        // Given - pełna pierwsza paczka, więc archiwizator pobiera kolejną
+        SwipeArchive existing = new SwipeArchive();
+        existing.setSwiperId(1L);
+        existing.setPassedUserIds(RoaringBitmaps.toBytes(Roaring64NavigableMap.bitmapOf(9L)));
+        existing.setPassedCount(1L);
+
+        when(swipeRepository.findArchivablePasses(any(), any(Limit.class)))
+                .thenReturn(List.of(row(10L, 1L, 2L), row(11L, 1L, 3L)))
+                .thenReturn(List.<Object[]>of(row(12L, 4L, 1L)));
+        when(archiveRepository.findForUpdate(anyCollection()))
+                .thenReturn(List.of(existing))
+                .thenReturn(List.of());
+        List<SwipeArchive> saved = new ArrayList<>();
+        when(archiveRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            saved.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        // When
+        int archived = archiver.archive();
+
+        // Then
+        assertThat(archived).isEqualTo(3);
+        assertThat(saved).hasSize(2);
+        assertThat(saved.get(0)).isSameAs(existing);
+        assertThat(RoaringBitmaps.fromBytes(existing.getPassedUserIds()).toArray()).containsExactly(2L, 3L, 9L);
+        assertThat(existing.getPassedCount()).isEqualTo(3L);
+        assertThat(saved.get(1).getSwiperId()).isEqualTo(4L);
+        assertThat(saved.get(1).getPassedCount()).isEqualTo(1L);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> deleted = ArgumentCaptor.forClass(List.class);
+        verify(swipeRepository, times(2)).deleteAllByIdInBatch(deleted.capture());
+        assertThat(deleted.getAllValues()).containsExactly(List.of(10L, 11L), List.of(12L));
+    }
+
+    @Test
+    @DisplayName("Should do nothing when there is nothing old enough")
+    void shouldSkipWhenNothingToArchive() {
+        when(swipeRepository.findArchivablePasses(any(), any(Limit.class))).thenReturn(List.of());
+
+        assertThat(archiver.archive()).isZero();
+        verifyNoInteractions(archiveRepository);
+        verify(swipeRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    private static Object[] row(Long swipeId, Long swiperId, Long swipedUserId) {
+        return new Object[]{swipeId, swiperId, swipedUserId};
+    }
+}
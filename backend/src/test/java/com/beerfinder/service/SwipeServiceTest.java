@@ -1,14 +1,21 @@
 package com.beerfinder.service;
 
+import com.beerfinder.dto.BatchSwipeRequest;
+import com.beerfinder.dto.BatchSwipeResponse;
 import com.beerfinder.dto.SwipeRequest;
 import com.beerfinder.dto.SwipeResponse;
-import com.beerfinder.entity.Match;
 import com.beerfinder.entity.Swipe;
 import com.beerfinder.entity.SwipeAction;
 import com.beerfinder.entity.User;
+import com.beerfinder.event.DomainEventPublisher;
+import com.beerfinder.event.MatchCreated;
+import com.beerfinder.event.SwipeRecorded;
+import com.beerfinder.event.SwipeUndone;
 import com.beerfinder.exception.BadRequestException;
+import com.beerfinder.exception.ResourceNotFoundException;
 import com.beerfinder.repository.SwipeRepository;
 import com.beerfinder.repository.UserRepository;
+import com.beerfinder.security.AuthenticatedUser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,16 +23,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +52,21 @@ class SwipeServiceTest {
     @Mock
     private MatchService matchService;
 
+    @Mock
+    private SwipedUsersCache swipedUsers;
+
+    @Mock
+    private SwipeWriteBuffer writeBuffer;
+
+    @Mock
+    private LikeGraph likeGraph;
+
+    @Mock
+    private DomainEventPublisher eventPublisher;
+
+    @Mock
+    private RecentSwipes recentSwipes;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -73,26 +100,26 @@ class SwipeServiceTest {
         when(userRepository.findByEmail(currentUser.getEmail())).thenReturn(Optional.of(currentUser));
     }
 
+    // Principal z id - serwis nie potrzebuje encji zalogowanego użytkownika
+    private void mockPrincipal() {
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal())
+                .thenReturn(new AuthenticatedUser(1L, currentUser.getEmail(), "hash", List.of()));
+    }
+
     @Test
     @DisplayName("Should create a match when mutual LIKE exists")
     void shouldCreateMatchOnMutualLike() {
         // Given
-        mockAuth();
+        mockPrincipal();
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
         SwipeRequest request = new SwipeRequest();
         request.setSwipedUserId(2L);
         request.setAction(SwipeAction.LIKE);
 
-        when(userRepository.findById(2L)).thenReturn(Optional.of(otherUser));
-        when(swipeRepository.existsBySwiperAndSwiped(currentUser, otherUser)).thenReturn(false);
-        when(swipeRepository.save(any(Swipe.class))).thenAnswer(i -> i.getArguments()[0]);
-
-        Swipe reverseSwipe = new Swipe();
-        when(swipeRepository.findBySwiperAndSwipedAndAction(otherUser, currentUser, SwipeAction.LIKE))
-                .thenReturn(Optional.of(reverseSwipe));
-
-        Match mockMatch = new Match();
-        mockMatch.setId(100L);
-        when(matchService.createMatch(currentUser, otherUser)).thenReturn(mockMatch);
+        when(swipeRepository.insertIfAbsent(1L, 2L, SwipeAction.LIKE)).thenReturn(Optional.of(50L));
+        when(swipeRepository.findLikersAmong(1L, List.of(2L))).thenReturn(List.of(2L));
+        when(matchService.ensureMatch(1L, 2L)).thenReturn(Optional.of(100L));
 
         // When
         SwipeResponse response = swipeService.swipe(request);
@@ -101,7 +128,12 @@ class SwipeServiceTest {
         // Zmieniono na getIsMatch() - najczęstsza nazwa w DTO gdy pole to isMatch
         assertThat(response.getIsMatch()).isTrue();
         assertThat(response.getMatchId()).isEqualTo(100L);
-        verify(matchService).createMatch(currentUser, otherUser);
+        assertThat(response.getSwipeId()).isEqualTo(50L);
+        verify(matchService).ensureMatch(1L, 2L);
+        verify(eventPublisher).publish(new SwipeRecorded(50L, 1L, 2L, SwipeAction.LIKE));
+        verify(eventPublisher).publish(new MatchCreated(100L, 1L, 2L));
+        verify(userRepository, never()).findByEmail(any());
+        verify(userRepository, never()).findById(any());
     }
 
     @Test
@@ -109,20 +141,44 @@ class SwipeServiceTest {
     void shouldRecordSwipeWithoutMatch() {
         // Given
         mockAuth();
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
         SwipeRequest request = new SwipeRequest();
         request.setSwipedUserId(2L);
         request.setAction(SwipeAction.LIKE);
 
-        when(userRepository.findById(2L)).thenReturn(Optional.of(otherUser));
-        when(swipeRepository.findBySwiperAndSwipedAndAction(any(), any(), any())).thenReturn(Optional.empty());
-        when(swipeRepository.save(any(Swipe.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(swipeRepository.insertIfAbsent(1L, 2L, SwipeAction.LIKE)).thenReturn(Optional.of(50L));
 
         // When
         SwipeResponse response = swipeService.swipe(request);
 
         // Then
         assertThat(response.getIsMatch()).isFalse();
-        verify(matchService, never()).createMatch(any(), any());
+        verify(matchService, never()).ensureMatch(any(), any());
+        verify(swipedUsers).add(1L, 2L);
+        verify(eventPublisher).publish(new SwipeRecorded(50L, 1L, 2L, SwipeAction.LIKE));
+        verify(eventPublisher, never()).publish(any(MatchCreated.class));
+    }
+
+    @Test
+    @DisplayName("Should not report a match when the pair's match was ended before the repeated LIKE")
+    void shouldNotReviveEndedMatch() {
+        // Given - A i B mieli match, A go zakończył, cofnął LIKE i polubił B ponownie
+        mockPrincipal();
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+        when(swipeRepository.insertIfAbsent(1L, 2L, SwipeAction.LIKE)).thenReturn(Optional.of(51L));
+        when(swipeRepository.findLikersAmong(1L, List.of(2L))).thenReturn(List.of(2L));
+        when(matchService.ensureMatch(1L, 2L)).thenReturn(Optional.empty());
+
+        // When
+        SwipeResponse response = swipeService.swipe(new SwipeRequest(2L, SwipeAction.LIKE));
+
+        // Then
+        assertThat(response.getIsMatch()).isFalse();
+        assertThat(response.getMatchId()).isNull();
+        assertThat(response.getMessage()).isEqualTo("Swipe recorded");
+        verify(eventPublisher).publish(new SwipeRecorded(51L, 1L, 2L, SwipeAction.LIKE));
+        verify(eventPublisher, never()).publish(any(MatchCreated.class));
+        verify(likeGraph).onSwipe(1L, 2L, SwipeAction.LIKE, true);
     }
 
     @Test
@@ -132,9 +188,267 @@ class SwipeServiceTest {
         SwipeRequest request = new SwipeRequest();
         request.setSwipedUserId(1L);
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(currentUser));
-
         assertThatThrownBy(() -> swipeService.swipe(request))
                 .isInstanceOf(BadRequestException.class);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should reject a duplicate swipe reported by the conflicting insert")
+    void shouldRejectDuplicateSwipe() {
+        mockPrincipal();
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+        when(swipeRepository.insertIfAbsent(1L, 2L, SwipeAction.PASS)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> swipeService.swipe(new SwipeRequest(2L, SwipeAction.PASS)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("You have already swiped this user");
+        verify(swipedUsers, never()).add(any(), any());
+        verify(eventPublisher, never()).publish(any());
+    }
+
+    @Test
+    @DisplayName("Should return 404 when the swiped user does not exist (foreign key violation)")
+    void shouldRejectUnknownUser() {
+        mockPrincipal();
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+        when(swipeRepository.insertIfAbsent(1L, 99L, SwipeAction.LIKE))
+                .thenThrow(new DataIntegrityViolationException("fk_swipes_swiped"));
+
+        assertThatThrownBy(() -> swipeService.swipe(new SwipeRequest(99L, SwipeAction.LIKE)))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("Should save a batch of swipes, reject invalid items and detect matches in one query")
+    void shouldSwipeBatch() {
+        // Given
+        mockAuth();
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+        User thirdUser = new User();
+        thirdUser.setId(3L);
+
+        BatchSwipeRequest request = new BatchSwipeRequest(List.of(
+                new SwipeRequest(2L, SwipeAction.LIKE),
+                new SwipeRequest(1L, SwipeAction.LIKE),   // samego siebie
+                new SwipeRequest(3L, SwipeAction.PASS),
+                new SwipeRequest(4L, SwipeAction.LIKE),   // już przesunięty
+                new SwipeRequest(2L, SwipeAction.PASS),   // duplikat
+                new SwipeRequest(99L, SwipeAction.LIKE))); // nie istnieje
+
+        when(userRepository.getReferenceById(1L)).thenReturn(currentUser);
+        when(userRepository.findExistingIds(Set.of(1L, 2L, 3L, 4L, 99L))).thenReturn(List.of(1L, 2L, 3L, 4L));
+        when(swipeRepository.findSwipedUserIdsIn(1L, Set.of(1L, 2L, 3L, 4L, 99L))).thenReturn(List.of(4L));
+        when(userRepository.getReferenceById(2L)).thenReturn(otherUser);
+        when(userRepository.getReferenceById(3L)).thenReturn(thirdUser);
+        doAnswer(invocation -> {
+            List<Swipe> swipes = invocation.getArgument(0);
+            for (int i = 0; i < swipes.size(); i++) {
+                swipes.get(i).setId(10L + i);
+            }
+            return swipes;
+        }).when(swipeRepository).batchInsertIfAbsent(anyList());
+        when(swipeRepository.findLikersAmong(1L, List.of(2L))).thenReturn(List.of(2L));
+
+        when(matchService.ensureMatches(1L, List.of(2L))).thenReturn(Map.of(2L, 100L));
+
+        // When
+        BatchSwipeResponse response = swipeService.swipeBatch(request);
+
+        // Then
+        assertThat(response.getRecorded()).isEqualTo(2);
+        assertThat(response.getMatches()).isEqualTo(1);
+        assertThat(response.getResults()).extracting(SwipeResponse::getSwipeId)
+                .containsExactly(10L, null, 11L, null, null, null);
+        assertThat(response.getResults().get(0).getMatchId()).isEqualTo(100L);
+        assertThat(response.getResults().get(1).getMessage()).isEqualTo("Cannot swipe yourself");
+        assertThat(response.getResults().get(3).getMessage()).isEqualTo("You have already swiped this user");
+        assertThat(response.getResults().get(4).getMessage()).isEqualTo("Duplicate swipe in batch");
+        verify(swipeRepository, times(1)).batchInsertIfAbsent(anyList());
+        verify(swipeRepository, never()).save(any());
+        verify(swipedUsers).add(1L, 3L);
+        verify(eventPublisher).publishAll(List.of(
+                new SwipeRecorded(10L, 1L, 2L, SwipeAction.LIKE),
+                new MatchCreated(100L, 1L, 2L),
+                new SwipeRecorded(11L, 1L, 3L, SwipeAction.PASS)));
+    }
+
+    @Test
+    @DisplayName("Should report a pair stored concurrently during the batch as already swiped")
+    void shouldSkipConcurrentlyStoredSwipeInBatch() {
+        // Given - swipe 1 -> 2 zapisany równolegle po sprawdzeniu, a przed batchem
+        mockAuth();
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+        User thirdUser = new User();
+        thirdUser.setId(3L);
+
+        BatchSwipeRequest request = new BatchSwipeRequest(List.of(
+                new SwipeRequest(2L, SwipeAction.LIKE),
+                new SwipeRequest(3L, SwipeAction.PASS)));
+
+        when(userRepository.getReferenceById(1L)).thenReturn(currentUser);
+        when(userRepository.findExistingIds(Set.of(2L, 3L))).thenReturn(List.of(2L, 3L));
+        when(swipeRepository.findSwipedUserIdsIn(1L, Set.of(2L, 3L))).thenReturn(List.of());
+        when(userRepository.getReferenceById(2L)).thenReturn(otherUser);
+        when(userRepository.getReferenceById(3L)).thenReturn(thirdUser);
+        when(swipeRepository.batchInsertIfAbsent(anyList())).thenAnswer(invocation -> {
+            List<Swipe> swipes = invocation.getArgument(0);
+            swipes.get(1).setId(11L);
+            return List.of(swipes.get(1));
+        });
+
+        // When
+        BatchSwipeResponse response = swipeService.swipeBatch(request);
+
+        // Then
+        assertThat(response.getRecorded()).isEqualTo(1);
+        assertThat(response.getMatches()).isZero();
+        assertThat(response.getResults()).extracting(SwipeResponse::getSwipeId).containsExactly(null, 11L);
+        assertThat(response.getResults().get(0).getMessage()).isEqualTo("You have already swiped this user");
+        verify(swipeRepository, never()).findLikersAmong(any(), anyList());
+        verify(swipedUsers, never()).add(1L, 2L);
+        verify(eventPublisher).publishAll(List.of(new SwipeRecorded(11L, 1L, 3L, SwipeAction.PASS)));
+    }
+
+    @Test
+    @DisplayName("Should not count a mutual like of an ended match as a match in a batch")
+    void shouldNotReviveEndedMatchInBatch() {
+        // Given - 1 i 2 lubią się wzajemnie, ale ich match zakończono
+        mockAuth();
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+        when(userRepository.getReferenceById(1L)).thenReturn(currentUser);
+        when(userRepository.findExistingIds(Set.of(2L))).thenReturn(List.of(2L));
+        when(swipeRepository.findSwipedUserIdsIn(1L, Set.of(2L))).thenReturn(List.of());
+        when(userRepository.getReferenceById(2L)).thenReturn(otherUser);
+        when(swipeRepository.batchInsertIfAbsent(anyList())).thenAnswer(invocation -> {
+            List<Swipe> swipes = invocation.getArgument(0);
+            swipes.get(0).setId(10L);
+            return swipes;
+        });
+        when(swipeRepository.findLikersAmong(1L, List.of(2L))).thenReturn(List.of(2L));
+        when(matchService.ensureMatches(1L, List.of(2L))).thenReturn(Map.of());
+
+        // When
+        BatchSwipeResponse response = swipeService.swipeBatch(
+                new BatchSwipeRequest(List.of(new SwipeRequest(2L, SwipeAction.LIKE))));
+
+        // Then
+        assertThat(response.getMatches()).isZero();
+        assertThat(response.getResults().get(0).getIsMatch()).isFalse();
+        assertThat(response.getResults().get(0).getMessage()).isEqualTo("Swipe recorded");
+        verify(eventPublisher).publishAll(List.of(new SwipeRecorded(10L, 1L, 2L, SwipeAction.LIKE)));
+    }
+
+    @Test
+    @DisplayName("Should buffer PASS swipes in write-behind mode and keep LIKE synchronous")
+    void shouldBufferPassInWriteBehindMode() {
+        // Given
+        mockAuth();
+        when(writeBuffer.isEnabled()).thenReturn(true);
+        when(userRepository.existsById(2L)).thenReturn(true);
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+
+        // When
+        SwipeResponse response = swipeService.swipe(new SwipeRequest(2L, SwipeAction.PASS));
+
+        // Then
+        assertThat(response.getIsMatch()).isFalse();
+        assertThat(response.getSwipeId()).isNull();
+        verify(writeBuffer).enqueue(1L, 2L);
+        verify(swipeRepository, never()).insertIfAbsent(any(), any(), any());
+        verify(swipedUsers).add(1L, 2L);
+        // Zdarzenie zapisuje bufor razem z grupowym commitem
+        verify(eventPublisher, never()).publish(any());
+    }
+
+    @Test
+    @DisplayName("Should reject a swipe of a user whose PASS was already archived")
+    void shouldRejectArchivedSwipe() {
+        // Archiwum nie ma wiersza w swipes - unikalna para nie wykryłaby duplikatu
+        mockPrincipal();
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> userId == 2L);
+
+        assertThatThrownBy(() -> swipeService.swipe(new SwipeRequest(2L, SwipeAction.LIKE)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("You have already swiped this user");
+        verify(swipeRepository, never()).insertIfAbsent(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject a swipe that is still waiting in the write-behind buffer")
+    void shouldRejectPendingSwipe() {
+        mockAuth();
+        when(writeBuffer.isPending(1L, 2L)).thenReturn(true);
+
+        assertThatThrownBy(() -> swipeService.swipe(new SwipeRequest(2L, SwipeAction.LIKE)))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @DisplayName("Should undo a LIKE that led to a match and deactivate the match")
+    void shouldUndoMatchingLike() {
+        // Given - match utworzył późniejszy LIKE drugiej strony, wpis cofania nie zna jego id
+        mockPrincipal();
+        when(recentSwipes.popLatest(1L))
+                .thenReturn(Optional.of(new RecentSwipes.Entry(50L, 2L, SwipeAction.LIKE, null, 0L)));
+        when(swipeRepository.deletePair(1L, 2L)).thenReturn(1);
+        when(matchService.deactivateMatch(1L, 2L)).thenReturn(Optional.of(100L));
+
+        // When
+        SwipeResponse response = swipeService.undoLastSwipe();
+
+        // Then
+        assertThat(response.getSwipeId()).isEqualTo(50L);
+        assertThat(response.getMatchId()).isEqualTo(100L);
+        verify(eventPublisher).publish(new SwipeUndone(50L, 1L, 2L, SwipeAction.LIKE, 100L));
+        verify(likeGraph).onUndo(1L, 2L, false);
+        verify(swipedUsers).remove(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Should reject undo outside the window without querying the database")
+    void shouldRejectUndoOutsideWindow() {
+        mockPrincipal();
+        when(recentSwipes.popLatest(1L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> swipeService.undoLastSwipe())
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Nothing to undo");
+        verifyNoInteractions(swipeRepository, matchService, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Should undo a buffered PASS by dropping it from the write-behind buffer")
+    void shouldUndoBufferedPass() {
+        mockPrincipal();
+        when(recentSwipes.popLatest(1L))
+                .thenReturn(Optional.of(new RecentSwipes.Entry(null, 2L, SwipeAction.PASS, null, 0L)));
+        when(writeBuffer.cancel(1L, 2L)).thenReturn(true);
+
+        SwipeResponse response = swipeService.undoLastSwipe();
+
+        assertThat(response.getMessage()).isEqualTo("Swipe undone");
+        verify(swipeRepository, never()).deletePair(any(), any());
+        verify(matchService, never()).deactivateMatch(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should detect a mutual like in the like graph without querying swipes")
+    void shouldDetectMatchInLikeGraph() {
+        // Given
+        mockPrincipal();
+        when(swipedUsers.swipedBy(1L)).thenReturn(userId -> false);
+        when(swipeRepository.insertIfAbsent(1L, 2L, SwipeAction.LIKE)).thenReturn(Optional.of(50L));
+        when(likeGraph.isReady()).thenReturn(true);
+        when(likeGraph.hasLiked(2L, 1L)).thenReturn(true);
+
+        when(matchService.ensureMatch(1L, 2L)).thenReturn(Optional.of(100L));
+
+        // When
+        SwipeResponse response = swipeService.swipe(new SwipeRequest(2L, SwipeAction.LIKE));
+
+        // Then
+        assertThat(response.getIsMatch()).isTrue();
+        verify(swipeRepository, never()).findLikersAmong(any(), any());
+        verify(likeGraph).onSwipe(1L, 2L, SwipeAction.LIKE, true);
+    }
+}
@@ -0,0 +1,174 @@
+package com.beerfinder.service;
+
+import com.beerfinder.entity.Swipe;
+import com.beerfinder.entity.SwipeAction;
+import com.beerfinder.event.DomainEventPublisher;
+import com.beerfinder.exception.ServiceUnavailableException;
+import com.beerfinder.repository.SwipeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SwipeWriteBufferTest {
+
+    @Mock
+    private SwipeRepository swipeRepository;
+
+    @Mock
+    private DomainEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TaskScheduler scheduler;
+
+    @Captor
+    private ArgumentCaptor<List<Swipe>> batchCaptor;
+
+    private SwipeWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        // Bez harmonogramu (enabled=false) - flush wywołujemy ręcznie
+        buffer = new SwipeWriteBuffer(swipeRepository, eventPublisher, transactionManager, scheduler, false, Duration.ofMillis(50), 2, 100);
+    }
+
+    @Test
+    @DisplayName("Should deduplicate pending swipes and write them in batches of max-batch")
+    void shouldGroupCommitInBatches() {
+        List<List<Swipe>> batches = new ArrayList<>();
+        doAnswer(invocation -> batches.add(new ArrayList<>(invocation.getArgument(0))))
+                .when(swipeRepository).batchInsert(anyList());
+
+        buffer.enqueue(1L, 2L);
+        buffer.enqueue(1L, 2L); // podwójne kliknięcie
+        buffer.enqueue(1L, 3L);
+        buffer.enqueue(4L, 2L);
+
+        assertThat(buffer.isPending(1L, 2L)).isTrue();
+        assertThat(buffer.pendingSwipedBy(1L)).containsExactly(2L, 3L);
+
+        int written = buffer.flush();
+
+        assertThat(written).isEqualTo(3);
+        assertThat(batches).extracting(List::size).containsExactly(2, 1);
+        assertThat(batches.get(0).get(0).getAction()).isEqualTo(SwipeAction.PASS);
+        assertThat(batches.get(0).get(0).getSwiped().getId()).isEqualTo(2L);
+        assertThat(buffer.pendingCount()).isZero();
+        verify(transactionManager, times(2)).commit(any());
+        // Zdarzenia w tej samej transakcji co zapis
+        verify(eventPublisher, times(2)).publishAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should cancel a pending swipe so it is never written")
+    void shouldCancelPendingSwipe() {
+        buffer.enqueue(1L, 2L);
+
+        assertThat(buffer.cancel(1L, 2L)).isTrue();
+        assertThat(buffer.cancel(1L, 2L)).isFalse();
+        assertThat(buffer.flush()).isZero();
+        verify(swipeRepository, never()).batchInsert(anyList());
+    }
+
+    @Test
+    @DisplayName("Should fall back to single inserts and skip swipes stored in the meantime")
+    void shouldSkipConflictsOnFallback() {
+        doThrow(new DuplicateKeyException("batch"))         // cały batch
+                .doNothing()                                   // 1 -> 2
+                .doThrow(new DuplicateKeyException("single"))  // 1 -> 3 już zapisany
+                .when(swipeRepository).batchInsert(batchCaptor.capture());
+
+        buffer.enqueue(1L, 2L);
+        buffer.enqueue(1L, 3L);
+
+        assertThat(buffer.flush()).isEqualTo(1);
+        assertThat(batchCaptor.getAllValues()).extracting(List::size).containsExactly(2, 1, 1);
+        assertThat(buffer.pendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep swipes pending when the flush fails")
+    void shouldKeepPendingOnFailure() {
+        doThrow(new IllegalStateException("database down")).when(swipeRepository).batchInsert(anyList());
+        buffer.enqueue(1L, 2L);
+
+        try {
+            buffer.flush();
+        } catch (IllegalStateException ignored) {
+            // oczekiwane
+        }
+
+        assertThat(buffer.isPending(1L, 2L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject swipes while full and let a background flush catch up")
+    void shouldApplyBackpressureAndDrain() {
+        SwipeWriteBuffer small = new SwipeWriteBuffer(swipeRepository, eventPublisher, transactionManager, scheduler, true, Duration.ofMillis(50), 10, 2);
+        small.enqueue(1L, 2L);
+        small.enqueue(1L, 3L);
+
+        // Bufor pełny - swipe odrzucony bez zapisu w wątku wywołującym
+        assertThatThrownBy(() -> small.enqueue(1L, 4L))
+                .isInstanceOf(ServiceUnavailableException.class);
+        verify(swipeRepository, never()).batchInsert(anyList());
+        assertThat(small.isPending(1L, 4L)).isFalse();
+
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(flush.capture(), any(Instant.class));
+        flush.getValue().run();
+        verify(swipeRepository, times(1)).batchInsert(anyList());
+        assertThat(small.pendingCount()).isZero();
+
+        small.enqueue(1L, 4L);
+        small.drain();
+        verify(swipeRepository, times(2)).batchInsert(anyList());
+        assertThat(small.pendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should request a single background flush for repeated rejections")
+    void shouldRequestOneFlushWhileFull() {
+        SwipeWriteBuffer small = new SwipeWriteBuffer(swipeRepository, eventPublisher, transactionManager, scheduler, true, Duration.ofMillis(50), 10, 2);
+        doThrow(new IllegalStateException("database down")).when(swipeRepository).batchInsert(anyList());
+        small.enqueue(1L, 2L);
+        small.enqueue(1L, 3L);
+
+        for (long swipedUserId = 4; swipedUserId < 10; swipedUserId++) {
+            long id = swipedUserId;
+            assertThatThrownBy(() -> small.enqueue(1L, id))
+                    .isInstanceOf(ServiceUnavailableException.class);
+        }
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, times(1)).schedule(flush.capture(), any(Instant.class));
+
+        // Nieudany flush zostawia wpisy w buforze, a kolejne odrzucenie zleca następny
+        flush.getValue().run();
+        assertThat(small.pendingCount()).isEqualTo(2);
+        assertThatThrownBy(() -> small.enqueue(1L, 10L))
+                .isInstanceOf(ServiceUnavailableException.class);
+        verify(scheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+    }
+}
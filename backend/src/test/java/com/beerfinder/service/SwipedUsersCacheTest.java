@@ -0,0 +1,110 @@
+package com.beerfinder.service;
+
+import com.beerfinder.entity.SwipeArchive;
+import com.beerfinder.repository.SwipeArchiveRepository;
+import com.beerfinder.repository.SwipeRepository;
+import com.beerfinder.util.RoaringBitmaps;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SwipedUsersCacheTest {
+
+    @Mock
+    private SwipeRepository swipeRepository;
+
+    @Mock
+    private SwipeArchiveRepository archiveRepository;
+
+    @Mock
+    private SwipeWriteBuffer writeBuffer;
+
+    private SwipedUsersCache swipedUsers;
+
+    @BeforeEach
+    void setUp() {
+        swipedUsers = new SwipedUsersCache(swipeRepository, archiveRepository, writeBuffer, 1024 * 1024, Duration.ofMinutes(30));
+    }
+
+    @Test
+    @DisplayName("Should build the bitmap from the database once and keep it updated")
+    void shouldLoadLazilyAndApplySwipes() {
+        when(swipeRepository.findSwipedUserIdsBySwiperId(1L)).thenReturn(List.of(2L, 3L));
+
+        LongPredicate before = swipedUsers.swipedBy(1L);
+        swipedUsers.add(1L, 4L);
+        LongPredicate after = swipedUsers.swipedBy(1L);
+
+        assertThat(before.test(2L)).isTrue();
+        assertThat(before.test(4L)).isTrue(); // bitmapa zmieniana w miejscu - wcześniejszy odczyt też widzi swipe
+        assertThat(after.test(4L)).isTrue();
+        assertThat(after.test(5L)).isFalse();
+        verify(swipeRepository, times(1)).findSwipedUserIdsBySwiperId(any());
+    }
+
+    @Test
+    @DisplayName("Should include archived PASS swipes")
+    void shouldIncludeArchivedPasses() {
+        Roaring64NavigableMap archived = Roaring64NavigableMap.bitmapOf(7L, 8L);
+        SwipeArchive archive = new SwipeArchive();
+        archive.setSwiperId(1L);
+        archive.setPassedUserIds(RoaringBitmaps.toBytes(archived));
+        when(archiveRepository.findById(1L)).thenReturn(Optional.of(archive));
+        when(swipeRepository.findSwipedUserIdsBySwiperId(1L)).thenReturn(List.of(2L));
+
+        LongPredicate swiped = swipedUsers.swipedBy(1L);
+
+        assertThat(swiped.test(2L)).isTrue();
+        assertThat(swiped.test(7L)).isTrue();
+        assertThat(swiped.test(8L)).isTrue();
+        assertThat(swiped.test(9L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should forget an undone swipe")
+    void shouldRemoveUndoneSwipe() {
+        when(swipeRepository.findSwipedUserIdsBySwiperId(1L)).thenReturn(List.of(2L, 3L));
+
+        LongPredicate before = swipedUsers.swipedBy(1L);
+        swipedUsers.remove(1L, 2L);
+
+        assertThat(before.test(2L)).isFalse();
+        assertThat(swipedUsers.swipedBy(1L).test(2L)).isFalse();
+        assertThat(swipedUsers.swipedBy(1L).test(3L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should not load the bitmap when recording a swipe for an uncached user")
+    void shouldIgnoreSwipeOfUncachedUser() {
+        swipedUsers.add(1L, 2L);
+
+        verifyNoInteractions(swipeRepository);
+    }
+
+    @Test
+    @DisplayName("Should include PASS swipes still waiting in the write-behind buffer")
+    void shouldIncludePendingSwipes() {
+        when(swipeRepository.findSwipedUserIdsBySwiperId(1L)).thenReturn(List.of(2L));
+        when(writeBuffer.pendingSwipedBy(1L)).thenReturn(List.of(5L));
+
+        LongPredicate swiped = swipedUsers.swipedBy(1L);
+
+        assertThat(swiped.test(2L)).isTrue();
+        assertThat(swiped.test(5L)).isTrue();
+        assertThat(swiped.test(6L)).isFalse();
+    }
+}
@@ -0,0 +1,35 @@
+package com.beerfinder.util;
+
+import com.beerfinder.exception.BadRequestException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DiscoverCursorTest {
+
+    @Test
+    @DisplayName("Should round-trip sort key and id")
+    void shouldRoundTrip() {
+        DiscoverCursor cursor = new DiscoverCursor(12.345678901234, 42L);
+
+        assertThat(DiscoverCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    @DisplayName("Should treat missing cursor as first page")
+    void shouldReturnNullForMissingCursor() {
+        assertThat(DiscoverCursor.decode(null)).isNull();
+        assertThat(DiscoverCursor.decode("")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reject malformed cursor")
+    void shouldRejectMalformedCursor() {
+        assertThatThrownBy(() -> DiscoverCursor.decode("%%%"))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> DiscoverCursor.decode("bm9wZQ"))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,125 @@
+package com.beerfinder.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class GeoUtilsTest {
+
+    @Test
+    @DisplayName("Should enclose every point within the radius in the bounding box")
+    void boundingBoxContainsCircle() {
+        GeoUtils.BoundingBox box = GeoUtils.boundingBox(54.3520, 18.6466, 50);
+
+        // Punkty ~50 km na północ i na wschód od Gdańska
+        assertThat(GeoUtils.calculateDistance(54.3520, 18.6466, box.maxLat(), 18.6466)).isGreaterThanOrEqualTo(50);
+        assertThat(GeoUtils.calculateDistance(54.3520, 18.6466, box.minLat(), 18.6466)).isGreaterThanOrEqualTo(50);
+        assertThat(GeoUtils.calculateDistance(54.3520, 18.6466, 54.3520, box.maxLon())).isGreaterThanOrEqualTo(50);
+        assertThat(GeoUtils.calculateDistance(54.3520, 18.6466, 54.3520, box.minLon())).isGreaterThanOrEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("Should keep a point just inside the radius at the edge of the bounding box")
+    void boundingBoxKeepsPointsAtTheEdge() {
+        GeoUtils.BoundingBox box = GeoUtils.boundingBox(54.35, 18.65, 50);
+
+        // 49.98 km na północ i na południe - w zasięgu według Haversine
+        double deltaLat = Math.toDegrees(49.98 / 6371);
+        assertThat(GeoUtils.calculateDistance(54.35, 18.65, 54.35 + deltaLat, 18.65)).isLessThanOrEqualTo(50);
+        assertThat(54.35 + deltaLat).isLessThanOrEqualTo(box.maxLat());
+        assertThat(54.35 - deltaLat).isGreaterThanOrEqualTo(box.minLat());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the full longitude range across the antimeridian")
+    void boundingBoxAcrossAntimeridian() {
+        GeoUtils.BoundingBox box = GeoUtils.boundingBox(-16.5, 179.95, 20);
+
+        assertThat(box.minLon()).isEqualTo(-180);
+        assertThat(box.maxLon()).isEqualTo(180);
+    }
+
+    @Test
+    @DisplayName("Should match the per-pair Haversine in the batch kernel")
+    void batchDistancesMatchPerPair() {
+        Random random = new Random(42);
+        int count = 1000;
+        double[] lats = new double[count];
+        double[] lons = new double[count];
+        double[] degLats = new double[count];
+        double[] degLons = new double[count];
+        for (int i = 0; i < count; i++) {
+            degLats[i] = 54.3520 + random.nextGaussian() * 2;
+            degLons[i] = 18.6466 + random.nextGaussian() * 3;
+            lats[i] = Math.toRadians(degLats[i]);
+            lons[i] = Math.toRadians(degLons[i]);
+        }
+
+        GeoUtils.Origin origin = GeoUtils.Origin.of(54.3520, 18.6466);
+        double[] distances = new double[count];
+        int[] hits = new int[count];
+        GeoUtils.distances(origin, lats, lons, count, distances);
+        int found = GeoUtils.withinRadius(origin, lats, lons, count, 100, hits);
+
+        int expected = 0;
+        for (int i = 0; i < count; i++) {
+            double perPair = GeoUtils.calculateDistance(54.3520, 18.6466, degLats[i], degLons[i]);
+            assertThat(distances[i]).isCloseTo(perPair, within(1e-6));
+            if (perPair <= 100) {
+                assertThat(hits[expected++]).isEqualTo(i);
+            }
+        }
+        assertThat(found).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Should keep the equirectangular overestimate within the documented bound")
+    void equirectangularErrorBound() {
+        // Cała dziedzina z dokumentacji: oba punkty w ±80°, dowolny kierunek, do 500 km
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            double lat = -GeoUtils.FAST_REJECT_MAX_LAT + random.nextDouble() * 2 * GeoUtils.FAST_REJECT_MAX_LAT;
+            double lon = -180 + random.nextDouble() * 360;
+            double[] target = destination(lat, lon, random.nextDouble() * 360,
+                    random.nextDouble() * GeoUtils.FAST_REJECT_MAX_RADIUS_KM);
+            if (Math.abs(target[0]) > GeoUtils.FAST_REJECT_MAX_LAT) {
+                continue;
+            }
+            assertWithinBound(lat, lon, target[0], target[1]);
+        }
+
+        // Najgorszy przypadek - cięciwa 500 km wzdłuż równoleżnika ±80°
+        for (double lat : new double[]{GeoUtils.FAST_REJECT_MAX_LAT, -GeoUtils.FAST_REJECT_MAX_LAT}) {
+            double lonDelta = 0;
+            while (GeoUtils.calculateDistance(lat, 0, lat, lonDelta + 0.01) <= GeoUtils.FAST_REJECT_MAX_RADIUS_KM) {
+                lonDelta += 0.01;
+            }
+            assertWithinBound(lat, 179.9, lat, 179.9 + lonDelta - 360);
+        }
+    }
+
+    private static void assertWithinBound(double lat, double lon, double lat2, double lon2) {
+        double exact = GeoUtils.calculateDistance(lat, lon, lat2, lon2);
+        double approx = GeoUtils.equirectangularDistance(
+                GeoUtils.Origin.of(lat, lon), Math.toRadians(lat2), Math.toRadians(lon2));
+
+        assertThat(approx).isLessThanOrEqualTo(exact * (1 + GeoUtils.EQUIRECTANGULAR_MAX_ERROR) + 1e-9);
+    }
+
+    // Punkt po przejściu distanceKm po kole wielkim w kierunku bearing (stopnie) - {lat, lon}
+    private static double[] destination(double lat, double lon, double bearing, double distanceKm) {
+        double latRad = Math.toRadians(lat);
+        double bearingRad = Math.toRadians(bearing);
+        double angle = distanceKm / 6371.0;
+
+        double lat2 = Math.asin(Math.sin(latRad) * Math.cos(angle)
+                + Math.cos(latRad) * Math.sin(angle) * Math.cos(bearingRad));
+        double lon2 = Math.toRadians(lon) + Math.atan2(Math.sin(bearingRad) * Math.sin(angle) * Math.cos(latRad),
+                Math.cos(angle) - Math.sin(latRad) * Math.sin(lat2));
+        return new double[]{Math.toDegrees(lat2), (Math.toDegrees(lon2) + 540) % 360 - 180};
+    }
+}
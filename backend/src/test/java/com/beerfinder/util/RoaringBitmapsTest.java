@@ -0,0 +1,29 @@
+package com.beerfinder.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoaringBitmapsTest {
+
+    @Test
+    @DisplayName("Should restore a bitmap from its serialized form")
+    void shouldRoundTrip() {
+        Roaring64NavigableMap bitmap = Roaring64NavigableMap.bitmapOf(1L, 42L, 1_000_000L, Long.MAX_VALUE);
+
+        Roaring64NavigableMap restored = RoaringBitmaps.fromBytes(RoaringBitmaps.toBytes(bitmap));
+
+        assertThat(restored).isEqualTo(bitmap);
+        assertThat(restored.getLongCardinality()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should handle an empty bitmap")
+    void shouldRoundTripEmpty() {
+        Roaring64NavigableMap restored = RoaringBitmaps.fromBytes(RoaringBitmaps.toBytes(new Roaring64NavigableMap()));
+
+        assertThat(restored.isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,43 @@
+package com.beerfinder.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedLocksTest {
+
+    @Test
+    @DisplayName("Should map both orders of a pair to the same lock")
+    void shouldIgnorePairOrder() {
+        StripedLocks locks = new StripedLocks(64);
+
+        assertThat(locks.stripeCount()).isEqualTo(64);
+        assertThat(locks.forPair(3L, 17L)).isSameAs(locks.forPair(17L, 3L));
+    }
+
+    @Test
+    @DisplayName("Should round the number of stripes up to a power of two")
+    void shouldRoundStripes() {
+        assertThat(new StripedLocks(1000).stripeCount()).isEqualTo(1024);
+        assertThat(new StripedLocks(1).stripeCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should lock each stripe of a pair set once")
+    void shouldLockDistinctStripes() {
+        StripedLocks locks = new StripedLocks(2);
+
+        List<Lock> held = locks.lockPairs(1L, List.of(2L, 3L, 4L, 5L, 6L));
+
+        assertThat(held).hasSizeLessThanOrEqualTo(2).doesNotHaveDuplicates();
+        for (Lock lock : held) {
+            assertThat(((ReentrantLock) lock).getHoldCount()).isEqualTo(1);
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.beerfinder.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+
+    // 2 żądania na sekundę, burst 3
+    private final TokenBucketRateLimiter limiter =
+            new TokenBucketRateLimiter(2, 3, 1000, Duration.ofMinutes(1), clock::get);
+
+    @Test
+    @DisplayName("Should allow a full burst and then reject")
+    void shouldAllowBurst() {
+        assertThat(limiter.tryAcquire(1L)).isZero();
+        assertThat(limiter.tryAcquire(1L)).isZero();
+        assertThat(limiter.tryAcquire(1L)).isZero();
+
+        assertThat(limiter.tryAcquire(1L)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    @DisplayName("Should refill one permit per emission interval")
+    void shouldRefill() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(1L);
+        }
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+
+        assertThat(limiter.tryAcquire(1L)).isZero();
+        assertThat(limiter.tryAcquire(1L)).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should not let an idle bucket accumulate more than the burst")
+    void shouldCapIdleCredit() {
+        limiter.tryAcquire(1L);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire(1L)).isZero();
+        }
+        assertThat(limiter.tryAcquire(1L)).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should keep separate buckets per key")
+    void shouldSeparateKeys() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(1L);
+        }
+
+        assertThat(limiter.tryAcquire(1L)).isPositive();
+        assertThat(limiter.tryAcquire(2L)).isZero();
+        assertThat(limiter.trackedKeys()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reject until a consumed debt is repaid")
+    void shouldRepayConsumedDebt() {
+        assertThat(limiter.tryAcquire(1L)).isZero();
+        limiter.consume(1L, 9);
+
+        // 10 zezwoleń przy burst 3 - następne dopiero za 4 s przy 2/s
+        assertThat(limiter.tryAcquire(1L)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(4000));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(4000));
+        assertThat(limiter.tryAcquire(1L)).isZero();
+    }
+}
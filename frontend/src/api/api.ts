@@ -1,4 +1,4 @@
-import type { AuthResponse, Profile, SwipeResponse, Match, Message } from '../types/types';
+import type { AuthResponse, Profile, SwipeResponse, Match, Message, InboxPage, MessagePage } from '../types/types';
 
 const API_BASE = '/api';
 
@@ -58,7 +58,12 @@ export const profileApi = {
         return res.json();
     },
 
-    async getProfiles(minAge?: number, maxAge?: number, maxDistance?: number | null): Promise<Profile[]> {
+    async getProfiles(
+        minAge?: number,
+        maxAge?: number,
+        maxDistance?: number | null,
+        sort?: 'distance' | 'interests'
+    ): Promise<Profile[]> {
         // Build query parameters
         const params = new URLSearchParams();
 
@@ -74,6 +79,10 @@ export const profileApi = {
             params.append('maxDistance', maxDistance.toString());
         }
 
+        if (sort) {
+            params.append('sort', sort);
+        }
+
         const queryString = params.toString();
         const url = `${API_BASE}/users/discover${queryString ? `?${queryString}` : ''}`;
 
@@ -142,6 +151,18 @@ export const matchApi = {
         return res.json();
     },
 
+    async getInbox(cursor?: string): Promise<InboxPage> {
+        const url = `${API_BASE}/matches/inbox${cursor ? `?cursor=${encodeURIComponent(cursor)}` : ''}`;
+        const res = await fetch(url, {
+            headers: getHeaders()
+        });
+        if (!res.ok) throw new Error('Failed to fetch inbox');
+        return {
+            entries: await res.json(),
+            nextCursor: res.headers.get('X-Next-Cursor')
+        };
+    },
+
     async getMatch(matchId: number): Promise<Match> {
         const res = await fetch(`${API_BASE}/matches/${matchId}`, {
             headers: getHeaders()
@@ -153,12 +174,17 @@ export const matchApi = {
 
 // Message API
 export const messageApi = {
-    async getMessages(matchId: number): Promise<Message[]> {
-        const res = await fetch(`${API_BASE}/messages/${matchId}`, {
+    async getMessages(matchId: number, before?: number): Promise<MessagePage> {
+        const url = `${API_BASE}/messages/${matchId}${before !== undefined ? `?before=${before}` : ''}`;
+        const res = await fetch(url, {
             headers: getHeaders()
         });
         if (!res.ok) throw new Error('Failed to fetch messages');
-        return res.json();
+        const nextBefore = res.headers.get('X-Next-Cursor');
+        return {
+            messages: await res.json(),
+            nextBefore: nextBefore ? parseInt(nextBefore, 10) : null
+        };
     },
 
     async sendMessage(matchId: number, content: string): Promise<Message> {
@@ -171,6 +197,15 @@ export const messageApi = {
         return res.json();
     },
 
+    async markAsRead(matchId: number): Promise<number> {
+        const res = await fetch(`${API_BASE}/messages/${matchId}/read`, {
+            method: 'POST',
+            headers: getHeaders()
+        });
+        if (!res.ok) throw new Error('Failed to mark messages as read');
+        return res.json();
+    },
+
     async getUnreadCount(matchId: number): Promise<number> {
         const res = await fetch(`${API_BASE}/messages/${matchId}/unread`, {
             headers: getHeaders()
@@ -41,6 +41,12 @@ export default function SwipeCard({ profile, onSwipe }: SwipeCardProps) {
                     <p className="text-gray-700 font-medium mb-2">{profile.occupation}</p>
                 )}
 
+                {profile.distanceKm != null && (
+                    <p className="text-sm text-gray-500 mb-2">
+                        {profile.distanceKm < 1 ? '< 1' : Math.round(profile.distanceKm)} km stąd
+                    </p>
+                )}
+
                 {profile.bio && (
                     <p className="text-gray-600 mb-4">{profile.bio}</p>
                 )}
@@ -7,6 +7,8 @@ import { ArrowLeft, Send } from 'lucide-react';
 export default function ChatPage() {
     const { matchId: matchIdParam } = useParams<{ matchId: string }>();
     const [messages, setMessages] = useState<Message[]>([]);
+    const [nextBefore, setNextBefore] = useState<number | null>(null);
+    const [loadingOlder, setLoadingOlder] = useState(false);
     const [newMessage, setNewMessage] = useState('');
     const [match, setMatch] = useState<Match | null>(null);
     const [myProfile, setMyProfile] = useState<Profile | null>(null);
@@ -41,8 +43,12 @@ export default function ChatPage() {
             console.log('Messages data:', messagesData);
 
             setMatch(matchData);
-            setMessages(messagesData);
+            setMessages(messagesData.messages);
+            setNextBefore(messagesData.nextBefore);
             setMyProfile(profileData);
+
+            // Historia jest tylko do odczytu - nieprzeczytane oznaczamy osobnym żądaniem
+            messageApi.markAsRead(matchId).catch(err => console.error('Failed to mark messages as read:', err));
         } catch (err) {
             console.error('Failed to load chat:', err);
         } finally {
@@ -50,6 +56,22 @@ export default function ChatPage() {
         }
     };
 
+    // Starsze wiadomości doczytywane dopiero na żądanie - otwarcie czatu kosztuje tyle samo niezależnie od długości rozmowy
+    const loadOlder = async () => {
+        if (nextBefore === null || loadingOlder) return;
+
+        setLoadingOlder(true);
+        try {
+            const page = await messageApi.getMessages(matchId, nextBefore);
+            setMessages(prevMessages => [...page.messages, ...prevMessages]);
+            setNextBefore(page.nextBefore);
+        } catch (err) {
+            console.error('Failed to load older messages:', err);
+        } finally {
+            setLoadingOlder(false);
+        }
+    };
+
     const handleSend = async (e: FormEvent) => {
         e.preventDefault();
         if (!newMessage.trim() || isNaN(matchId) || sending) return;
@@ -169,6 +191,17 @@ export default function ChatPage() {
             {/* Messages */}
             <div className="flex-1 overflow-y-auto p-4">
                 <div className="max-w-4xl mx-auto space-y-4">
+                    {nextBefore !== null && (
+                        <div className="text-center">
+                            <button
+                                onClick={loadOlder}
+                                disabled={loadingOlder}
+                                className="px-4 py-2 text-sm text-amber-800 font-semibold hover:bg-white hover:bg-opacity-50 rounded-lg transition disabled:opacity-50"
+                            >
+                                {loadingOlder ? 'Ładowanie...' : 'Starsze wiadomości'}
+                            </button>
+                        </div>
+                    )}
                     {messages.length === 0 ? (
                         <div className="text-center py-12">
                             <p className="text-gray-600">Wyślij pierwszą wiadomość! 🍺</p>
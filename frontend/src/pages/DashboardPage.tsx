@@ -46,7 +46,10 @@ export default function DashboardPage() {
 
     const loadProfiles = async () => {
         try {
-            const profilesData = await profileApi.getProfiles(minAge, maxAge, maxDistance);
+            // Z filtrem odległości pokazujemy najbliższych najpierw (wymaga własnej lokalizacji)
+            const hasLocation = myProfile?.latitude != null && myProfile?.longitude != null;
+            const sort = maxDistance !== null && hasLocation ? 'distance' : undefined;
+            const profilesData = await profileApi.getProfiles(minAge, maxAge, maxDistance, sort);
             setProfiles(profilesData);
             setCurrentIndex(0);
         } catch (err) {
@@ -83,7 +86,13 @@ export default function DashboardPage() {
                 setTimeout(() => setShowMatch(false), 3000);
             }
 
-            setCurrentIndex(prev => prev + 1);
+            // Discover zwraca stronę profili - po ostatniej karcie pobierz kolejną
+            // (przesunięte już profile nie wrócą, więc wystarczy pierwsza strona)
+            if (currentIndex + 1 >= profiles.length) {
+                await loadProfiles();
+            } else {
+                setCurrentIndex(prev => prev + 1);
+            }
         } catch (err) {
             console.error('Swipe failed:', err);
         }
@@ -1,33 +1,27 @@
 import { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
-import { matchApi, messageApi } from '../api/api';
-import { Match } from '../types/types';
+import { matchApi } from '../api/api';
+import { InboxEntry, Profile } from '../types/types';
 import { ArrowLeft, MessageCircle } from 'lucide-react';
 
-interface MatchWithUnread extends Match {
-    unreadCount?: number;
-}
-
 export default function MatchesPage() {
-    const [matches, setMatches] = useState<MatchWithUnread[]>([]);
+    const [matches, setMatches] = useState<InboxEntry[]>([]);
+    const [nextCursor, setNextCursor] = useState<string | null>(null);
     const [loading, setLoading] = useState(true);
+    const [loadingMore, setLoadingMore] = useState(false);
     const navigate = useNavigate();
 
     useEffect(() => {
         loadMatches();
     }, []);
 
+    // Skrzynka zwraca od razu ostatnią wiadomość i liczbę nieprzeczytanych - bez zapytania na match
     const loadMatches = async () => {
         setLoading(true);
         try {
-            const data = await matchApi.getMatches();
-            console.log('Matches loaded:', data);
-
-            // Set matches immediately so they display
-            setMatches(data.map(match => ({ ...match, unreadCount: 0 })));
-
-            // Then try to load unread counts in background (non-blocking)
-            loadUnreadCounts(data);
+            const page = await matchApi.getInbox();
+            setMatches(page.entries);
+            setNextCursor(page.nextCursor);
         } catch (err) {
             console.error('Failed to load matches:', err);
         } finally {
@@ -35,25 +29,17 @@ export default function MatchesPage() {
         }
     };
 
-    const loadUnreadCounts = async (matchList: Match[]) => {
-        // Load unread counts one by one, updating state as we go
-        for (let i = 0; i < matchList.length; i++) {
-            const match = matchList[i];
-            try {
-                const unreadCount = await messageApi.getUnreadCount(match.matchId);
-
-                // Update only this specific match
-                setMatches(prevMatches =>
-                    prevMatches.map(m =>
-                        m.matchId === match.matchId
-                            ? { ...m, unreadCount }
-                            : m
-                    )
-                );
-            } catch (err) {
-                console.error(`Failed to load unread count for match ${match.matchId}:`, err);
-                // Continue with other matches even if one fails
-            }
+    const loadMore = async () => {
+        if (!nextCursor) return;
+        setLoadingMore(true);
+        try {
+            const page = await matchApi.getInbox(nextCursor);
+            setMatches(prevMatches => [...prevMatches, ...page.entries]);
+            setNextCursor(page.nextCursor);
+        } catch (err) {
+            console.error('Failed to load more matches:', err);
+        } finally {
+            setLoadingMore(false);
         }
     };
 
@@ -93,7 +79,7 @@ export default function MatchesPage() {
                 ) : (
                     <div className="space-y-4">
                         {matches.map((match) => {
-                            const user = match.matchedUser || {};
+                            const user = match.matchedUser || ({} as Partial<Profile>);
                             const name = user.name || 'Anonymous';
                             const photo = user.profilePhoto;
                             const age = user.age;
@@ -144,6 +130,11 @@ export default function MatchesPage() {
                                         {occupation && (
                                             <p className="text-sm text-gray-600">{occupation}</p>
                                         )}
+                                        {match.lastMessage && (
+                                            <p className={`text-sm mt-1 truncate ${hasUnread ? 'text-gray-900 font-semibold' : 'text-gray-500'}`}>
+                                                {match.lastMessage}
+                                            </p>
+                                        )}
                                         {hasUnread && (
                                             <p className="text-xs text-amber-600 font-semibold mt-1">
                                                 {unreadCount} nowa wiadomość{unreadCount > 1 ? 'i' : ''}
@@ -158,6 +149,16 @@ export default function MatchesPage() {
                                 </button>
                             );
                         })}
+
+                        {nextCursor && (
+                            <button
+                                onClick={loadMore}
+                                disabled={loadingMore}
+                                className="w-full py-3 text-amber-800 font-semibold hover:bg-white hover:bg-opacity-50 rounded-xl transition disabled:opacity-50"
+                            >
+                                {loadingMore ? 'Ładowanie...' : 'Pokaż więcej'}
+                            </button>
+                        )}
                     </div>
                 )}
             </div>
@@ -16,6 +16,8 @@ export interface Profile {
     profilePhoto: string | null;
     latitude: number | null;
     longitude: number | null;
+    distanceKm?: number | null;
+    sharedInterests?: number | null;
 }
 
 export interface SwipeResponse {
@@ -30,6 +32,27 @@ export interface Match {
     createdAt: string;
 }
 
+export interface InboxEntry {
+    matchId: number;
+    matchedUser: Profile | null;
+    lastMessage: string | null;
+    lastMessageSenderId: number | null;
+    lastMessageAt: string | null;
+    unreadCount: number;
+    lastActivityAt: string;
+    createdAt: string;
+}
+
+export interface InboxPage {
+    entries: InboxEntry[];
+    nextCursor: string | null;
+}
+
+export interface MessagePage {
+    messages: Message[];
+    nextBefore: number | null;
+}
+
 export interface Message {
     id: number;
     matchId: number;